@@ -0,0 +1,117 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline, reporting the benchmarks that regressed
+ * <p>
+ * Usage: {@code BaselineComparison <baseline file> <result file> [tolerance percentage]}.
+ * The primary score and the normalized allocation rate of each benchmark are compared with the baseline
+ * entry with the same name, mode and parameters. The process exits with status 1 if any of them regressed
+ * by more than the tolerance (10% by default), so that it can be used as a build step.
+ */
+public final class BaselineComparison {
+    private static final double DEFAULT_TOLERANCE = 10.0;
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline file> <result file> [tolerance percentage]");
+            System.exit(2);
+        }
+
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        Map<String, JsonNode> baseline = readResults(new File(args[0]));
+        Map<String, JsonNode> results = readResults(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> result : results.entrySet()) {
+            JsonNode baselineResult = baseline.get(result.getKey());
+            if (Objects.isNull(baselineResult)) {
+                System.out.println("NEW        " + result.getKey());
+                continue;
+            }
+
+            boolean higherIsBetter = "thpt".equals(result.getValue().path("mode").asText());
+            regressions += compare(
+                    result.getKey(),
+                    baselineResult.path("primaryMetric"),
+                    result.getValue().path("primaryMetric"),
+                    higherIsBetter,
+                    tolerance
+            );
+
+            JsonNode baselineAllocation = findSecondaryMetric(baselineResult, ALLOCATION_METRIC);
+            JsonNode resultAllocation = findSecondaryMetric(result.getValue(), ALLOCATION_METRIC);
+            if (!Objects.isNull(baselineAllocation) && !Objects.isNull(resultAllocation)) {
+                regressions += compare(
+                        result.getKey() + " [" + ALLOCATION_METRIC + "]",
+                        baselineAllocation,
+                        resultAllocation,
+                        false,
+                        tolerance
+                );
+            }
+        }
+
+        System.out.println(regressions + " regression(s) over " + tolerance + "% tolerance");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static int compare(String name, JsonNode baseline, JsonNode result, boolean higherIsBetter, double tolerance) {
+        double baselineScore = baseline.path("score").asDouble();
+        double resultScore = result.path("score").asDouble();
+        if (baselineScore == 0.0) {
+            return 0;
+        }
+
+        double change = (resultScore - baselineScore) / baselineScore * 100.0;
+        double regression = higherIsBetter ? -change : change;
+        boolean hasRegressed = regression > tolerance;
+        System.out.printf(
+                "%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                hasRegressed ? "REGRESSION" : "OK",
+                name,
+                baselineScore,
+                resultScore,
+                result.path("scoreUnit").asText(),
+                change
+        );
+        return hasRegressed ? 1 : 0;
+    }
+
+    private static JsonNode findSecondaryMetric(JsonNode result, String metricName) {
+        // Older JMH versions prefix the profiler metrics with a middle dot
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            if (metric.getKey().replace("\u00B7", "").equals(metricName)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, JsonNode> readResults(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String key = result.path("benchmark").asText() + " " + result.path("mode").asText() + " " + params;
+            results.put(key, result);
+        }
+        return results;
+    }
+}
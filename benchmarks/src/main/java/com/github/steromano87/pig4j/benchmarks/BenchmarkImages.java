@@ -0,0 +1,57 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Deterministic sample images shared by the benchmarks
+ */
+final class BenchmarkImages {
+    private BenchmarkImages() {
+    }
+
+    static BufferedImage createNoiseImage(int width, int height, int imageType, long seed) {
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    static BufferedImage createRenderedImage(int width, int height) {
+        // Smooth gradients with some noise, closer to generated images than plain noise
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        graphics2D.fillRect(0, 0, width, height);
+        graphics2D.drawImage(createNoiseImage(width / 4, height / 4, BufferedImage.TYPE_INT_ARGB, 1), 0, 0, null);
+        graphics2D.dispose();
+        return image;
+    }
+
+    /**
+     * Output stream that discards the written bytes, counting them
+     */
+    static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+
+        long getCount() {
+            return this.count;
+        }
+    }
+}
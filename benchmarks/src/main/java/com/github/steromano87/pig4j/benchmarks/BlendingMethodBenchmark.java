@@ -0,0 +1,99 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.rendering.CompositingKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the packed ARGB blending kernels with a naive implementation based on {@link Color} objects
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BlendingMethodBenchmark {
+    @Param({"NORMAL", "MULTIPLY", "SCREEN", "OVERLAY", "DIFFERENCE"})
+    private BlendingOptions.Method method;
+
+    @Param({"256", "1024"})
+    private int size;
+
+    private BufferedImage foreground;
+
+    private BufferedImage background;
+
+    private Rectangle area;
+
+    @Setup
+    public void setUp() {
+        this.foreground = BenchmarkImages.createNoiseImage(this.size, this.size, BufferedImage.TYPE_INT_ARGB, 1);
+        this.background = BenchmarkImages.createNoiseImage(this.size, this.size, BufferedImage.TYPE_INT_ARGB, 2);
+        this.area = new Rectangle(0, 0, this.size, this.size);
+    }
+
+    @Benchmark
+    public BufferedImage packedKernel() {
+        CompositingKernels.blendSourceAtop(this.foreground, 0, 0, this.background, this.area, this.method, 0.8f);
+        return this.background;
+    }
+
+    @Benchmark
+    public BufferedImage naiveColor() {
+        for (int y = 0; y < this.size; y++) {
+            for (int x = 0; x < this.size; x++) {
+                Color source = new Color(this.foreground.getRGB(x, y), true);
+                Color backdrop = new Color(this.background.getRGB(x, y), true);
+                float sourceAlpha = source.getAlpha() / 255.0f * 0.8f;
+                Color blended = new Color(
+                        compose(source.getRed(), backdrop.getRed(), sourceAlpha),
+                        compose(source.getGreen(), backdrop.getGreen(), sourceAlpha),
+                        compose(source.getBlue(), backdrop.getBlue(), sourceAlpha),
+                        backdrop.getAlpha()
+                );
+                this.background.setRGB(x, y, blended.getRGB());
+            }
+        }
+        return this.background;
+    }
+
+    private int compose(int source, int backdrop, float sourceAlpha) {
+        float sourceValue = source / 255.0f;
+        float backdropValue = backdrop / 255.0f;
+        float blendedValue;
+        switch (this.method) {
+            case MULTIPLY:
+                blendedValue = sourceValue * backdropValue;
+                break;
+            case SCREEN:
+                blendedValue = sourceValue + backdropValue - sourceValue * backdropValue;
+                break;
+            case OVERLAY:
+                blendedValue = backdropValue <= 0.5f
+                        ? 2 * sourceValue * backdropValue
+                        : 1 - 2 * (1 - sourceValue) * (1 - backdropValue);
+                break;
+            case DIFFERENCE:
+                blendedValue = Math.abs(backdropValue - sourceValue);
+                break;
+            default:
+                blendedValue = sourceValue;
+        }
+        return Math.round((blendedValue * sourceAlpha + backdropValue * (1 - sourceAlpha)) * 255);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the blending of two canvas-sized images, including the allocation of the output image
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BlendingOptionsBenchmark {
+    @Param({"640", "1920"})
+    private int width;
+
+    @Param({"true", "false"})
+    private boolean hasAlphaChannel;
+
+    private BufferedImage bgImage;
+
+    private BufferedImage fgImage;
+
+    private BlendingOptions blendingOptions;
+
+    @Setup
+    public void setUp() {
+        int height = this.width * 9 / 16;
+        int bgType = this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        this.bgImage = BenchmarkImages.createNoiseImage(this.width, height, bgType, 1);
+        this.fgImage = BenchmarkImages.createNoiseImage(this.width, height, BufferedImage.TYPE_INT_ARGB, 2);
+        this.blendingOptions = new BlendingOptions().setAlpha(0.7f);
+    }
+
+    @Benchmark
+    public BufferedImage apply() {
+        return this.blendingOptions.apply(this.bgImage, this.fgImage);
+    }
+}
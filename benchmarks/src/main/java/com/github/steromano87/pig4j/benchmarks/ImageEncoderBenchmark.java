@@ -0,0 +1,53 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.encoding.ImageEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of a rendered image in every supported format
+ * <p>
+ * Encoded bytes are discarded while being counted, so that the measure does not include buffering.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ImageEncoderBenchmark {
+    @Param({"BMP", "JPEG", "TIFF", "GIF", "PNG"})
+    private ImageFormat format;
+
+    @Param({"640", "1920"})
+    private int width;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        this.image = BenchmarkImages.createRenderedImage(this.width, this.width * 9 / 16);
+    }
+
+    @Benchmark
+    public long write(Blackhole blackhole) throws IOException {
+        BenchmarkImages.CountingOutputStream outputStream = new BenchmarkImages.CountingOutputStream();
+        blackhole.consume(ImageEncoder.write(this.image, this.format, outputStream));
+        return outputStream.getCount();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.layers.base.ImageLayer;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generation of a whole image over several canvas sizes and layer counts
+ * <p>
+ * A new generator is created before each invocation, since repeated builds of the same generator
+ * reuse the composite of the unchanged layers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ImageGeneratorBenchmark {
+    @Param({"640x480", "1920x1080", "3840x2160"})
+    private String canvasSize;
+
+    @Param({"1", "8", "32"})
+    private int layerCount;
+
+    @Param({"COPY", "IN_PLACE"})
+    private ImageGenerator.CompositingMode compositingMode;
+
+    private BufferedImage sourceImage;
+
+    private ImageGenerator imageGenerator;
+
+    @Setup(Level.Trial)
+    public void setUpSourceImage() {
+        this.sourceImage = BenchmarkImages.createNoiseImage(320, 240, BufferedImage.TYPE_INT_ARGB, 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpGenerator() {
+        String[] dimensions = this.canvasSize.split("x");
+        this.imageGenerator = new ImageGenerator(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]))
+                .setCompositingMode(this.compositingMode);
+
+        for (int i = 0; i < this.layerCount; i++) {
+            if (i % 2 == 0) {
+                this.imageGenerator.addLayer(new ImageLayer()
+                        .setSourceImage(this.sourceImage)
+                        .setPositionOptions(new PositionOptions().setX(i * 37).setY(i * 23)));
+            } else {
+                this.imageGenerator.addLayer(new SingleColorLayer()
+                        .setColor(new Color(i * 7 % 256, 80, 160, 64))
+                        .setFusionOptions(new BlendingOptions().setAlpha(0.5f)));
+            }
+        }
+    }
+
+    @Benchmark
+    public BufferedImage build() {
+        return this.imageGenerator.build().toImage();
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.encoding.ParallelPngEncoder;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parallel PNG encoder, to be compared with the PNG results of {@link ImageEncoderBenchmark}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelPngEncoderBenchmark {
+    @Param({"640", "1920"})
+    private int width;
+
+    @Param({"1", "6", "9"})
+    private int deflateLevel;
+
+    private BufferedImage image;
+
+    private ParallelPngEncoder encoder;
+
+    private EncodingOptions encodingOptions;
+
+    @Setup
+    public void setUp() {
+        this.image = BenchmarkImages.createRenderedImage(this.width, this.width * 9 / 16);
+        this.encoder = new ParallelPngEncoder();
+        this.encodingOptions = new EncodingOptions().setDeflateLevel(this.deflateLevel);
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        BenchmarkImages.CountingOutputStream outputStream = new BenchmarkImages.CountingOutputStream();
+        this.encoder.encode(this.image, this.encodingOptions, outputStream);
+        return outputStream.getCount();
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the resampling of an image with each scaling algorithm
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScalingOptionsBenchmark {
+    @Param({"CUBIC", "LANCZOS", "LINEAR", "NEAREST"})
+    private ScalingOptions.Algorithm algorithm;
+
+    @Param({"0.5", "2.0"})
+    private double scale;
+
+    private BufferedImage sourceImage;
+
+    private ScalingOptions scalingOptions;
+
+    @Setup
+    public void setUp() {
+        this.sourceImage = BenchmarkImages.createNoiseImage(960, 540, BufferedImage.TYPE_INT_ARGB, 1);
+        this.scalingOptions = new ScalingOptions().setScale(this.scale).setAlgorithm(this.algorithm);
+    }
+
+    @Benchmark
+    public BufferedImage apply() {
+        return this.scalingOptions.apply(this.sourceImage);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.steromano87.pig4j.benchmarks;
+
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering of a text layer on a canvas
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TextLayerBenchmark {
+    @Param({"12", "48", "144"})
+    private int fontSize;
+
+    @Param({"pig4j", "The quick brown fox jumps over the lazy dog"})
+    private String text;
+
+    private BufferedImage canvas;
+
+    private TextLayer textLayer;
+
+    @Setup
+    public void setUp() {
+        this.canvas = BenchmarkImages.createNoiseImage(1920, 1080, BufferedImage.TYPE_INT_RGB, 1);
+        this.textLayer = new TextLayer()
+                .setText(this.text)
+                .setFontSize(this.fontSize)
+                .setColor(new Color(20, 40, 200, 200))
+                .setPositionOptions(new PositionOptions().setX(100).setY(200));
+    }
+
+    @Benchmark
+    public BufferedImage apply() {
+        return this.textLayer.apply(this.canvas);
+    }
+}
@@ -1,19 +1,36 @@
 package com.github.steromano87.pig4j;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.steromano87.pig4j.encoding.ImageEncoder;
 import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
 import com.github.steromano87.pig4j.exceptions.ImageWritingException;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
 import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.OffHeapDataBuffer;
+import com.github.steromano87.pig4j.rendering.RenderPlan;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+import com.github.steromano87.pig4j.rendering.StripeDataBuffer;
+import com.github.steromano87.pig4j.rendering.StripeRenderer;
+import com.github.steromano87.pig4j.rendering.TileRenderer;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -25,9 +42,14 @@ import java.util.Objects;
  * @see Layer
  */
 public class ImageGenerator {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int OFF_HEAP_TILE_SIZE = 512;
+    private static final int STREAMED_STRIPE_HEIGHT = 256;
+
     private final ArrayList<Layer> layers = new ArrayList<>();
 
     private BufferedImage processedImage;
+    private boolean processedImageShared;
     private final int canvasWidth;
     private final int canvasHeight;
 
@@ -35,6 +57,18 @@ public class ImageGenerator {
 
     private final boolean hasAlphaChannel;
 
+    private CompositingMode compositingMode = CompositingMode.COPY;
+
+    private TileRenderer tileRenderer;
+
+    private CanvasStorage canvasStorage = CanvasStorage.HEAP;
+
+    private Instrumentation instrumentation = Instrumentation.NONE;
+
+    private List<Object> renderKeys;
+    private BufferedImage checkpointImage;
+    private int checkpointSize;
+
     /**
      * Creates an empty image generator with white background and no alpha channel support
      *
@@ -69,12 +103,6 @@ public class ImageGenerator {
         this.canvasHeight = height;
         this.backgroundColor = backgroundColor;
         this.hasAlphaChannel = hasAlphaChannel;
-        int imageType = this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
-        this.processedImage = new BufferedImage(this.canvasWidth, this.canvasHeight, imageType);
-
-        if (!Objects.isNull(backgroundColor)) {
-            this.fillWithBackgroundColor(this.backgroundColor);
-        }
     }
 
     /**
@@ -90,6 +118,95 @@ public class ImageGenerator {
         return this;
     }
 
+    /**
+     * Returns the layers stack, in FIFO order
+     *
+     * @return an unmodifiable view of the layers
+     */
+    public List<Layer> getLayers() {
+        return Collections.unmodifiableList(this.layers);
+    }
+
+    /**
+     * Sets how layers are composited on the canvas during the image generation
+     * <p>
+     * This method uses the builder pattern.
+     *
+     * @param compositingMode the compositing mode to use
+     * @return the image generator instance
+     * @see CompositingMode
+     */
+    public ImageGenerator setCompositingMode(CompositingMode compositingMode) {
+        this.compositingMode = compositingMode;
+        return this;
+    }
+
+    public CompositingMode getCompositingMode() {
+        return this.compositingMode;
+    }
+
+    /**
+     * Enables the parallel tiled rendering, using the given tile renderer
+     * <p>
+     * Tiled rendering always composites the layers in place, regardless of the compositing mode.
+     * Passing a null renderer restores the sequential rendering.
+     * This method uses the builder pattern.
+     *
+     * @param tileRenderer the tile renderer to use, or null to disable tiled rendering
+     * @return the image generator instance
+     * @see TileRenderer
+     */
+    public ImageGenerator setTileRenderer(TileRenderer tileRenderer) {
+        this.tileRenderer = tileRenderer;
+        return this;
+    }
+
+    public TileRenderer getTileRenderer() {
+        return this.tileRenderer;
+    }
+
+    /**
+     * Sets where the pixels of the canvas are stored
+     * <p>
+     * Changing the storage releases the current canvas (see {@link #release()}): the new canvas is allocated
+     * by the next {@link #build()}.
+     * This method uses the builder pattern.
+     *
+     * @param canvasStorage the canvas storage to use
+     * @return the image generator instance
+     * @see CanvasStorage
+     */
+    public ImageGenerator setCanvasStorage(CanvasStorage canvasStorage) {
+        if (canvasStorage != this.canvasStorage) {
+            this.release();
+            this.canvasStorage = canvasStorage;
+        }
+        return this;
+    }
+
+    public CanvasStorage getCanvasStorage() {
+        return this.canvasStorage;
+    }
+
+    /**
+     * Sets the instrumentation that receives the timings of the layer stages and of the encoding
+     * <p>
+     * Passing a null instrumentation disables the instrumentation.
+     * This method uses the builder pattern.
+     *
+     * @param instrumentation the instrumentation to use, or null to disable it
+     * @return the image generator instance
+     * @see com.github.steromano87.pig4j.instrumentation.HistogramRecorder
+     */
+    public ImageGenerator setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = Objects.isNull(instrumentation) ? Instrumentation.NONE : instrumentation;
+        return this;
+    }
+
+    public Instrumentation getInstrumentation() {
+        return this.instrumentation;
+    }
+
     public int getCanvasWidth() {
         return this.canvasWidth;
     }
@@ -106,6 +223,20 @@ public class ImageGenerator {
         return this.hasAlphaChannel;
     }
 
+    /**
+     * Frees the canvas and the checkpoint of the previous generation
+     * <p>
+     * Off-heap canvases are freed immediately, hence images previously returned by {@link #toImage()} must not be used
+     * anymore. The processed image is not available until the next {@link #build()}, which starts from the background.
+     * Releasing must not happen while the image is being built or encoded.
+     */
+    public void release() {
+        OffHeapDataBuffer.release(this.processedImage);
+        this.processedImage = null;
+        this.discardCheckpoint();
+        this.renderKeys = null;
+    }
+
     /**
      * Combines the existing layers ang internally generates the final output image.
      * <p>
@@ -114,29 +245,82 @@ public class ImageGenerator {
      * <p>
      * The image generation process is non-destructive, i.e. if after the first generation the user wants
      * to add another layer and re-generate the image, existing layers will e preserved.
+     * Every generation starts from the background color, so layers are never applied twice.
+     * <p>
+     * From the second generation on, the composite of the longest prefix of layers whose render key did not change
+     * since the previous generation is kept as a checkpoint, and only the layers after it are applied again.
+     * <p>
+     * With the {@link CanvasStorage#STREAMED} storage the layers are only prepared: they are composited stripe by
+     * stripe while the image is encoded, hence they must not be modified until the output has been written.
      *
      * @return the image generator instance, using builder pattern
      * @throws ImageGenerationException if there are errors during image generation
+     * @see Layer#getRenderKey()
      */
     public ImageGenerator build() throws ImageGenerationException {
         if (this.layers.isEmpty()) {
             throw new ImageGenerationException("No layer has been added");
         }
 
+        if (this.canvasStorage == CanvasStorage.STREAMED) {
+            this.processedImage = new StripeRenderer(STREAMED_STRIPE_HEIGHT).render(
+                    this.layers,
+                    this.canvasWidth,
+                    this.canvasHeight,
+                    this.backgroundColor,
+                    this.hasAlphaChannel,
+                    this.instrumentation,
+                    0
+            );
+            return this;
+        }
+
+        List<Object> currentRenderKeys = new ArrayList<>();
         for (Layer layer : this.layers) {
-            this.processedImage = layer.apply(this.processedImage);
+            currentRenderKeys.add(layer.getRenderKey());
         }
+        int unchangedLayers = this.countUnchangedLayers(currentRenderKeys);
+
+        // Restart from the checkpoint if it is still valid, otherwise from the background
+        int appliedLayers = 0;
+        if (!Objects.isNull(this.checkpointImage) && this.checkpointSize <= unchangedLayers) {
+            this.restoreCheckpoint();
+            appliedLayers = this.checkpointSize;
+        } else {
+            this.discardCheckpoint();
+            this.resetCanvas();
+        }
+
+        // Move the checkpoint forward when more layers are unchanged (never on the first generation)
+        if (!Objects.isNull(this.renderKeys) && unchangedLayers > appliedLayers) {
+            this.applyLayers(appliedLayers, unchangedLayers);
+            this.discardCheckpoint();
+            this.checkpointImage = this.createCanvas();
+            ImageUtils.copyInto(this.processedImage, this.checkpointImage, 0, 0);
+            this.checkpointSize = unchangedLayers;
+            appliedLayers = unchangedLayers;
+        }
+
+        this.applyLayers(appliedLayers, this.layers.size());
+        this.renderKeys = currentRenderKeys;
         return this;
     }
 
     /**
      * Returns the processed image as a Java buffered image (for internal use
+     * <p>
+     * The returned image is never modified by the following generations: once it has been handed out,
+     * the next {@link #build()} renders on a new canvas.
+     * <p>
+     * Images of a {@link CanvasStorage#STREAMED} canvas are read-only and render their pixels when they are read.
      *
      * @return the processed image as a buffered image
      * @throws ImageGenerationException when the final image has not been processed before or if no layers have been added
      */
     public BufferedImage toImage() throws ImageGenerationException {
-        return this.safelyGetProcessedImage();
+        BufferedImage image = this.safelyGetProcessedImage();
+        this.processedImageShared = true;
+        return image;
     }
 
     /**
@@ -148,12 +332,98 @@ public class ImageGenerator {
      *                               if there are some errors during image processing
      */
     public byte[] toByteArray(ImageFormat format) throws ImageWritingException {
+        return this.toByteArray(format, new EncodingOptions());
+    }
+
+    /**
+     * Returns the processed image as a byte array, encoded with the given encoding options
+     *
+     * @param format          the underlying image format
+     * @param encodingOptions the encoder parameters
+     * @return the processed image as a byte array
+     * @throws ImageWritingException when the byte array is not writable or
+     *                               if there are some errors during image processing
+     */
+    public byte[] toByteArray(ImageFormat format, EncodingOptions encodingOptions) throws ImageWritingException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.toOutputStream(outputStream, format, encodingOptions);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes the processed image to an output stream, while it is being encoded
+     * <p>
+     * The output stream is flushed but not closed.
+     *
+     * @param outputStream the output stream
+     * @param format       the underlying image format
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the stream or
+     *                               if there are some errors during image processing
+     */
+    public boolean toOutputStream(OutputStream outputStream, ImageFormat format) throws ImageWritingException {
+        return this.toOutputStream(outputStream, format, new EncodingOptions());
+    }
+
+    /**
+     * Writes the processed image to an output stream, encoded with the given encoding options
+     * <p>
+     * The output stream is flushed but not closed.
+     *
+     * @param outputStream    the output stream
+     * @param format          the underlying image format
+     * @param encodingOptions the encoder parameters
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the stream or
+     *                               if there are some errors during image processing
+     */
+    public boolean toOutputStream(OutputStream outputStream, ImageFormat format, EncodingOptions encodingOptions)
+            throws ImageWritingException {
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(this.safelyGetProcessedImage(), format.getExtension(), outputStream);
-            return outputStream.toByteArray();
+            return this.encode(format, outputStream, stream -> ImageEncoder.write(
+                    this.safelyGetProcessedImage(), format, encodingOptions, stream
+            ));
         } catch (IOException exc) {
-            throw new ImageWritingException("Cannot write to output byte array", exc);
+            throw new ImageWritingException("Cannot write to output stream", exc);
+        }
+    }
+
+    /**
+     * Writes the processed image to a channel, while it is being encoded
+     * <p>
+     * The channel is not closed.
+     *
+     * @param channel the output channel
+     * @param format  the underlying image format
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the channel or
+     *                               if there are some errors during image processing
+     */
+    public boolean toChannel(WritableByteChannel channel, ImageFormat format) throws ImageWritingException {
+        return this.toChannel(channel, format, new EncodingOptions());
+    }
+
+    /**
+     * Writes the processed image to a channel, encoded with the given encoding options
+     * <p>
+     * The channel is not closed.
+     *
+     * @param channel         the output channel
+     * @param format          the underlying image format
+     * @param encodingOptions the encoder parameters
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the channel or
+     *                               if there are some errors during image processing
+     */
+    public boolean toChannel(WritableByteChannel channel, ImageFormat format, EncodingOptions encodingOptions)
+            throws ImageWritingException {
+        try {
+            OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+            return this.encode(format, outputStream, stream -> ImageEncoder.write(
+                    this.safelyGetProcessedImage(), format, encodingOptions, stream
+            ));
+        } catch (IOException exc) {
+            throw new ImageWritingException("Cannot write to output channel", exc);
         }
     }
 
@@ -167,9 +437,25 @@ public class ImageGenerator {
      *                               if there are some errors during image processing
      */
     public boolean toFile(File file, ImageFormat format) throws ImageWritingException {
-        try {
-            FileOutputStream outputStream = new FileOutputStream(file);
-            return ImageIO.write(this.safelyGetProcessedImage(), format.getExtension(), outputStream);
+        return this.toFile(file, format, new EncodingOptions());
+    }
+
+    /**
+     * Writes the processed image to a file, encoded with the given encoding options
+     *
+     * @param file            the output file
+     * @param format          the file format
+     * @param encodingOptions the encoder parameters
+     * @return whether the file has been written or not
+     * @throws ImageWritingException if there are errors when writing the file or
+     *                               if there are some errors during image processing
+     */
+    public boolean toFile(File file, ImageFormat format, EncodingOptions encodingOptions)
+            throws ImageWritingException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE)) {
+            return this.encode(format, outputStream, stream -> ImageEncoder.write(
+                    this.safelyGetProcessedImage(), format, encodingOptions, stream
+            ));
         } catch (IOException exc) {
             throw new ImageWritingException("Cannot write to output file", exc);
         }
@@ -183,8 +469,30 @@ public class ImageGenerator {
      * @throws ImageWritingException if there are some errors during the processed image generation
      */
     public String toBase64(ImageFormat format) throws ImageWritingException {
-        byte[] byteArray = this.toByteArray(format);
-        return Base64.getEncoder().encodeToString(byteArray);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.toBase64(outputStream, format);
+        return new String(outputStream.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the Base64 representation of the processed image to an output stream, while it is being encoded
+     * <p>
+     * The output stream receives ASCII characters and is flushed but not closed.
+     *
+     * @param outputStream the output stream
+     * @param format       the underlying image format
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the stream or
+     *                               if there are some errors during image processing
+     */
+    public boolean toBase64(OutputStream outputStream, ImageFormat format) throws ImageWritingException {
+        try {
+            return this.encode(format, outputStream, stream -> ImageEncoder.writeBase64(
+                    this.safelyGetProcessedImage(), format, stream
+            ));
+        } catch (IOException exc) {
+            throw new ImageWritingException("Cannot write Base64 image to output stream", exc);
+        }
     }
 
     /**
@@ -198,9 +506,31 @@ public class ImageGenerator {
      * @link https://en.wikipedia.org/wiki/Data_URI_scheme
      */
     public String toDataUrl(ImageFormat format) throws ImageWritingException {
-        String base64image = this.toBase64(format);
-        String mimeType = format.getMimeType();
-        return String.format("data:%s;base64,%s", mimeType, base64image);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.toDataUrl(outputStream, format);
+        return new String(outputStream.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the data URL representation of the processed image to an output stream, while it is being encoded
+     * <p>
+     * The output stream receives ASCII characters and is flushed but not closed.
+     *
+     * @param outputStream the output stream
+     * @param format       the underlying image format
+     * @return whether the image has been written or not
+     * @throws ImageWritingException if there are errors when writing to the stream or
+     *                               if there are some errors during image processing
+     * @link https://en.wikipedia.org/wiki/Data_URI_scheme
+     */
+    public boolean toDataUrl(OutputStream outputStream, ImageFormat format) throws ImageWritingException {
+        try {
+            return this.encode(format, outputStream, stream -> ImageEncoder.writeDataUrl(
+                    this.safelyGetProcessedImage(), format, stream
+            ));
+        } catch (IOException exc) {
+            throw new ImageWritingException("Cannot write data URL to output stream", exc);
+        }
     }
 
     private BufferedImage safelyGetProcessedImage() throws ImageGenerationException {
@@ -216,10 +546,209 @@ public class ImageGenerator {
         return this.processedImage;
     }
 
-    private void fillWithBackgroundColor(Color color) {
+    private boolean encode(ImageFormat format, OutputStream outputStream, EncodingStep step) throws IOException {
+        if (this.instrumentation == Instrumentation.NONE) {
+            return step.write(outputStream);
+        }
+
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        long startTime = System.nanoTime();
+        boolean written = step.write(countingStream);
+        this.instrumentation.recordEncoding(format, System.nanoTime() - startTime, countingStream.getCount());
+        return written;
+    }
+
+    private void applyLayers(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+
+        List<Layer> layersToApply = this.layers.subList(fromIndex, toIndex);
+        TileRenderer tileRenderer = this.tileRenderer;
+        if (Objects.isNull(tileRenderer) && this.canvasStorage == CanvasStorage.OFF_HEAP) {
+            tileRenderer = new TileRenderer(OFF_HEAP_TILE_SIZE);
+        }
+        if (!Objects.isNull(tileRenderer)) {
+            tileRenderer.render(layersToApply, this.processedImage, this.instrumentation, fromIndex);
+            return;
+        }
+
+        RenderPlan renderPlan = RenderPlan.create(layersToApply, this.canvasWidth, this.canvasHeight, this.hasAlphaChannel);
+        long canvasPixels = (long) this.canvasWidth * this.canvasHeight;
+        RenderTarget target = new RenderTarget(this.processedImage);
+        for (int i = 0; i < renderPlan.getLayers().size(); i++) {
+            Layer layer = renderPlan.getLayers().get(i);
+            int layerIndex = fromIndex + renderPlan.getIndexes().get(i);
+            try (LayerProbe ignored = LayerProbe.open(this.instrumentation, layerIndex, layer);
+                 LayerProbe.StageTimer timer = LayerProbe.time(Instrumentation.Stage.LAYER, canvasPixels)) {
+                if (this.compositingMode == CompositingMode.IN_PLACE) {
+                    layer.applyInPlace(target);
+                } else {
+                    this.processedImage = layer.apply(this.processedImage);
+                }
+            }
+        }
+    }
+
+    private int countUnchangedLayers(List<Object> currentRenderKeys) {
+        if (Objects.isNull(this.renderKeys)) {
+            return 0;
+        }
+
+        int unchangedLayers = 0;
+        int comparableLayers = Math.min(currentRenderKeys.size(), this.renderKeys.size());
+        while (unchangedLayers < comparableLayers) {
+            Object currentKey = currentRenderKeys.get(unchangedLayers);
+            if (Objects.isNull(currentKey) || !currentKey.equals(this.renderKeys.get(unchangedLayers))) {
+                break;
+            }
+            unchangedLayers++;
+        }
+
+        return unchangedLayers;
+    }
+
+    private boolean isCanvasReusable() {
+        if (Objects.isNull(this.processedImage) || this.processedImageShared ||
+                this.processedImage.getWidth() != this.canvasWidth ||
+                this.processedImage.getHeight() != this.canvasHeight) {
+            return false;
+        }
+
+        if (this.canvasStorage == CanvasStorage.OFF_HEAP) {
+            OffHeapDataBuffer dataBuffer = OffHeapDataBuffer.of(this.processedImage);
+            return !Objects.isNull(dataBuffer) && !dataBuffer.isReleased() &&
+                    this.processedImage.getColorModel().hasAlpha() == this.hasAlphaChannel;
+        }
+
+        int imageType = this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        return this.processedImage.getType() == imageType;
+    }
+
+    private BufferedImage createCanvas() {
+        if (this.canvasStorage == CanvasStorage.OFF_HEAP) {
+            return OffHeapDataBuffer.createImage(this.canvasWidth, this.canvasHeight, this.hasAlphaChannel);
+        }
+
+        int imageType = this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        return new BufferedImage(this.canvasWidth, this.canvasHeight, imageType);
+    }
+
+    private void discardCheckpoint() {
+        OffHeapDataBuffer.release(this.checkpointImage);
+        this.checkpointImage = null;
+        this.checkpointSize = 0;
+    }
+
+    private void restoreCheckpoint() {
+        if (!this.isCanvasReusable()) {
+            this.processedImage = this.createCanvas();
+            this.processedImageShared = false;
+        }
+        ImageUtils.copyInto(this.checkpointImage, this.processedImage, 0, 0);
+    }
+
+    private void resetCanvas() {
+        if (!this.isCanvasReusable()) {
+            this.processedImage = this.createCanvas();
+            this.processedImageShared = false;
+            if (Objects.isNull(this.backgroundColor)) {
+                return;
+            }
+        }
+
+        Color color = Objects.isNull(this.backgroundColor) ? new Color(0, 0, 0, 0) : this.backgroundColor;
+        OffHeapDataBuffer dataBuffer = OffHeapDataBuffer.of(this.processedImage);
+        if (!Objects.isNull(dataBuffer)) {
+            // The generic Java2D loops would convert every pixel of the off-heap canvas
+            dataBuffer.fill(color.getRGB(), this.hasAlphaChannel);
+            return;
+        }
+
         Graphics2D graphics2D = this.processedImage.createGraphics();
-        graphics2D.setBackground(color);
-        graphics2D.clearRect(0, 0, this.canvasWidth, this.canvasHeight);
+        graphics2D.setComposite(AlphaComposite.Src);
+        graphics2D.setColor(color);
+        graphics2D.fillRect(0, 0, this.canvasWidth, this.canvasHeight);
         graphics2D.dispose();
     }
+
+    /**
+     * Writes an encoded image to a stream
+     */
+    private interface EncodingStep {
+        boolean write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Output stream that counts the bytes written to another stream
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        private long getCount() {
+            return this.count;
+        }
+    }
+
+    /**
+     * Memory used to store the pixels of the canvas and of the checkpoint
+     */
+    public enum CanvasStorage {
+        /**
+         * Pixels are stored in integer arrays on the Java heap
+         */
+        HEAP,
+
+        /**
+         * Pixels are stored outside of the Java heap (see {@link OffHeapDataBuffer}), so that very large canvases
+         * do not need a contiguous heap array and can be freed with {@link #release()}
+         * <p>
+         * Off-heap canvases are always rendered tile by tile, so that layers are composited on small heap tiles:
+         * when no tile renderer is set, a default one with 512 pixels tiles is used.
+         */
+        OFF_HEAP,
+
+        /**
+         * Pixels are never stored as a whole: the layers are composited one horizontal stripe of 256 rows at a time
+         * while the image is being encoded (see {@link StripeRenderer}), so that the memory used by the canvas does not
+         * depend on its height
+         * <p>
+         * Encoders that write the image from top to bottom, as the PNG and TIFF ones, keep only a few stripes in memory.
+         * Streamed canvases are read-only (see {@link StripeDataBuffer}), are always composited in place regardless of
+         * the compositing mode and the tile renderer, and are rendered again from the background on every encoding,
+         * without checkpoints.
+         */
+        STREAMED
+    }
+
+    /**
+     * Strategy used to composite the layers on the canvas
+     */
+    public enum CompositingMode {
+        /**
+         * Each layer outputs a new canvas-sized image, that becomes the input of the following layer
+         */
+        COPY,
+
+        /**
+         * All the layers draw directly on a single canvas, touching only the area they cover
+         */
+        IN_PLACE
+    }
 }
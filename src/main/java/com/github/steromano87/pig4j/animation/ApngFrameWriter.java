@@ -0,0 +1,199 @@
+package com.github.steromano87.pig4j.animation;
+
+import com.github.steromano87.pig4j.encoding.ParallelPngEncoder;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writes animated PNG images, storing each frame as the rectangle of the changed pixels
+ * <p>
+ * Frame data is filtered and compressed by the {@link ParallelPngEncoder}, with the deflate level and the scanline
+ * filter of the encoding options. Images are written as 8-bit RGBA if the canvas has an alpha channel, as 8-bit RGB
+ * otherwise. On canvases with alpha channel, frames whose changed pixels are all opaque leave the unchanged pixels
+ * transparent and are blended over the previous frame, which compresses better; all the other frames replace the
+ * pixels of their rectangle.
+ *
+ * @link https://wiki.mozilla.org/APNG_Specification
+ */
+final class ApngFrameWriter extends FrameWriter {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int MAX_DELAY = 0xFFFF;
+    private static final int OPAQUE = 0xFF;
+
+    private static final int BLEND_SOURCE = 0;
+    private static final int BLEND_OVER = 1;
+
+    private final ParallelPngEncoder pngEncoder = new ParallelPngEncoder();
+    private final EncodingOptions encodingOptions;
+    private final List<ApngFrame> frames = new ArrayList<>();
+
+    ApngFrameWriter(int width, int height, boolean hasAlphaChannel, EncodingOptions encodingOptions) {
+        super(width, height, hasAlphaChannel);
+        this.encodingOptions = encodingOptions;
+    }
+
+    @Override
+    protected void writeFrame(int[] frame, int[] previousFrame, Rectangle bounds, int delay) throws IOException {
+        boolean blendsOver = this.hasAlphaChannel && !this.frames.isEmpty() &&
+                this.isOpaque(frame, previousFrame, bounds);
+        BufferedImage frameImage = new BufferedImage(
+                bounds.width,
+                bounds.height,
+                this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+        );
+        int[] row = new int[bounds.width];
+        for (int y = 0; y < bounds.height; y++) {
+            int index = (bounds.y + y) * this.width + bounds.x;
+            System.arraycopy(frame, index, row, 0, bounds.width);
+            if (blendsOver) {
+                for (int x = 0; x < bounds.width; x++) {
+                    if (row[x] == previousFrame[index + x]) {
+                        row[x] = 0;
+                    }
+                }
+            }
+            frameImage.getRaster().setDataElements(0, y, bounds.width, 1, row);
+        }
+
+        ByteArrayOutputStream encodedImage = new ByteArrayOutputStream();
+        this.pngEncoder.encode(frameImage, this.encodingOptions, encodedImage);
+        byte[] imageData = readImageData(encodedImage.toByteArray());
+        this.frames.add(new ApngFrame(bounds, imageData, delay, blendsOver ? BLEND_OVER : BLEND_SOURCE));
+    }
+
+    @Override
+    protected void extendLastFrame(int delay) {
+        this.frames.get(this.frames.size() - 1).delay += delay;
+    }
+
+    @Override
+    void finish(OutputStream outputStream, int loopCount) throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerStream = new DataOutputStream(header);
+        headerStream.writeInt(this.width);
+        headerStream.writeInt(this.height);
+        headerStream.writeByte(8);
+        headerStream.writeByte(this.hasAlphaChannel ? 6 : 2);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        writeChunk(dataOutputStream, "IHDR", header.toByteArray());
+
+        ByteArrayOutputStream animationControl = new ByteArrayOutputStream();
+        DataOutputStream animationControlStream = new DataOutputStream(animationControl);
+        animationControlStream.writeInt(this.frames.size());
+        animationControlStream.writeInt(loopCount);
+        writeChunk(dataOutputStream, "acTL", animationControl.toByteArray());
+
+        // Frame control and frame data chunks share a single sequence
+        int sequenceNumber = 0;
+        for (int i = 0; i < this.frames.size(); i++) {
+            ApngFrame frame = this.frames.get(i);
+            ByteArrayOutputStream frameControl = new ByteArrayOutputStream();
+            DataOutputStream frameControlStream = new DataOutputStream(frameControl);
+            frameControlStream.writeInt(sequenceNumber++);
+            frameControlStream.writeInt(frame.bounds.width);
+            frameControlStream.writeInt(frame.bounds.height);
+            frameControlStream.writeInt(frame.bounds.x);
+            frameControlStream.writeInt(frame.bounds.y);
+            if (frame.delay <= MAX_DELAY) {
+                frameControlStream.writeShort(frame.delay);
+                frameControlStream.writeShort(1000);
+            } else {
+                frameControlStream.writeShort(Math.min((frame.delay + 5) / 10, MAX_DELAY));
+                frameControlStream.writeShort(100);
+            }
+            frameControlStream.writeByte(0);
+            frameControlStream.writeByte(frame.blending);
+            writeChunk(dataOutputStream, "fcTL", frameControl.toByteArray());
+
+            if (i == 0) {
+                writeChunk(dataOutputStream, "IDAT", frame.data);
+            } else {
+                ByteArrayOutputStream frameData = new ByteArrayOutputStream(frame.data.length + 4);
+                new DataOutputStream(frameData).writeInt(sequenceNumber++);
+                frameData.write(frame.data);
+                writeChunk(dataOutputStream, "fdAT", frameData.toByteArray());
+            }
+        }
+
+        writeChunk(dataOutputStream, "IEND", new byte[0]);
+        dataOutputStream.flush();
+    }
+
+    private boolean isOpaque(int[] frame, int[] previousFrame, Rectangle bounds) {
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            int index = y * this.width + bounds.x;
+            for (int x = 0; x < bounds.width; x++, index++) {
+                if (frame[index] != previousFrame[index] && (frame[index] >>> 24) != OPAQUE) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the content of the image data chunks of a PNG image, i.e. its zlib stream
+     */
+    private static byte[] readImageData(byte[] encodedImage) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(encodedImage));
+        inputStream.skipBytes(SIGNATURE.length);
+        ByteArrayOutputStream imageData = new ByteArrayOutputStream(encodedImage.length);
+        byte[] type = new byte[4];
+        while (inputStream.available() > 0) {
+            int length = inputStream.readInt();
+            inputStream.readFully(type);
+            byte[] data = new byte[length];
+            inputStream.readFully(data);
+            inputStream.readInt();
+            if ("IDAT".equals(new String(type, StandardCharsets.US_ASCII))) {
+                imageData.write(data);
+            }
+        }
+        return imageData.toByteArray();
+    }
+
+    private static void writeChunk(DataOutputStream outputStream, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        outputStream.writeInt(data.length);
+        outputStream.write(typeBytes);
+        outputStream.write(data);
+        outputStream.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Compressed frame, whose delay can still change until the animation is written
+     */
+    private static final class ApngFrame {
+        private final Rectangle bounds;
+        private final byte[] data;
+        private final int blending;
+        private int delay;
+
+        private ApngFrame(Rectangle bounds, byte[] data, int delay, int blending) {
+            this.bounds = bounds;
+            this.data = data;
+            this.delay = delay;
+            this.blending = blending;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.github.steromano87.pig4j.animation;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
+import com.github.steromano87.pig4j.exceptions.ImageWritingException;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderPlan;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Renders the frames of an animation from the layers of an image generator and writes them as an animated image
+ * <p>
+ * Before each frame, the {@link FrameUpdater} changes the state of the layers (e.g. their position, their blending
+ * alpha or their text). Each frame starts from the previous one: only the area covered by the layers whose render key
+ * or bounds changed is composited again, and only the rectangle of the pixels that actually changed is encoded.
+ * Frames equal to the previous one are merged into it. A banner with a moving logo hence costs about one full frame
+ * plus the area swept by the logo.
+ * <p>
+ * Frames are always composited in place on a heap canvas, using the background color and the instrumentation of the
+ * image generator: its compositing mode, tile renderer and canvas storage are not used. Encoded frames are kept in
+ * memory until the last one has been rendered, since the frame count and the color table precede them in the file.
+ *
+ * @see Layer#getRenderKey()
+ */
+public class FrameSequence {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_FRAME_DELAY = 100;
+
+    private final ImageGenerator imageGenerator;
+
+    private int frameCount = 1;
+
+    private int frameDelay = DEFAULT_FRAME_DELAY;
+
+    private int loopCount;
+
+    private FrameUpdater frameUpdater = frameIndex -> {
+    };
+
+    /**
+     * Creates a frame sequence that renders the layers of the given image generator
+     *
+     * @param imageGenerator the image generator that holds the canvas settings and the layers
+     */
+    public FrameSequence(ImageGenerator imageGenerator) {
+        this.imageGenerator = imageGenerator;
+    }
+
+    /**
+     * Sets the number of frames of the animation
+     *
+     * @param frameCount the number of frames
+     * @return the frame sequence instance
+     */
+    public FrameSequence setFrameCount(int frameCount) {
+        if (frameCount <= 0) {
+            throw new IllegalArgumentException("Frame count should be a positive number");
+        }
+
+        this.frameCount = frameCount;
+        return this;
+    }
+
+    /**
+     * Sets how long each frame is displayed
+     *
+     * @param frameDelay the frame delay, expressed in milliseconds
+     * @return the frame sequence instance
+     */
+    public FrameSequence setFrameDelay(int frameDelay) {
+        if (frameDelay < 0) {
+            throw new IllegalArgumentException("Frame delay should not be negative");
+        }
+
+        this.frameDelay = frameDelay;
+        return this;
+    }
+
+    /**
+     * Sets how many times the animation is played
+     *
+     * @param loopCount the number of plays, or zero to play the animation forever
+     * @return the frame sequence instance
+     */
+    public FrameSequence setLoopCount(int loopCount) {
+        if (loopCount < 0) {
+            throw new IllegalArgumentException("Loop count should not be negative");
+        }
+
+        this.loopCount = loopCount;
+        return this;
+    }
+
+    /**
+     * Sets the function that changes the layers before each frame is rendered
+     *
+     * @param frameUpdater the frame updater
+     * @return the frame sequence instance
+     */
+    public FrameSequence setFrameUpdater(FrameUpdater frameUpdater) {
+        this.frameUpdater = frameUpdater;
+        return this;
+    }
+
+    public ImageGenerator getImageGenerator() {
+        return this.imageGenerator;
+    }
+
+    public int getFrameCount() {
+        return this.frameCount;
+    }
+
+    public int getFrameDelay() {
+        return this.frameDelay;
+    }
+
+    public int getLoopCount() {
+        return this.loopCount;
+    }
+
+    public FrameUpdater getFrameUpdater() {
+        return this.frameUpdater;
+    }
+
+    /**
+     * Renders the animation and returns it as a byte array
+     *
+     * @param format the animation format
+     * @return the animation as a byte array
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors during the frames encoding
+     */
+    public byte[] toByteArray(Format format) throws ImageWritingException {
+        return this.toByteArray(format, new EncodingOptions());
+    }
+
+    /**
+     * Renders the animation and returns it as a byte array, encoded with the given encoding options
+     *
+     * @param format          the animation format
+     * @param encodingOptions the encoder parameters
+     * @return the animation as a byte array
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors during the frames encoding
+     */
+    public byte[] toByteArray(Format format, EncodingOptions encodingOptions) throws ImageWritingException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.toOutputStream(outputStream, format, encodingOptions);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Renders the animation and writes it to an output stream
+     * <p>
+     * The output stream is flushed but not closed.
+     *
+     * @param outputStream the output stream
+     * @param format       the animation format
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors when writing to the stream
+     */
+    public void toOutputStream(OutputStream outputStream, Format format) throws ImageWritingException {
+        this.toOutputStream(outputStream, format, new EncodingOptions());
+    }
+
+    /**
+     * Renders the animation and writes it to an output stream, encoded with the given encoding options
+     * <p>
+     * The output stream is flushed but not closed.
+     *
+     * @param outputStream    the output stream
+     * @param format          the animation format
+     * @param encodingOptions the encoder parameters
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors when writing to the stream
+     */
+    public void toOutputStream(OutputStream outputStream, Format format, EncodingOptions encodingOptions)
+            throws ImageWritingException {
+        try {
+            this.write(outputStream, format, encodingOptions);
+        } catch (IOException exc) {
+            throw new ImageWritingException("Cannot write animation to output stream", exc);
+        }
+    }
+
+    /**
+     * Renders the animation and writes it to a file
+     *
+     * @param file   the output file
+     * @param format the animation format
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors when writing the file
+     */
+    public void toFile(File file, Format format) throws ImageWritingException {
+        this.toFile(file, format, new EncodingOptions());
+    }
+
+    /**
+     * Renders the animation and writes it to a file, encoded with the given encoding options
+     *
+     * @param file            the output file
+     * @param format          the animation format
+     * @param encodingOptions the encoder parameters
+     * @throws ImageGenerationException if there are errors during the frames generation
+     * @throws ImageWritingException    if there are errors when writing the file
+     */
+    public void toFile(File file, Format format, EncodingOptions encodingOptions) throws ImageWritingException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE)) {
+            this.write(outputStream, format, encodingOptions);
+        } catch (IOException exc) {
+            throw new ImageWritingException("Cannot write animation to output file", exc);
+        }
+    }
+
+    private void write(OutputStream outputStream, Format format, EncodingOptions encodingOptions) throws IOException {
+        int canvasWidth = this.imageGenerator.getCanvasWidth();
+        int canvasHeight = this.imageGenerator.getCanvasHeight();
+        boolean hasAlphaChannel = this.imageGenerator.hasAlphaChannel();
+        Rectangle canvasBounds = new Rectangle(0, 0, canvasWidth, canvasHeight);
+        BufferedImage canvas = new BufferedImage(
+                canvasWidth,
+                canvasHeight,
+                hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+        );
+        int[] canvasPixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        FrameWriter frameWriter = format.createWriter(canvasWidth, canvasHeight, hasAlphaChannel, encodingOptions);
+
+        LayerStates previousStates = null;
+        for (int frameIndex = 0; frameIndex < this.frameCount; frameIndex++) {
+            this.frameUpdater.update(frameIndex);
+            List<Layer> layers = new ArrayList<>(this.imageGenerator.getLayers());
+            if (layers.isEmpty()) {
+                throw new ImageGenerationException("No layer has been added");
+            }
+
+            LayerStates states = new LayerStates(layers, canvasWidth, canvasHeight);
+            Rectangle changedArea = Objects.isNull(previousStates)
+                    ? canvasBounds
+                    : states.findChangedArea(previousStates).intersection(canvasBounds);
+            if (!changedArea.isEmpty()) {
+                this.renderArea(layers, canvas, changedArea);
+            }
+
+            frameWriter.addFrame(canvasPixels, changedArea, this.frameDelay);
+            previousStates = states;
+        }
+
+        frameWriter.finish(outputStream, this.loopCount);
+    }
+
+    private void renderArea(List<Layer> layers, BufferedImage canvas, Rectangle area) {
+        int canvasWidth = canvas.getWidth();
+        int canvasHeight = canvas.getHeight();
+        boolean hasAlphaChannel = canvas.getColorModel().hasAlpha();
+
+        // The area is composited again from the background, as the tiles of the tiled rendering
+        BufferedImage areaImage = new BufferedImage(area.width, area.height, canvas.getType());
+        Color backgroundColor = this.imageGenerator.getBackgroundColor();
+        if (!Objects.isNull(backgroundColor)) {
+            Graphics2D graphics2D = areaImage.createGraphics();
+            graphics2D.setComposite(AlphaComposite.Src);
+            graphics2D.setColor(backgroundColor);
+            graphics2D.fillRect(0, 0, area.width, area.height);
+            graphics2D.dispose();
+        }
+
+        RenderTarget target = new RenderTarget(areaImage, area.x, area.y, canvasWidth, canvasHeight);
+        RenderPlan renderPlan = RenderPlan.create(layers, canvasWidth, canvasHeight, hasAlphaChannel);
+        Instrumentation instrumentation = this.imageGenerator.getInstrumentation();
+        long areaPixels = (long) area.width * area.height;
+        for (int i = 0; i < renderPlan.getLayers().size(); i++) {
+            Layer layer = renderPlan.getLayers().get(i);
+            if (!layer.getBounds(canvasWidth, canvasHeight).intersects(area)) {
+                continue;
+            }
+
+            try (LayerProbe ignored = LayerProbe.open(instrumentation, renderPlan.getIndexes().get(i), layer)) {
+                Layer preparedLayer = layer.prepare(canvasWidth, canvasHeight, hasAlphaChannel);
+                try (LayerProbe.StageTimer timer = LayerProbe.time(Instrumentation.Stage.LAYER, areaPixels)) {
+                    preparedLayer.applyInPlace(target);
+                }
+            }
+        }
+
+        ImageUtils.copyInto(areaImage, canvas, area.x, area.y);
+    }
+
+    /**
+     * Changes the layers of the image generator before a frame is rendered
+     */
+    @FunctionalInterface
+    public interface FrameUpdater {
+        /**
+         * Sets the state of the layers for the given frame
+         *
+         * @param frameIndex the index of the frame, starting from zero
+         */
+        void update(int frameIndex);
+    }
+
+    /**
+     * Layers, render keys and bounds of the layers stack when a frame is rendered
+     */
+    private static final class LayerStates {
+        private final List<Layer> layers;
+        private final List<Object> renderKeys = new ArrayList<>();
+        private final List<Rectangle> bounds = new ArrayList<>();
+
+        private LayerStates(List<Layer> layers, int canvasWidth, int canvasHeight) {
+            this.layers = layers;
+            for (Layer layer : layers) {
+                this.renderKeys.add(layer.getRenderKey());
+                this.bounds.add(layer.getBounds(canvasWidth, canvasHeight));
+            }
+        }
+
+        /**
+         * Returns the union of the previous and current bounds of the layers that changed, or an empty area
+         */
+        private Rectangle findChangedArea(LayerStates previousStates) {
+            Rectangle changedArea = null;
+            int layerCount = Math.max(this.layers.size(), previousStates.layers.size());
+            for (int i = 0; i < layerCount; i++) {
+                if (i < this.layers.size() && i < previousStates.layers.size() &&
+                        this.layers.get(i) == previousStates.layers.get(i) &&
+                        !Objects.isNull(this.renderKeys.get(i)) &&
+                        this.renderKeys.get(i).equals(previousStates.renderKeys.get(i)) &&
+                        this.bounds.get(i).equals(previousStates.bounds.get(i))) {
+                    continue;
+                }
+
+                if (i < this.layers.size()) {
+                    changedArea = union(changedArea, this.bounds.get(i));
+                }
+                if (i < previousStates.layers.size()) {
+                    changedArea = union(changedArea, previousStates.bounds.get(i));
+                }
+            }
+            return Objects.isNull(changedArea) ? new Rectangle() : changedArea;
+        }
+
+        private static Rectangle union(Rectangle area, Rectangle bounds) {
+            return Objects.isNull(area) ? new Rectangle(bounds) : area.union(bounds);
+        }
+    }
+
+    /**
+     * Animated image formats
+     */
+    public enum Format {
+        /**
+         * Animated GIF, with a color table shared by all the frames
+         */
+        GIF("gif", "image/gif"),
+
+        /**
+         * Animated PNG, with full color and alpha channel
+         */
+        APNG("png", "image/apng");
+
+        private final String extension;
+        private final String mimeType;
+
+        Format(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+
+        public String getExtension() {
+            return this.extension;
+        }
+
+        public String getMimeType() {
+            return this.mimeType;
+        }
+
+        private FrameWriter createWriter(
+                int width,
+                int height,
+                boolean hasAlphaChannel,
+                EncodingOptions encodingOptions
+        ) {
+            if (this == APNG) {
+                return new ApngFrameWriter(width, height, hasAlphaChannel, encodingOptions);
+            }
+            return new GifFrameWriter(width, height, hasAlphaChannel);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.steromano87.pig4j.animation;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Base class of the encoders that store the frames of an animation as differences from the previous frame
+ * <p>
+ * The writer keeps a copy of the last written frame: each new frame is compared with it inside the area that may
+ * have changed, and only the bounds of the pixels that actually changed are passed to the encoder. Frames equal
+ * to the previous one are merged into it, by extending its delay. The first frame always covers the whole canvas.
+ * <p>
+ * Frames are passed as canvas-sized arrays, in the layout of the {@link java.awt.image.BufferedImage#TYPE_INT_ARGB}
+ * or {@link java.awt.image.BufferedImage#TYPE_INT_RGB} images.
+ */
+abstract class FrameWriter {
+    private static final int OPAQUE = 0xFF000000;
+
+    protected final int width;
+    protected final int height;
+    protected final boolean hasAlphaChannel;
+
+    private final int[] previousFrame;
+    private boolean isEmpty = true;
+
+    protected FrameWriter(int width, int height, boolean hasAlphaChannel) {
+        this.width = width;
+        this.height = height;
+        this.hasAlphaChannel = hasAlphaChannel;
+        this.previousFrame = new int[width * height];
+    }
+
+    /**
+     * Adds a frame to the animation
+     *
+     * @param frame  the pixels of the whole canvas
+     * @param region the area that may differ from the previous frame, expressed in canvas coordinates
+     * @param delay  how long the frame is displayed, expressed in milliseconds
+     * @throws IOException if the frame cannot be encoded
+     */
+    final void addFrame(int[] frame, Rectangle region, int delay) throws IOException {
+        Rectangle changedBounds = this.isEmpty
+                ? new Rectangle(0, 0, this.width, this.height)
+                : this.findChangedBounds(frame, region);
+        if (changedBounds.isEmpty()) {
+            this.extendLastFrame(delay);
+            return;
+        }
+
+        this.writeFrame(frame, this.previousFrame, changedBounds, delay);
+        for (int y = changedBounds.y; y < changedBounds.y + changedBounds.height; y++) {
+            int index = y * this.width + changedBounds.x;
+            System.arraycopy(frame, index, this.previousFrame, index, changedBounds.width);
+        }
+        this.isEmpty = false;
+    }
+
+    /**
+     * Encodes a frame that differs from the previous one
+     *
+     * @param frame         the pixels of the whole canvas
+     * @param previousFrame the pixels of the previous frame, or zeros for the first frame
+     * @param bounds        the bounds of the changed pixels, expressed in canvas coordinates
+     * @param delay         how long the frame is displayed, expressed in milliseconds
+     * @throws IOException if the frame cannot be encoded
+     */
+    protected abstract void writeFrame(int[] frame, int[] previousFrame, Rectangle bounds, int delay)
+            throws IOException;
+
+    /**
+     * Displays the last written frame for a longer time
+     *
+     * @param delay the time to add, expressed in milliseconds
+     */
+    protected abstract void extendLastFrame(int delay);
+
+    /**
+     * Writes the whole animation to an output stream, that is not closed
+     *
+     * @param outputStream the destination stream
+     * @param loopCount    how many times the animation is played, or zero to play it forever
+     * @throws IOException if the animation cannot be written
+     */
+    abstract void finish(OutputStream outputStream, int loopCount) throws IOException;
+
+    /**
+     * Returns the color of a pixel as an ARGB value, forcing the alpha on canvases without alpha channel
+     *
+     * @param pixel the pixel value
+     * @return the ARGB value
+     */
+    protected int toArgb(int pixel) {
+        return this.hasAlphaChannel ? pixel : pixel | OPAQUE;
+    }
+
+    private Rectangle findChangedBounds(int[] frame, Rectangle region) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = region.y; y < region.y + region.height; y++) {
+            int rowOffset = y * this.width;
+            for (int x = region.x; x < region.x + region.width; x++) {
+                if (frame[rowOffset + x] != this.previousFrame[rowOffset + x]) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = y;
+                }
+            }
+        }
+
+        return maxY < 0 ? new Rectangle() : new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+}
@@ -0,0 +1,281 @@
+package com.github.steromano87.pig4j.animation;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes animated GIF images, storing each frame as the rectangle of the changed pixels
+ * <p>
+ * All the frames share a single global color table (see {@link Palette}). Frames are drawn over the previous ones
+ * and the pixels of a frame that did not change are written with the transparent index, which compresses better.
+ * Pixels that become transparent are cleared by restoring the area of the previous frame to the background,
+ * then drawing the whole union of the two rectangles again.
+ * <p>
+ * GIF images support only fully opaque or fully transparent pixels: pixels with an alpha below one half are
+ * transparent, all the others are opaque. Frame delays are rounded to hundredths of a second.
+ *
+ * @link https://www.w3.org/Graphics/GIF/spec-gif89a.txt
+ */
+final class GifFrameWriter extends FrameWriter {
+    private static final int MAX_SIZE = 0xFFFF;
+    private static final int HALF_ALPHA = 0x80;
+    private static final int MIN_CODE_SIZE = 8;
+    private static final int MAX_CODE_SIZE = 12;
+    private static final int MAX_SUB_BLOCK_SIZE = 255;
+    private static final int HASH_SIZE = 5003;
+
+    private static final int DISPOSE_NONE = 1;
+    private static final int DISPOSE_TO_BACKGROUND = 2;
+
+    private final Palette palette = new Palette();
+    private final List<GifFrame> frames = new ArrayList<>();
+
+    GifFrameWriter(int width, int height, boolean hasAlphaChannel) {
+        super(width, height, hasAlphaChannel);
+        if (width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("GIF images cannot be larger than " + MAX_SIZE + " pixels");
+        }
+    }
+
+    @Override
+    protected void writeFrame(int[] frame, int[] previousFrame, Rectangle bounds, int delay) {
+        boolean isFirstFrame = this.frames.isEmpty();
+        if (isFirstFrame) {
+            this.palette.addColors(this.getOpaqueColors(frame));
+        }
+
+        Rectangle frameBounds = bounds;
+        boolean clearsPixels = !isFirstFrame && this.clearsPixels(frame, previousFrame, bounds);
+        if (clearsPixels) {
+            GifFrame lastFrame = this.frames.get(this.frames.size() - 1);
+            lastFrame.disposal = DISPOSE_TO_BACKGROUND;
+            frameBounds = bounds.union(lastFrame.bounds);
+        }
+
+        // Unchanged pixels keep the previous frame, unless its area is going to be cleared
+        boolean keepsUnchangedPixels = !isFirstFrame && !clearsPixels;
+        byte[] indexes = new byte[frameBounds.width * frameBounds.height];
+        int offset = 0;
+        for (int y = frameBounds.y; y < frameBounds.y + frameBounds.height; y++) {
+            int index = y * this.width + frameBounds.x;
+            for (int x = 0; x < frameBounds.width; x++, index++) {
+                int argb = this.toArgb(frame[index]);
+                if ((keepsUnchangedPixels && frame[index] == previousFrame[index]) || isTransparent(argb)) {
+                    indexes[offset++] = Palette.TRANSPARENT_INDEX;
+                } else {
+                    indexes[offset++] = (byte) this.palette.indexOf(argb & 0x00FFFFFF);
+                }
+            }
+        }
+
+        this.frames.add(new GifFrame(frameBounds, compress(indexes), delay));
+    }
+
+    @Override
+    protected void extendLastFrame(int delay) {
+        this.frames.get(this.frames.size() - 1).delay += delay;
+    }
+
+    @Override
+    void finish(OutputStream outputStream, int loopCount) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write("GIF89a".getBytes(StandardCharsets.US_ASCII));
+        writeShort(header, this.width);
+        writeShort(header, this.height);
+        // Global color table of 256 colors with 8 bits per channel
+        header.write(0xF7);
+        header.write(Palette.TRANSPARENT_INDEX);
+        header.write(0);
+        for (int rgb : this.palette.getColors()) {
+            header.write(rgb >> 16);
+            header.write(rgb >> 8);
+            header.write(rgb);
+        }
+
+        if (this.frames.size() > 1) {
+            header.write(new byte[]{0x21, (byte) 0xFF, 0x0B});
+            header.write("NETSCAPE2.0".getBytes(StandardCharsets.US_ASCII));
+            header.write(new byte[]{0x03, 0x01});
+            writeShort(header, Math.min(loopCount, MAX_SIZE));
+            header.write(0);
+        }
+        header.writeTo(outputStream);
+
+        for (GifFrame frame : this.frames) {
+            ByteArrayOutputStream frameHeader = new ByteArrayOutputStream();
+            frameHeader.write(new byte[]{0x21, (byte) 0xF9, 0x04});
+            frameHeader.write(frame.disposal << 2 | 0x01);
+            writeShort(frameHeader, Math.min((frame.delay + 5) / 10, MAX_SIZE));
+            frameHeader.write(Palette.TRANSPARENT_INDEX);
+            frameHeader.write(0);
+
+            frameHeader.write(0x2C);
+            writeShort(frameHeader, frame.bounds.x);
+            writeShort(frameHeader, frame.bounds.y);
+            writeShort(frameHeader, frame.bounds.width);
+            writeShort(frameHeader, frame.bounds.height);
+            frameHeader.write(0);
+            frameHeader.write(MIN_CODE_SIZE);
+            frameHeader.writeTo(outputStream);
+            outputStream.write(frame.data);
+        }
+
+        outputStream.write(0x3B);
+        outputStream.flush();
+    }
+
+    private int[] getOpaqueColors(int[] frame) {
+        int[] rgbColors = new int[frame.length];
+        int colorCount = 0;
+        for (int pixel : frame) {
+            int argb = this.toArgb(pixel);
+            if (!isTransparent(argb)) {
+                rgbColors[colorCount++] = argb & 0x00FFFFFF;
+            }
+        }
+        return Arrays.copyOf(rgbColors, colorCount);
+    }
+
+    private boolean clearsPixels(int[] frame, int[] previousFrame, Rectangle bounds) {
+        if (!this.hasAlphaChannel) {
+            return false;
+        }
+
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            int index = y * this.width + bounds.x;
+            for (int x = 0; x < bounds.width; x++, index++) {
+                if (isTransparent(frame[index]) && !isTransparent(previousFrame[index])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransparent(int argb) {
+        return (argb >>> 24) < HALF_ALPHA;
+    }
+
+    /**
+     * Compresses palette indexes with the variable-length LZW used by GIF images, splitting the codes in sub-blocks
+     */
+    private static byte[] compress(byte[] indexes) {
+        int clearCode = 1 << MIN_CODE_SIZE;
+        int endCode = clearCode + 1;
+        CodeWriter codeWriter = new CodeWriter();
+        // Each string is identified by the code of its prefix and by its last index, in an open addressing table
+        int[] hashKeys = new int[HASH_SIZE];
+        int[] hashCodes = new int[HASH_SIZE];
+        Arrays.fill(hashKeys, -1);
+        int nextCode = endCode + 1;
+        int codeSize = MIN_CODE_SIZE + 1;
+
+        codeWriter.write(clearCode, codeSize);
+        int prefix = indexes[0] & 0xFF;
+        for (int i = 1; i < indexes.length; i++) {
+            int index = indexes[i] & 0xFF;
+            int key = prefix << 8 | index;
+            int slot = (index << 4 ^ prefix) % HASH_SIZE;
+            while (hashKeys[slot] >= 0 && hashKeys[slot] != key) {
+                slot = slot == HASH_SIZE - 1 ? 0 : slot + 1;
+            }
+            if (hashKeys[slot] == key) {
+                prefix = hashCodes[slot];
+                continue;
+            }
+
+            codeWriter.write(prefix, codeSize);
+            if (nextCode < 1 << MAX_CODE_SIZE) {
+                hashKeys[slot] = key;
+                hashCodes[slot] = nextCode++;
+                if (nextCode > 1 << codeSize && codeSize < MAX_CODE_SIZE) {
+                    codeSize++;
+                }
+            } else {
+                codeWriter.write(clearCode, codeSize);
+                Arrays.fill(hashKeys, -1);
+                nextCode = endCode + 1;
+                codeSize = MIN_CODE_SIZE + 1;
+            }
+            prefix = index;
+        }
+
+        codeWriter.write(prefix, codeSize);
+        codeWriter.write(endCode, codeSize);
+        return codeWriter.toByteArray();
+    }
+
+    private static void writeShort(OutputStream outputStream, int value) throws IOException {
+        outputStream.write(value);
+        outputStream.write(value >> 8);
+    }
+
+    /**
+     * Packs codes least significant bit first, in sub-blocks of at most 255 bytes
+     */
+    private static final class CodeWriter {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final byte[] subBlock = new byte[MAX_SUB_BLOCK_SIZE];
+        private int subBlockLength;
+        private int bitBuffer;
+        private int bitCount;
+
+        private void write(int code, int codeSize) {
+            this.bitBuffer |= code << this.bitCount;
+            this.bitCount += codeSize;
+            while (this.bitCount >= 8) {
+                this.writeByte(this.bitBuffer);
+                this.bitBuffer >>>= 8;
+                this.bitCount -= 8;
+            }
+        }
+
+        private void writeByte(int value) {
+            this.subBlock[this.subBlockLength++] = (byte) value;
+            if (this.subBlockLength == MAX_SUB_BLOCK_SIZE) {
+                this.flushSubBlock();
+            }
+        }
+
+        private void flushSubBlock() {
+            if (this.subBlockLength > 0) {
+                this.output.write(this.subBlockLength);
+                this.output.write(this.subBlock, 0, this.subBlockLength);
+                this.subBlockLength = 0;
+            }
+        }
+
+        private byte[] toByteArray() {
+            if (this.bitCount > 0) {
+                this.writeByte(this.bitBuffer);
+                this.bitBuffer = 0;
+                this.bitCount = 0;
+            }
+            this.flushSubBlock();
+            this.output.write(0);
+            return this.output.toByteArray();
+        }
+    }
+
+    /**
+     * Compressed frame, whose disposal and delay can still change until the animation is written
+     */
+    private static final class GifFrame {
+        private final Rectangle bounds;
+        private final byte[] data;
+        private int delay;
+        private int disposal = DISPOSE_NONE;
+
+        private GifFrame(Rectangle bounds, byte[] data, int delay) {
+            this.bounds = bounds;
+            this.data = data;
+            this.delay = delay;
+        }
+    }
+}
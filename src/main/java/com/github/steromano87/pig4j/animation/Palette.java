@@ -0,0 +1,221 @@
+package com.github.steromano87.pig4j.animation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Color table shared by all the frames of an animated GIF
+ * <p>
+ * The first index is reserved to transparent pixels. The palette is filled with the colors of the first frame,
+ * reduced with the median cut algorithm when they do not fit, and then extended with the new colors of the
+ * following frames while there is room: once the palette is full, new colors are mapped to the nearest color.
+ * Indexes never change once assigned, so frames encoded before the palette is complete stay valid.
+ * <p>
+ * To keep the reduction fast on photographic frames, colors are grouped in cells of 5 bits per channel
+ * before the median cut, and the nearest color is searched once per cell.
+ *
+ * @link https://en.wikipedia.org/wiki/Median_cut
+ */
+final class Palette {
+    static final int SIZE = 256;
+    static final int TRANSPARENT_INDEX = 0;
+
+    private static final int CELL_COUNT = 1 << 15;
+
+    private final int[] colors = new int[SIZE];
+    private final Map<Integer, Integer> indexes = new HashMap<>();
+    private int size = TRANSPARENT_INDEX + 1;
+
+    private int[] nearestIndexes;
+
+    /**
+     * Adds the colors of the first frame, reducing them if they do not fit in the palette
+     *
+     * @param rgbColors the RGB colors of the opaque pixels of the frame, in any order
+     */
+    void addColors(int[] rgbColors) {
+        int[] sortedColors = rgbColors.clone();
+        Arrays.sort(sortedColors);
+        int distinctColors = 0;
+        for (int i = 0; i < sortedColors.length; i++) {
+            if (i == 0 || sortedColors[i] != sortedColors[i - 1]) {
+                sortedColors[distinctColors++] = sortedColors[i];
+            }
+        }
+
+        if (distinctColors <= SIZE - this.size) {
+            for (int i = 0; i < distinctColors; i++) {
+                this.indexOf(sortedColors[i]);
+            }
+            return;
+        }
+
+        // Each cell is represented by the average of its colors, weighted by the number of pixels
+        long[][] cellSums = new long[CELL_COUNT][];
+        for (int rgb : rgbColors) {
+            int cell = toCell(rgb);
+            if (Objects.isNull(cellSums[cell])) {
+                cellSums[cell] = new long[4];
+            }
+            cellSums[cell][0] += (rgb >> 16) & 0xFF;
+            cellSums[cell][1] += (rgb >> 8) & 0xFF;
+            cellSums[cell][2] += rgb & 0xFF;
+            cellSums[cell][3]++;
+        }
+
+        List<int[]> colorEntries = new ArrayList<>();
+        for (long[] sums : cellSums) {
+            if (!Objects.isNull(sums)) {
+                long count = sums[3];
+                int rgb = (int) ((sums[0] + count / 2) / count) << 16 |
+                        (int) ((sums[1] + count / 2) / count) << 8 |
+                        (int) ((sums[2] + count / 2) / count);
+                colorEntries.add(new int[]{rgb, (int) count});
+            }
+        }
+
+        for (List<int[]> box : medianCut(colorEntries, SIZE - this.size)) {
+            this.indexOf(averageColor(box));
+        }
+    }
+
+    /**
+     * Returns the index of an RGB color, adding the color to the palette if there is room
+     *
+     * @param rgb the RGB color
+     * @return the palette index of the color, or of the nearest color
+     */
+    int indexOf(int rgb) {
+        Integer index = this.indexes.get(rgb);
+        if (!Objects.isNull(index)) {
+            return index;
+        }
+
+        if (this.size < SIZE) {
+            this.colors[this.size] = rgb;
+            this.indexes.put(rgb, this.size);
+            return this.size++;
+        }
+
+        if (Objects.isNull(this.nearestIndexes)) {
+            this.nearestIndexes = new int[CELL_COUNT];
+            Arrays.fill(this.nearestIndexes, -1);
+        }
+        int cell = toCell(rgb);
+        if (this.nearestIndexes[cell] < 0) {
+            this.nearestIndexes[cell] = this.findNearest(rgb);
+        }
+        return this.nearestIndexes[cell];
+    }
+
+    /**
+     * Returns the colors of the palette, padded with black up to the palette size
+     *
+     * @return the RGB colors
+     */
+    int[] getColors() {
+        return this.colors.clone();
+    }
+
+    private int findNearest(int rgb) {
+        int nearestIndex = TRANSPARENT_INDEX + 1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = TRANSPARENT_INDEX + 1; i < this.size; i++) {
+            int distance = distance(rgb, this.colors[i]);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestIndex = i;
+            }
+        }
+        return nearestIndex;
+    }
+
+    private static List<List<int[]>> medianCut(List<int[]> colorEntries, int maxBoxes) {
+        List<List<int[]>> boxes = new ArrayList<>();
+        List<int[]> boxRanges = new ArrayList<>();
+        boxes.add(colorEntries);
+        boxRanges.add(channelRanges(colorEntries));
+        while (boxes.size() < maxBoxes) {
+            // Split the box with the widest channel range at the pixel-weighted median
+            int widestBox = -1;
+            int widestChannel = 0;
+            int widestRange = 0;
+            for (int i = 0; i < boxes.size(); i++) {
+                for (int channel = 0; channel < 3; channel++) {
+                    if (boxRanges.get(i)[channel] > widestRange) {
+                        widestRange = boxRanges.get(i)[channel];
+                        widestBox = i;
+                        widestChannel = channel;
+                    }
+                }
+            }
+            if (widestBox < 0) {
+                break;
+            }
+
+            int shift = widestChannel * 8;
+            List<int[]> box = boxes.get(widestBox);
+            box.sort(Comparator.comparingInt(entry -> (entry[0] >> shift) & 0xFF));
+            long halfCount = box.stream().mapToLong(entry -> entry[1]).sum() / 2;
+            int splitIndex = 1;
+            long count = box.get(0)[1];
+            while (splitIndex < box.size() - 1 && count < halfCount) {
+                count += box.get(splitIndex++)[1];
+            }
+
+            List<int[]> lowerBox = new ArrayList<>(box.subList(0, splitIndex));
+            List<int[]> upperBox = new ArrayList<>(box.subList(splitIndex, box.size()));
+            boxes.set(widestBox, lowerBox);
+            boxRanges.set(widestBox, channelRanges(lowerBox));
+            boxes.add(upperBox);
+            boxRanges.add(channelRanges(upperBox));
+        }
+        return boxes;
+    }
+
+    private static int[] channelRanges(List<int[]> box) {
+        int[] ranges = new int[3];
+        for (int channel = 0; channel < 3; channel++) {
+            int min = 0xFF;
+            int max = 0;
+            for (int[] entry : box) {
+                int value = (entry[0] >> (channel * 8)) & 0xFF;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            ranges[channel] = max - min;
+        }
+        return ranges;
+    }
+
+    private static int averageColor(List<int[]> box) {
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        long count = 0;
+        for (int[] entry : box) {
+            red += (long) ((entry[0] >> 16) & 0xFF) * entry[1];
+            green += (long) ((entry[0] >> 8) & 0xFF) * entry[1];
+            blue += (long) (entry[0] & 0xFF) * entry[1];
+            count += entry[1];
+        }
+        return (int) ((red + count / 2) / count) << 16 | (int) ((green + count / 2) / count) << 8 |
+                (int) ((blue + count / 2) / count);
+    }
+
+    private static int toCell(int rgb) {
+        return (rgb >> 9) & 0x7C00 | (rgb >> 6) & 0x03E0 | (rgb >> 3) & 0x001F;
+    }
+
+    private static int distance(int firstRgb, int secondRgb) {
+        int red = ((firstRgb >> 16) & 0xFF) - ((secondRgb >> 16) & 0xFF);
+        int green = ((firstRgb >> 8) & 0xFF) - ((secondRgb >> 8) & 0xFF);
+        int blue = (firstRgb & 0xFF) - (secondRgb & 0xFF);
+        return red * red + green * green + blue * blue;
+    }
+}
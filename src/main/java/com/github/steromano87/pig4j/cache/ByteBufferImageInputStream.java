@@ -0,0 +1,68 @@
+package com.github.steromano87.pig4j.cache;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.nio.ByteBuffer;
+
+/**
+ * Image input stream that reads from a byte buffer, such as a memory-mapped file
+ * <p>
+ * Reads are plain copies from the buffer, without system calls when the buffer is mapped in memory.
+ * The stream reads a private view of the buffer, so the same buffer can be read by several streams at once.
+ */
+public final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a stream that reads the buffer from its position to its limit
+     *
+     * @param buffer the buffer to read
+     */
+    public ByteBufferImageInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() {
+        this.bitOffset = 0;
+        if (this.streamPos >= this.buffer.limit()) {
+            return -1;
+        }
+        return this.buffer.get((int) this.streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException("Invalid offset or length");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        this.bitOffset = 0;
+        if (this.streamPos >= this.buffer.limit()) {
+            return -1;
+        }
+
+        int count = (int) Math.min(len, this.buffer.limit() - this.streamPos);
+        this.buffer.position((int) this.streamPos);
+        this.buffer.get(b, off, count);
+        this.streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return this.buffer.limit();
+    }
+
+    @Override
+    public boolean isCached() {
+        return true;
+    }
+
+    @Override
+    public boolean isCachedMemory() {
+        return true;
+    }
+}
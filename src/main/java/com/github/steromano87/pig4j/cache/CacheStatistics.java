@@ -0,0 +1,66 @@
+package com.github.steromano87.pig4j.cache;
+
+/**
+ * Snapshot of the usage counters of a cache
+ */
+public class CacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long weight;
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, long entryCount, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.weight = weight;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public long getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Returns the total weight of the cached entries
+     *
+     * @return the total weight, expressed in the unit used by the cache weigher (usually bytes)
+     */
+    public long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Returns the ratio between hits and lookups
+     *
+     * @return the hit ratio, or 1.0 if the cache has never been used
+     */
+    public double getHitRatio() {
+        long requestCount = this.hitCount + this.missCount;
+        return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", entryCount=" + entryCount +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.steromano87.pig4j.cache;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Process-wide cache of rendered layer groups
+ * <p>
+ * Group rasters are keyed by a caller-defined key that should include the render keys of the grouped layers,
+ * the scaling options and the canvas size, so that a group whose children did not change is rendered only once,
+ * even when it is shared by several image generators. The cache is bounded by the size of the cached pixels
+ * and evicts the least recently used rasters first. By default it can use up to one thirty-second of the
+ * maximum heap size.
+ * <p>
+ * Group rasters are shared by all the layers that draw the same group, hence they must not be modified.
+ *
+ * @see com.github.steromano87.pig4j.layers.base.GroupingLayer
+ */
+public class GroupCache {
+    private static final GroupCache SHARED_INSTANCE = new GroupCache(Runtime.getRuntime().maxMemory() / 32);
+
+    private final WeightedLruCache<Object, BufferedImage> cache;
+
+    /**
+     * Creates a new group cache
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public GroupCache(long maximumWeight) {
+        this.cache = new WeightedLruCache<>(maximumWeight, ImageCache::getPixelBytes);
+    }
+
+    /**
+     * Returns the process-wide group cache
+     *
+     * @return the shared group cache
+     */
+    public static GroupCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the group raster for the given key, rendering it on a miss
+     *
+     * @param groupKey the key that identifies the grouped layers and how they are rendered
+     * @param renderer the function that renders the group
+     * @return the cached or rendered group raster
+     */
+    public BufferedImage getRaster(Object groupKey, WeightedLruCache.Loader<BufferedImage> renderer) {
+        try {
+            return this.cache.get(groupKey, renderer);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * Sets the maximum size of the cached pixels, evicting rasters if needed
+     * <p>
+     * Setting the maximum size to zero disables the cache.
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.cache.setMaximumWeight(maximumWeight);
+    }
+
+    public long getMaximumWeight() {
+        return this.cache.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached rasters
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.cache.getStatistics();
+    }
+}
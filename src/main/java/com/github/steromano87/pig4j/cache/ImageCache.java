@@ -0,0 +1,245 @@
+package com.github.steromano87.pig4j.cache;
+
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of decoded source images
+ * <p>
+ * Images are keyed by their {@link ImageSource} key and, for partial reads, by the subsampling factor
+ * and the source region. The cache is bounded by the size of the decoded pixels and evicts the least recently used
+ * images first. By default it can use up to one eighth of the maximum heap size.
+ * The size of the source images is kept in a separate cache, so that layers can be measured without decoding them.
+ * <p>
+ * Cached images are shared by all the layers that reference the same source, hence they must not be modified.
+ */
+public class ImageCache {
+    private static final ImageCache SHARED_INSTANCE = new ImageCache(Runtime.getRuntime().maxMemory() / 8);
+
+    private static final int MAXIMUM_SIZES = 4096;
+
+    private final WeightedLruCache<Object, BufferedImage> cache;
+    private final WeightedLruCache<Object, Dimension> sizes = new WeightedLruCache<>(MAXIMUM_SIZES, size -> 1);
+
+    /**
+     * Creates a new image cache
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public ImageCache(long maximumWeight) {
+        this.cache = new WeightedLruCache<>(maximumWeight, ImageCache::getPixelBytes);
+    }
+
+    /**
+     * Returns the process-wide image cache
+     *
+     * @return the shared image cache
+     */
+    public static ImageCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the decoded image stored in a file
+     *
+     * @param file the image file
+     * @return the decoded image, or null if no decoder supports the file
+     * @throws IOException if the file cannot be read
+     */
+    public BufferedImage getFromFile(File file) throws IOException {
+        return this.get(ImageSource.ofFile(file));
+    }
+
+    /**
+     * Returns the decoded image available at a URL
+     *
+     * @param url the image URL
+     * @return the decoded image, or null if no decoder supports the resource
+     * @throws IOException if the resource cannot be read
+     */
+    public BufferedImage getFromUrl(URL url) throws IOException {
+        return this.get(ImageSource.ofUrl(url));
+    }
+
+    /**
+     * Returns the decoded image encoded in a Base64 string
+     *
+     * @param imageBase64 the Base64 representation of the image
+     * @return the decoded image, or null if no decoder supports the payload
+     * @throws IOException if the payload cannot be read
+     */
+    public BufferedImage getFromBase64(String imageBase64) throws IOException {
+        return this.get(ImageSource.ofBase64(imageBase64));
+    }
+
+    /**
+     * Returns the full resolution decoded image of a source
+     *
+     * @param source the image source
+     * @return the decoded image, or null if no decoder supports the source
+     * @throws IOException if the source cannot be read
+     */
+    public BufferedImage get(ImageSource source) throws IOException {
+        return this.get(source, 1, null);
+    }
+
+    /**
+     * Returns a region of the image of a source, decoded keeping one pixel out of a number of pixels on each axis
+     * <p>
+     * Subsampling and region are applied by the image reader, so the skipped pixels are never stored in memory.
+     *
+     * @param source      the image source
+     * @param subsampling the distance between two decoded pixels, on both axes, starting from the first pixel
+     * @param region      the region to decode, expressed in source image coordinates, or null to decode the whole image
+     * @return the decoded image, or null if no decoder supports the source
+     * @throws IOException if the source cannot be read
+     */
+    public BufferedImage get(ImageSource source, int subsampling, Rectangle region) throws IOException {
+        if (subsampling < 1) {
+            throw new IllegalArgumentException("Subsampling should be a positive number");
+        }
+
+        Object sourceKey = source.getKey();
+        Object key = subsampling == 1 && Objects.isNull(region) ?
+                sourceKey : Arrays.asList(sourceKey, subsampling, region);
+        return this.cache.get(key, () -> decode(source, sourceKey, subsampling, region));
+    }
+
+    /**
+     * Decodes a region of the image of a source, without storing it in the cache
+     * <p>
+     * Used for regions that are read only once, such as the stripes of a streamed rendering, which would otherwise
+     * evict the images shared by the layers.
+     *
+     * @param source the image source
+     * @param region the region to decode, expressed in source image coordinates
+     * @return the decoded region, or null if no decoder supports the source
+     * @throws IOException if the source cannot be read
+     */
+    public static BufferedImage readRegion(ImageSource source, Rectangle region) throws IOException {
+        return decode(source, source.getKey(), 1, region);
+    }
+
+    /**
+     * Returns the size of the image of a source, reading only the image header if the size is not cached
+     *
+     * @param source the image source
+     * @return the image size, or null if no decoder supports the source
+     * @throws IOException if the source cannot be read
+     */
+    public Dimension getSize(ImageSource source) throws IOException {
+        Object sourceKey = source.getKey();
+        return this.sizes.get(sourceKey, () -> {
+            try (ImageInputStream inputStream = source.openStream(sourceKey)) {
+                ImageReader reader = getReader(inputStream);
+                if (Objects.isNull(reader)) {
+                    return null;
+                }
+
+                try {
+                    return new Dimension(reader.getWidth(0), reader.getHeight(0));
+                } finally {
+                    reader.dispose();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum size of the cached pixels, evicting images if needed
+     * <p>
+     * Setting the maximum size to zero disables the cache.
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.cache.setMaximumWeight(maximumWeight);
+    }
+
+    public long getMaximumWeight() {
+        return this.cache.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached images and sizes
+     */
+    public void clear() {
+        this.cache.clear();
+        this.sizes.clear();
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.cache.getStatistics();
+    }
+
+    /**
+     * Calculates the memory used by the pixels of an image
+     *
+     * @param image the image
+     * @return the size of the image pixels, expressed in bytes
+     */
+    public static long getPixelBytes(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        long elementBytes = DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+        return (long) dataBuffer.getSize() * dataBuffer.getNumBanks() * elementBytes;
+    }
+
+    private static BufferedImage decode(
+            ImageSource source,
+            Object sourceKey,
+            int subsampling,
+            Rectangle region
+    ) throws IOException {
+        try (ImageInputStream inputStream = source.openStream(sourceKey)) {
+            ImageReader reader = getReader(inputStream);
+            if (Objects.isNull(reader)) {
+                return null;
+            }
+
+            try {
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                Rectangle sourceRegion = Objects.isNull(region) ?
+                        new Rectangle(0, 0, reader.getWidth(0), reader.getHeight(0)) : region;
+                if (!Objects.isNull(region)) {
+                    readParam.setSourceRegion(region);
+                }
+                if (subsampling > 1) {
+                    readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+
+                long pixels = (long) ((sourceRegion.width + subsampling - 1) / subsampling) *
+                        ((sourceRegion.height + subsampling - 1) / subsampling);
+                try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.DECODE, pixels)) {
+                    return reader.read(0, readParam);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader getReader(ImageInputStream inputStream) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+        if (!readers.hasNext()) {
+            return null;
+        }
+
+        ImageReader reader = readers.next();
+        reader.setInput(inputStream, true, true);
+        return reader;
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.steromano87.pig4j.cache;
+
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encoded image that can be read more than once, from a file, a URL or a Base64 string
+ * <p>
+ * Sources are keyed by canonical path, modification time and size for files, by URL for remote resources
+ * and by the SHA-256 digest of the payload for Base64 strings, so that the same image is decoded only once
+ * by the {@link ImageCache}. File paths are resolved once, when the source is created, while modification time
+ * and size are read on every call to {@link #getKey()}, hence a modified file gets a new key.
+ * <p>
+ * Files are read through the shared {@link MappedFileCache}, so hot assets are read from memory-mapped buffers
+ * instead of issuing read system calls. Files larger than 2 GiB cannot be mapped and are read with a random access file.
+ */
+public abstract class ImageSource {
+    private ImageSource() {
+    }
+
+    /**
+     * Creates a source that reads an image from a file
+     *
+     * @param file the image file
+     * @return the file source
+     */
+    public static ImageSource ofFile(File file) {
+        return new FileSource(file);
+    }
+
+    /**
+     * Creates a source that reads an image from a URL
+     *
+     * @param url the image URL
+     * @return the URL source
+     */
+    public static ImageSource ofUrl(URL url) {
+        return new UrlSource(url);
+    }
+
+    /**
+     * Creates a source that reads an image from a Base64 string
+     *
+     * @param imageBase64 the Base64 representation of the image
+     * @return the Base64 source
+     */
+    public static ImageSource ofBase64(String imageBase64) {
+        return new Base64Source(imageBase64);
+    }
+
+    /**
+     * Returns the key that identifies the encoded image
+     *
+     * @return the source key
+     * @throws IOException if the source cannot be inspected
+     */
+    public abstract Object getKey() throws IOException;
+
+    /**
+     * Opens a new stream on the encoded image
+     *
+     * @return the image stream, to be closed by the caller
+     * @throws IOException if the source cannot be read
+     */
+    public ImageInputStream openStream() throws IOException {
+        return this.openStream(this.getKey());
+    }
+
+    /**
+     * Opens a new stream on the encoded image, identified by a key already returned by {@link #getKey()}
+     * <p>
+     * Used by the caches, that compute the key once for each load instead of inspecting the source again.
+     *
+     * @param key the source key
+     * @return the image stream, to be closed by the caller
+     * @throws IOException if the source cannot be read
+     */
+    abstract ImageInputStream openStream(Object key) throws IOException;
+
+    /**
+     * Returns a short description of the source kind, used in error messages
+     *
+     * @return the source description
+     */
+    public abstract String getDescription();
+
+    private static ImageInputStream openCachedStream(InputStream inputStream) {
+        // The cached stream does not close its source stream
+        return new MemoryCacheImageInputStream(inputStream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inputStream.close();
+                }
+            }
+        };
+    }
+
+    private static final class FileSource extends ImageSource {
+        private static final int LENGTH_INDEX = 3;
+
+        private final File file;
+
+        private FileSource(File file) {
+            this.file = resolve(file);
+        }
+
+        @Override
+        public Object getKey() {
+            return Arrays.asList("file", this.file.getPath(), this.file.lastModified(), this.file.length());
+        }
+
+        @Override
+        ImageInputStream openStream(Object key) throws IOException {
+            long length = (Long) ((List<?>) key).get(LENGTH_INDEX);
+            if (length > Integer.MAX_VALUE) {
+                return new FileImageInputStream(this.file);
+            }
+            return new ByteBufferImageInputStream(MappedFileCache.getShared().map(key, this.file));
+        }
+
+        @Override
+        public String getDescription() {
+            return "file";
+        }
+
+        private static File resolve(File file) {
+            try {
+                return file.getCanonicalFile();
+            } catch (IOException exc) {
+                // Paths that cannot be canonicalized are still read, keyed by their absolute path
+                return file.getAbsoluteFile();
+            }
+        }
+    }
+
+    private static final class UrlSource extends ImageSource {
+        private final URL url;
+
+        private UrlSource(URL url) {
+            this.url = url;
+        }
+
+        @Override
+        public Object getKey() {
+            return Arrays.asList("url", this.url.toExternalForm());
+        }
+
+        @Override
+        ImageInputStream openStream(Object key) throws IOException {
+            return openCachedStream(this.url.openStream());
+        }
+
+        @Override
+        public String getDescription() {
+            return "URL";
+        }
+    }
+
+    private static final class Base64Source extends ImageSource {
+        private final String imageBase64;
+        private final Object key;
+
+        private Base64Source(String imageBase64) {
+            this.imageBase64 = imageBase64;
+            this.key = Arrays.asList("base64", digest(imageBase64));
+        }
+
+        @Override
+        public Object getKey() {
+            return this.key;
+        }
+
+        @Override
+        ImageInputStream openStream(Object key) {
+            return openCachedStream(new ByteArrayInputStream(Base64.getDecoder().decode(this.imageBase64)));
+        }
+
+        @Override
+        public String getDescription() {
+            return "Base64 string";
+        }
+
+        private static String digest(String imageBase64) {
+            try {
+                MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                return Base64.getEncoder().encodeToString(messageDigest.digest(imageBase64.getBytes(StandardCharsets.US_ASCII)));
+            } catch (NoSuchAlgorithmException exc) {
+                throw new IllegalStateException("SHA-256 digest is not available", exc);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.steromano87.pig4j.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Process-wide cache of memory-mapped source files
+ * <p>
+ * Files are keyed by canonical path, modification time and size, so a modified file is mapped again.
+ * Once mapped, a file is read with memory copies and page faults served by the page cache, without read system calls.
+ * The cache is bounded by the size of the mapped files and evicts the least recently used mappings first.
+ * By default it can map up to 256 MiB. Mappings live outside the heap and are released by the garbage collector
+ * once they are evicted and no stream reads them anymore.
+ * <p>
+ * Files that are mapped cannot be deleted on some operating systems until their mapping is released.
+ */
+public class MappedFileCache {
+    private static final MappedFileCache SHARED_INSTANCE = new MappedFileCache(256L * 1024 * 1024);
+
+    private final WeightedLruCache<Object, ByteBuffer> cache;
+
+    /**
+     * Creates a new mapped file cache
+     *
+     * @param maximumWeight the maximum size of the mapped files, expressed in bytes
+     */
+    public MappedFileCache(long maximumWeight) {
+        this.cache = new WeightedLruCache<>(maximumWeight, ByteBuffer::capacity);
+    }
+
+    /**
+     * Returns the process-wide mapped file cache
+     *
+     * @return the shared mapped file cache
+     */
+    public static MappedFileCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the read-only content of a file, mapped in memory
+     *
+     * @param file the file to map, not larger than 2 GiB
+     * @return the mapped content, to be read through views such as {@link ByteBuffer#slice()}
+     * @throws IOException if the file cannot be mapped
+     */
+    public ByteBuffer map(File file) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+        return this.map(
+                Arrays.asList("file", canonicalFile.getPath(), canonicalFile.lastModified(), canonicalFile.length()),
+                canonicalFile
+        );
+    }
+
+    ByteBuffer map(Object key, File file) throws IOException {
+        return this.cache.get(key, () -> {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum size of the mapped files, evicting mappings if needed
+     * <p>
+     * Setting the maximum size to zero disables the cache: files are still mapped, but on every read.
+     *
+     * @param maximumWeight the maximum size of the mapped files, expressed in bytes
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.cache.setMaximumWeight(maximumWeight);
+    }
+
+    public long getMaximumWeight() {
+        return this.cache.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached mappings
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.cache.getStatistics();
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.steromano87.pig4j.cache;
+
+import com.github.steromano87.pig4j.options.ScalingOptions;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of resampled images
+ * <p>
+ * Scaled images are keyed by the identity of the source image, the target size and the resampling algorithm,
+ * so that scaling the same source to the same size costs a single lookup. The cache is bounded by the size
+ * of the scaled pixels plus the size of the source pixels, which are kept alive by the keys, and evicts the least
+ * recently used images first. By default it can use up to one eighth of the maximum heap size.
+ * <p>
+ * Source images are compared by identity, hence they must not be modified after being scaled through the cache.
+ * Scaled images are shared, hence they must not be modified as well.
+ */
+public class ScaledImageCache {
+    private static final ScaledImageCache SHARED_INSTANCE = new ScaledImageCache(Runtime.getRuntime().maxMemory() / 8);
+
+    private final WeightedLruCache<ScaledImageKey, ScaledImage> cache;
+
+    /**
+     * Creates a new scaled image cache
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public ScaledImageCache(long maximumWeight) {
+        this.cache = new WeightedLruCache<>(maximumWeight, scaledImage -> scaledImage.weight);
+    }
+
+    /**
+     * Returns the process-wide scaled image cache
+     *
+     * @return the shared scaled image cache
+     */
+    public static ScaledImageCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the source image scaled with the given options
+     * <p>
+     * When the options do not change the image size, the source image itself is returned.
+     *
+     * @param sourceImage    the image to scale
+     * @param scalingOptions the scaling options
+     * @return the scaled image
+     */
+    public BufferedImage getScaled(BufferedImage sourceImage, ScalingOptions scalingOptions) {
+        Dimension scaledSize = scalingOptions.getScaledSize(sourceImage.getWidth(), sourceImage.getHeight());
+        if (scaledSize.width == sourceImage.getWidth() && scaledSize.height == sourceImage.getHeight()) {
+            return sourceImage;
+        }
+
+        ScaledImageKey key = new ScaledImageKey(sourceImage, scaledSize, scalingOptions.getAlgorithm());
+        try {
+            return this.cache.get(key, () -> new ScaledImage(sourceImage, scalingOptions.apply(sourceImage))).image;
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * Sets the maximum size of the cached pixels, evicting images if needed
+     * <p>
+     * Setting the maximum size to zero disables the cache.
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.cache.setMaximumWeight(maximumWeight);
+    }
+
+    public long getMaximumWeight() {
+        return this.cache.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached images
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.cache.getStatistics();
+    }
+
+    /**
+     * Scaled image, weighted with the source image that its key holds
+     */
+    private static final class ScaledImage {
+        private final BufferedImage image;
+        private final long weight;
+
+        private ScaledImage(BufferedImage sourceImage, BufferedImage image) {
+            this.image = image;
+            this.weight = ImageCache.getPixelBytes(sourceImage) + ImageCache.getPixelBytes(image);
+        }
+    }
+
+    private static final class ScaledImageKey {
+        private final BufferedImage sourceImage;
+        private final Dimension scaledSize;
+        private final ScalingOptions.Algorithm algorithm;
+
+        private ScaledImageKey(BufferedImage sourceImage, Dimension scaledSize, ScalingOptions.Algorithm algorithm) {
+            this.sourceImage = sourceImage;
+            this.scaledSize = scaledSize;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ScaledImageKey that = (ScaledImageKey) o;
+            return sourceImage == that.sourceImage &&
+                    scaledSize.equals(that.scaledSize) &&
+                    algorithm == that.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(sourceImage), scaledSize, algorithm);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.steromano87.pig4j.cache;
+
+import com.github.steromano87.pig4j.exceptions.TemplateException;
+import com.github.steromano87.pig4j.templates.Template;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Process-wide cache of compiled templates
+ * <p>
+ * Templates are keyed by an identifier and a version chosen by the caller, so that a template is read and compiled
+ * only once for each version. Template files are keyed by canonical path, modification time and size, hence
+ * a modified file is compiled again on the next request. The cache is bounded by the number of templates
+ * and evicts the least recently used templates first.
+ */
+public class TemplateCache {
+    private static final TemplateCache SHARED_INSTANCE = new TemplateCache(256);
+
+    private final WeightedLruCache<Object, Template> cache;
+
+    /**
+     * Creates a new template cache
+     *
+     * @param maximumTemplates the maximum number of cached templates
+     */
+    public TemplateCache(long maximumTemplates) {
+        this.cache = new WeightedLruCache<>(maximumTemplates, template -> 1);
+    }
+
+    /**
+     * Returns the process-wide template cache
+     *
+     * @return the shared template cache
+     */
+    public static TemplateCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the compiled template stored in a file, whose format is given by the file extension
+     *
+     * @param file the template file
+     * @return the cached or compiled template
+     * @throws TemplateException if the template cannot be read or compiled
+     */
+    public Template get(File file) throws TemplateException {
+        Template.Format format = Template.Format.fromFile(file);
+        try {
+            File canonicalFile = file.getCanonicalFile();
+            return this.get(
+                    canonicalFile.getPath(),
+                    Arrays.asList(canonicalFile.lastModified(), canonicalFile.length()),
+                    format,
+                    () -> new FileInputStream(canonicalFile)
+            );
+        } catch (IOException exc) {
+            throw new TemplateException("Cannot read template file " + file, exc);
+        }
+    }
+
+    /**
+     * Returns the compiled template with the given identifier and version, reading it on a miss
+     *
+     * @param templateId the identifier of the template
+     * @param version    the version of the template, e.g. a revision number or a content hash
+     * @param format     the template format
+     * @param source     the function that opens the template document, closed after reading
+     * @return the cached or compiled template
+     * @throws TemplateException if the template cannot be read or compiled
+     */
+    public Template get(Object templateId, Object version, Template.Format format, WeightedLruCache.Loader<InputStream> source)
+            throws TemplateException {
+        try {
+            return this.cache.get(Arrays.asList(templateId, version, format), () -> {
+                try (InputStream inputStream = source.load()) {
+                    return Template.parse(inputStream, format);
+                }
+            });
+        } catch (IOException exc) {
+            throw new TemplateException("Cannot read template " + templateId, exc);
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached templates, evicting templates if needed
+     * <p>
+     * Setting the maximum number to zero disables the cache.
+     *
+     * @param maximumTemplates the maximum number of cached templates
+     */
+    public void setMaximumWeight(long maximumTemplates) {
+        this.cache.setMaximumWeight(maximumTemplates);
+    }
+
+    public long getMaximumWeight() {
+        return this.cache.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached templates
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.cache.getStatistics();
+    }
+}
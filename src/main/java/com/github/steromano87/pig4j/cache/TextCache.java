@@ -0,0 +1,149 @@
+package com.github.steromano87.pig4j.cache;
+
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.rendering.TextBlock;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Process-wide cache of fonts, text layouts and rendered text images
+ * <p>
+ * Fonts are keyed by name, style and size, text layouts by text, font and bounding box, while rendered text images
+ * are keyed by a caller-defined key that should include at least the layout and the color.
+ * Fonts are bounded by number, layouts by the number of laid out characters and rendered images by the size
+ * of their pixels, evicting the least recently used entries first. By default rendered images can use up to
+ * one thirty-second of the maximum heap size.
+ * <p>
+ * Rendered text images are shared by all the layers that draw the same text, hence they must not be modified.
+ */
+public class TextCache {
+    private static final TextCache SHARED_INSTANCE = new TextCache(Runtime.getRuntime().maxMemory() / 32);
+
+    private static final int MAXIMUM_FONTS = 256;
+    private static final int MAXIMUM_LAYOUT_CHARACTERS = 1 << 20;
+
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(new AffineTransform(), true, true);
+
+    private final WeightedLruCache<Object, Font> fonts = new WeightedLruCache<>(MAXIMUM_FONTS, font -> 1);
+    private final WeightedLruCache<Object, TextBlock> layouts = new WeightedLruCache<>(
+            MAXIMUM_LAYOUT_CHARACTERS,
+            layout -> layout.getCharacterCount() + 1
+    );
+    private final WeightedLruCache<Object, BufferedImage> images;
+
+    /**
+     * Creates a new text cache
+     *
+     * @param maximumWeight the maximum size of the cached text images pixels, expressed in bytes
+     */
+    public TextCache(long maximumWeight) {
+        this.images = new WeightedLruCache<>(maximumWeight, ImageCache::getPixelBytes);
+    }
+
+    /**
+     * Returns the process-wide text cache
+     *
+     * @return the shared text cache
+     */
+    public static TextCache getShared() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the font context used to measure and lay out the text
+     *
+     * @return the anti-aliased font context with fractional metrics and identity transform
+     */
+    public static FontRenderContext getFontRenderContext() {
+        return FONT_RENDER_CONTEXT;
+    }
+
+    /**
+     * Returns the font with the given name, style and size
+     *
+     * @param name  the font name
+     * @param style the font style, as defined by {@link Font}
+     * @param size  the font size, expressed in points
+     * @return the cached font
+     */
+    public Font getFont(String name, int style, int size) {
+        return this.load(this.fonts, Arrays.asList(name, style, size), () -> new Font(name, style, size));
+    }
+
+    /**
+     * Returns the layout of a text in a bounded box
+     *
+     * @param text      the text, where line feeds start new paragraphs
+     * @param font      the text font
+     * @param maxWidth  the maximum width of the lines, expressed in pixels, or null to disable wrapping
+     * @param maxHeight the maximum height of the block, expressed in pixels, or null to keep all the lines
+     * @param alignment the horizontal alignment of the lines
+     * @return the cached text layout
+     * @see TextBlock#layOut(String, Font, Integer, Integer, TextLayer.Alignment)
+     */
+    public TextBlock getLayout(String text, Font font, Integer maxWidth, Integer maxHeight, TextLayer.Alignment alignment) {
+        return this.load(
+                this.layouts,
+                Arrays.asList(text, font, maxWidth, maxHeight, alignment),
+                () -> TextBlock.layOut(text, font, maxWidth, maxHeight, alignment)
+        );
+    }
+
+    /**
+     * Returns the rendered text image for the given key, rendering it on a miss
+     *
+     * @param imageKey the key that identifies the text layout, its color and any other rendering property
+     * @param renderer the function that renders the text
+     * @return the cached or rendered text image
+     */
+    public BufferedImage getImage(Object imageKey, WeightedLruCache.Loader<BufferedImage> renderer) {
+        return this.load(this.images, imageKey, renderer);
+    }
+
+    /**
+     * Sets the maximum size of the cached text images pixels, evicting images if needed
+     * <p>
+     * Setting the maximum size to zero disables the text image cache.
+     *
+     * @param maximumWeight the maximum size of the cached pixels, expressed in bytes
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.images.setMaximumWeight(maximumWeight);
+    }
+
+    public long getMaximumWeight() {
+        return this.images.getMaximumWeight();
+    }
+
+    /**
+     * Removes all the cached fonts, layouts and images
+     */
+    public void clear() {
+        this.fonts.clear();
+        this.layouts.clear();
+        this.images.clear();
+    }
+
+    /**
+     * Returns the statistics of the rendered text images
+     *
+     * @return the text images statistics
+     */
+    public CacheStatistics getStatistics() {
+        return this.images.getStatistics();
+    }
+
+    private <V> V load(WeightedLruCache<Object, V> cache, Object key, WeightedLruCache.Loader<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.steromano87.pig4j.cache;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache bounded by the total weight of its entries
+ * <p>
+ * When the total weight exceeds the maximum weight, the least recently used entries are evicted.
+ * Values are loaded outside the cache lock, so concurrent misses on the same key may load the value more than once:
+ * the first loaded value is kept.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public class WeightedLruCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongFunction<V> weigher;
+
+    private long maximumWeight;
+    private long weight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a new cache
+     *
+     * @param maximumWeight the maximum total weight of the entries
+     * @param weigher       the function that calculates the weight of a value
+     */
+    public WeightedLruCache(long maximumWeight, ToLongFunction<V> weigher) {
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value for the given key, loading it on a miss
+     * <p>
+     * Null values are returned but not cached, as well as values heavier than the maximum weight.
+     *
+     * @param key    the key of the value
+     * @param loader the loader invoked on a miss
+     * @return the cached or loaded value
+     * @throws IOException if the loader fails
+     */
+    public V get(K key, Loader<V> loader) throws IOException {
+        synchronized (this) {
+            V cachedValue = this.entries.get(key);
+            if (!Objects.isNull(cachedValue)) {
+                this.hitCount++;
+                return cachedValue;
+            }
+            this.missCount++;
+        }
+
+        V loadedValue = loader.load();
+        if (Objects.isNull(loadedValue)) {
+            return null;
+        }
+
+        synchronized (this) {
+            V concurrentValue = this.entries.get(key);
+            if (!Objects.isNull(concurrentValue)) {
+                return concurrentValue;
+            }
+
+            long valueWeight = this.weigher.applyAsLong(loadedValue);
+            if (valueWeight <= this.maximumWeight) {
+                this.entries.put(key, loadedValue);
+                this.weight += valueWeight;
+                this.evictToMaximumWeight();
+            }
+        }
+
+        return loadedValue;
+    }
+
+    /**
+     * Returns the cached value for the given key, without loading it
+     *
+     * @param key the key of the value
+     * @return the cached value, or null if the value is not cached
+     */
+    public synchronized V getIfPresent(K key) {
+        V cachedValue = this.entries.get(key);
+        if (Objects.isNull(cachedValue)) {
+            this.missCount++;
+        } else {
+            this.hitCount++;
+        }
+        return cachedValue;
+    }
+
+    /**
+     * Sets the maximum total weight of the entries, evicting entries if needed
+     *
+     * @param maximumWeight the maximum total weight
+     */
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        this.evictToMaximumWeight();
+    }
+
+    public synchronized long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * Removes all the entries, without resetting the statistics
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(
+                this.hitCount,
+                this.missCount,
+                this.evictionCount,
+                this.entries.size(),
+                this.weight
+        );
+    }
+
+    private void evictToMaximumWeight() {
+        Iterator<Map.Entry<K, V>> iterator = this.entries.entrySet().iterator();
+        while (this.weight > this.maximumWeight && iterator.hasNext()) {
+            Map.Entry<K, V> eldestEntry = iterator.next();
+            this.weight -= this.weigher.applyAsLong(eldestEntry.getValue());
+            iterator.remove();
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * Loader of the values missing from the cache
+     *
+     * @param <V> the type of the loaded values
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+}
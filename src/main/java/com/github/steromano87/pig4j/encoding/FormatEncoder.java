@@ -0,0 +1,36 @@
+package com.github.steromano87.pig4j.encoding;
+
+import com.github.steromano87.pig4j.options.EncodingOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Strategy used to encode images in a given format
+ * <p>
+ * Encoders are registered for an image format through
+ * {@link ImageEncoder#setFormatEncoder(com.github.steromano87.pig4j.ImageFormat, FormatEncoder)}.
+ * Implementations are shared by all the threads that encode images, hence they should be thread-safe.
+ */
+public interface FormatEncoder {
+    /**
+     * Checks whether the given image can be encoded
+     *
+     * @param image the image to encode
+     * @return true if the image can be encoded, false otherwise
+     */
+    boolean canEncode(BufferedImage image);
+
+    /**
+     * Encodes an image to an output stream
+     * <p>
+     * The output stream should not be closed.
+     *
+     * @param image           the image to encode
+     * @param encodingOptions the encoder parameters
+     * @param outputStream    the destination stream
+     * @throws IOException if the image cannot be written
+     */
+    void encode(BufferedImage image, EncodingOptions encodingOptions, OutputStream outputStream) throws IOException;
+}
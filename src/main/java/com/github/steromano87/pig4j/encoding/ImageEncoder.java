@@ -0,0 +1,221 @@
+package com.github.steromano87.pig4j.encoding;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes images straight to an output stream
+ * <p>
+ * The encoded bytes are passed to the destination stream while the image is being encoded:
+ * only the data the encoder may still need to rewrite (e.g. the current PNG chunk) is kept in memory.
+ * Destination streams are flushed but never closed.
+ * <p>
+ * Each format is encoded by the {@link ImageIO} writers, unless a different {@link FormatEncoder}
+ * has been registered for it (e.g. the {@link ParallelPngEncoder}).
+ */
+public final class ImageEncoder {
+    private static final Map<ImageFormat, FormatEncoder> DEFAULT_ENCODERS = Arrays.stream(ImageFormat.values())
+            .collect(Collectors.toMap(Function.identity(), ImageIoEncoder::new));
+
+    private static final Map<ImageFormat, FormatEncoder> FORMAT_ENCODERS = new ConcurrentHashMap<>();
+
+    private ImageEncoder() {
+    }
+
+    /**
+     * Encodes an image to an output stream
+     *
+     * @param image        the image to encode
+     * @param format       the output format
+     * @param outputStream the destination stream
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     */
+    public static boolean write(BufferedImage image, ImageFormat format, OutputStream outputStream) throws IOException {
+        return write(image, format, new EncodingOptions(), outputStream);
+    }
+
+    /**
+     * Encodes an image to an output stream, using the given encoding options
+     *
+     * @param image           the image to encode
+     * @param format          the output format
+     * @param encodingOptions the encoder parameters
+     * @param outputStream    the destination stream
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     */
+    public static boolean write(
+            BufferedImage image,
+            ImageFormat format,
+            EncodingOptions encodingOptions,
+            OutputStream outputStream
+    ) throws IOException {
+        FormatEncoder formatEncoder = getFormatEncoder(format);
+        if (!formatEncoder.canEncode(image)) {
+            return false;
+        }
+
+        encode(formatEncoder, encodingOptions, image, outputStream);
+        return true;
+    }
+
+    /**
+     * Encodes an image to an output stream as Base64 text
+     *
+     * @param image        the image to encode
+     * @param format       the output format
+     * @param outputStream the destination stream, receiving ASCII characters
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     */
+    public static boolean writeBase64(BufferedImage image, ImageFormat format, OutputStream outputStream)
+            throws IOException {
+        return writeBase64(image, format, new EncodingOptions(), outputStream);
+    }
+
+    /**
+     * Encodes an image to an output stream as Base64 text, using the given encoding options
+     *
+     * @param image           the image to encode
+     * @param format          the output format
+     * @param encodingOptions the encoder parameters
+     * @param outputStream    the destination stream, receiving ASCII characters
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     */
+    public static boolean writeBase64(
+            BufferedImage image,
+            ImageFormat format,
+            EncodingOptions encodingOptions,
+            OutputStream outputStream
+    ) throws IOException {
+        FormatEncoder formatEncoder = getFormatEncoder(format);
+        if (!formatEncoder.canEncode(image)) {
+            return false;
+        }
+
+        encodeBase64(formatEncoder, encodingOptions, image, outputStream);
+        return true;
+    }
+
+    /**
+     * Encodes an image to an output stream as a data URL
+     *
+     * @param image        the image to encode
+     * @param format       the output format
+     * @param outputStream the destination stream, receiving ASCII characters
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     * @link https://en.wikipedia.org/wiki/Data_URI_scheme
+     */
+    public static boolean writeDataUrl(BufferedImage image, ImageFormat format, OutputStream outputStream)
+            throws IOException {
+        return writeDataUrl(image, format, new EncodingOptions(), outputStream);
+    }
+
+    /**
+     * Encodes an image to an output stream as a data URL, using the given encoding options
+     *
+     * @param image           the image to encode
+     * @param format          the output format
+     * @param encodingOptions the encoder parameters
+     * @param outputStream    the destination stream, receiving ASCII characters
+     * @return false if no encoder supports the image in the given format, true otherwise
+     * @throws IOException if the image cannot be written
+     * @link https://en.wikipedia.org/wiki/Data_URI_scheme
+     */
+    public static boolean writeDataUrl(
+            BufferedImage image,
+            ImageFormat format,
+            EncodingOptions encodingOptions,
+            OutputStream outputStream
+    ) throws IOException {
+        FormatEncoder formatEncoder = getFormatEncoder(format);
+        if (!formatEncoder.canEncode(image)) {
+            return false;
+        }
+
+        String prefix = "data:" + format.getMimeType() + ";base64,";
+        outputStream.write(prefix.getBytes(StandardCharsets.US_ASCII));
+        encodeBase64(formatEncoder, encodingOptions, image, outputStream);
+        return true;
+    }
+
+    /**
+     * Sets the encoder used for the given format, replacing the default one
+     *
+     * @param format        the image format
+     * @param formatEncoder the encoder, or null to restore the default one
+     */
+    public static void setFormatEncoder(ImageFormat format, FormatEncoder formatEncoder) {
+        if (Objects.isNull(formatEncoder)) {
+            FORMAT_ENCODERS.remove(format);
+        } else {
+            FORMAT_ENCODERS.put(format, formatEncoder);
+        }
+    }
+
+    /**
+     * Returns the encoder used for the given format
+     *
+     * @param format the image format
+     * @return the registered encoder, or the default encoder based on {@link javax.imageio.ImageIO}
+     */
+    public static FormatEncoder getFormatEncoder(ImageFormat format) {
+        return FORMAT_ENCODERS.getOrDefault(format, DEFAULT_ENCODERS.get(format));
+    }
+
+    private static void encode(
+            FormatEncoder formatEncoder,
+            EncodingOptions encodingOptions,
+            BufferedImage image,
+            OutputStream outputStream
+    ) throws IOException {
+        formatEncoder.encode(image, encodingOptions, outputStream);
+        outputStream.flush();
+    }
+
+    private static void encodeBase64(
+            FormatEncoder formatEncoder,
+            EncodingOptions encodingOptions,
+            BufferedImage image,
+            OutputStream outputStream
+    ) throws IOException {
+        // Closing the Base64 stream writes the final padding, but the destination stream must stay open
+        try (OutputStream base64Stream = Base64.getEncoder().wrap(new NonClosingOutputStream(outputStream))) {
+            encode(formatEncoder, encodingOptions, image, base64Stream);
+        }
+        outputStream.flush();
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.steromano87.pig4j.encoding;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import com.github.steromano87.pig4j.rendering.StripeDataBuffer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileCacheImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Default encoder, based on the image writers registered in {@link ImageIO}
+ * <p>
+ * Writers can seek back to complete the data already written (e.g. the strip offsets of TIFF images), so the output
+ * is cached until the image is complete. The cache is kept in memory, except for streamed images
+ * (see {@link StripeDataBuffer}), whose output is cached in a temporary file so that it does not grow with
+ * the image size.
+ */
+final class ImageIoEncoder implements FormatEncoder {
+    private final ImageFormat format;
+
+    ImageIoEncoder(ImageFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public boolean canEncode(BufferedImage image) {
+        return !Objects.isNull(this.findWriter(image));
+    }
+
+    @Override
+    public void encode(BufferedImage image, EncodingOptions encodingOptions, OutputStream outputStream)
+            throws IOException {
+        ImageWriter imageWriter = this.findWriter(image);
+        if (Objects.isNull(imageWriter)) {
+            throw new IOException("No encoder supports the image in " + this.format + " format");
+        }
+
+        try (ImageOutputStream imageOutputStream = createImageOutputStream(image, outputStream)) {
+            imageWriter.setOutput(imageOutputStream);
+            ImageWriteParam writeParam = encodingOptions.createWriteParam(imageWriter);
+            imageWriter.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            imageWriter.dispose();
+        }
+    }
+
+    private static ImageOutputStream createImageOutputStream(BufferedImage image, OutputStream outputStream)
+            throws IOException {
+        if (Objects.isNull(StripeDataBuffer.of(image))) {
+            return new MemoryCacheImageOutputStream(outputStream);
+        }
+        return new FileCacheImageOutputStream(outputStream, ImageIO.getCacheDirectory());
+    }
+
+    private ImageWriter findWriter(BufferedImage image) {
+        ImageTypeSpecifier imageType = ImageTypeSpecifier.createFromRenderedImage(image);
+        Iterator<ImageWriter> imageWriters = ImageIO.getImageWriters(imageType, this.format.getExtension());
+        return imageWriters.hasNext() ? imageWriters.next() : null;
+    }
+}
@@ -0,0 +1,429 @@
+package com.github.steromano87.pig4j.encoding;
+
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import com.github.steromano87.pig4j.rendering.OffHeapDataBuffer;
+import com.github.steromano87.pig4j.rendering.StripeDataBuffer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder that filters and compresses stripes of scanlines on multiple threads
+ * <p>
+ * The image is split in stripes of about {@link #setChunkSize(int) chunk size} bytes, that are filtered
+ * and deflated independently. Each stripe is compressed using the tail of the previous one as preset dictionary
+ * and, except for the last one, ends on a byte boundary (sync flush): the compressed stripes are then
+ * concatenated into a single zlib stream, so the compression ratio stays close to the one of a sequential encoder.
+ * <p>
+ * Images are written as 8-bit RGB, or as 8-bit RGBA if they have an alpha channel, without interlacing.
+ * The deflate level and the scanline filter are taken from the {@link EncodingOptions}.
+ * <p>
+ * Streamed images (see {@link StripeDataBuffer}) are encoded with fewer pending chunks, so that the rows being
+ * filtered always belong to the painted stripes kept in memory and no stripe of the image is painted twice.
+ *
+ * @link https://zlib.net/pigz/
+ */
+public class ParallelPngEncoder implements FormatEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+    private static final int ADLER_BASE = 65521;
+
+    private final Executor executor;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private int maxPendingChunks = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a PNG encoder that runs on the common fork-join pool
+     */
+    public ParallelPngEncoder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a PNG encoder that runs on the given executor
+     *
+     * @param executor the executor used to filter and compress the stripes
+     */
+    public ParallelPngEncoder(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the size of the uncompressed data of each stripe
+     * <p>
+     * Smaller stripes spread the work on more threads, at the cost of a slightly lower compression ratio.
+     *
+     * @param chunkSize the size of each stripe, expressed in bytes
+     * @return the PNG encoder instance
+     */
+    public ParallelPngEncoder setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be a positive number");
+        }
+
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of stripes that are filtered or compressed while waiting to be written
+     *
+     * @param maxPendingChunks the maximum number of pending stripes
+     * @return the PNG encoder instance
+     */
+    public ParallelPngEncoder setMaxPendingChunks(int maxPendingChunks) {
+        if (maxPendingChunks <= 0) {
+            throw new IllegalArgumentException("Maximum pending chunks should be a positive number");
+        }
+
+        this.maxPendingChunks = maxPendingChunks;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    public int getMaxPendingChunks() {
+        return this.maxPendingChunks;
+    }
+
+    @Override
+    public boolean canEncode(BufferedImage image) {
+        return true;
+    }
+
+    @Override
+    public void encode(BufferedImage image, EncodingOptions encodingOptions, OutputStream outputStream)
+            throws IOException {
+        int height = image.getHeight();
+        boolean hasAlphaChannel = image.getColorModel().hasAlpha();
+        int rowLength = image.getWidth() * (hasAlphaChannel ? 4 : 3);
+        int level = Objects.isNull(encodingOptions.getDeflateLevel())
+                ? Deflater.DEFAULT_COMPRESSION
+                : encodingOptions.getDeflateLevel();
+        EncodingOptions.PngFilter filter = Objects.isNull(encodingOptions.getPngFilter())
+                ? EncodingOptions.PngFilter.ADAPTIVE
+                : encodingOptions.getPngFilter();
+        int rowsPerChunk = Math.max(1, this.chunkSize / (rowLength + 1));
+        int maxPending = this.maxPendingChunks;
+        StripeDataBuffer stripeBuffer = StripeDataBuffer.of(image);
+        if (!Objects.isNull(stripeBuffer)) {
+            int cachedRows = (StripeDataBuffer.MAX_CACHED_STRIPES - 1) * stripeBuffer.getStripeHeight();
+            maxPending = Math.max(1, Math.min(maxPending, cachedRows / rowsPerChunk));
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.write(SIGNATURE);
+        writeHeader(dataOutputStream, image, hasAlphaChannel);
+
+        // Chunks are submitted in order, each one waiting for the filtered data of the previous one
+        Deque<CompletableFuture<CompressedChunk>> pendingChunks = new ArrayDeque<>();
+        CompletableFuture<byte[]> previousFiltering = CompletableFuture.completedFuture(null);
+        int nextRow = 0;
+        long adler = 1;
+        boolean isFirstChunk = true;
+        while (nextRow < height || !pendingChunks.isEmpty()) {
+            while (nextRow < height && pendingChunks.size() < maxPending) {
+                int fromRow = nextRow;
+                int toRow = Math.min(height, fromRow + rowsPerChunk);
+                boolean isLastChunk = toRow == height;
+                CompletableFuture<byte[]> filtering = CompletableFuture.supplyAsync(
+                        () -> filterRows(image, fromRow, toRow, hasAlphaChannel, filter),
+                        this.executor
+                );
+                pendingChunks.add(filtering.thenCombineAsync(
+                        previousFiltering,
+                        (data, previousData) -> compress(data, previousData, level, isLastChunk),
+                        this.executor
+                ));
+                previousFiltering = filtering;
+                nextRow = toRow;
+            }
+
+            CompressedChunk chunk = await(pendingChunks.poll());
+            adler = combineAdler32(adler, chunk.adler, chunk.uncompressedLength);
+            byte[] header = isFirstChunk ? createZlibHeader(level) : new byte[0];
+            byte[] trailer = nextRow == height && pendingChunks.isEmpty() ? toBytes((int) adler) : new byte[0];
+            writeChunk(dataOutputStream, "IDAT", header, chunk.data, trailer);
+            isFirstChunk = false;
+        }
+
+        writeChunk(dataOutputStream, "IEND");
+        dataOutputStream.flush();
+    }
+
+    private static void writeHeader(DataOutputStream outputStream, BufferedImage image, boolean hasAlphaChannel)
+            throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerStream = new DataOutputStream(header);
+        headerStream.writeInt(image.getWidth());
+        headerStream.writeInt(image.getHeight());
+        headerStream.writeByte(8);
+        headerStream.writeByte(hasAlphaChannel ? 6 : 2);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        writeChunk(outputStream, "IHDR", header.toByteArray());
+    }
+
+    private static void writeChunk(DataOutputStream outputStream, String type, byte[]... parts) throws IOException {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        outputStream.writeInt(length);
+        outputStream.write(typeBytes);
+        for (byte[] part : parts) {
+            crc.update(part);
+            outputStream.write(part);
+        }
+        outputStream.writeInt((int) crc.getValue());
+    }
+
+    private static byte[] filterRows(
+            BufferedImage image,
+            int fromRow,
+            int toRow,
+            boolean hasAlphaChannel,
+            EncodingOptions.PngFilter filter
+    ) {
+        int width = image.getWidth();
+        int bytesPerPixel = hasAlphaChannel ? 4 : 3;
+        int rowLength = width * bytesPerPixel;
+        int[] pixels = new int[width];
+        byte[] previousRow = new byte[rowLength];
+        byte[] currentRow = new byte[rowLength];
+        byte[][] candidates = new byte[EncodingOptions.PngFilter.values().length][rowLength];
+        byte[] filteredData = new byte[(toRow - fromRow) * (rowLength + 1)];
+
+        if (fromRow > 0) {
+            readRow(image, fromRow - 1, pixels, previousRow, hasAlphaChannel);
+        }
+
+        int offset = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            readRow(image, y, pixels, currentRow, hasAlphaChannel);
+
+            int filterType = filter.ordinal();
+            if (filter == EncodingOptions.PngFilter.ADAPTIVE) {
+                filterType = chooseFilter(currentRow, previousRow, bytesPerPixel, candidates);
+            } else {
+                applyFilter(filterType, currentRow, previousRow, bytesPerPixel, candidates[filterType]);
+            }
+
+            filteredData[offset] = (byte) filterType;
+            System.arraycopy(candidates[filterType], 0, filteredData, offset + 1, rowLength);
+            offset += rowLength + 1;
+
+            byte[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+
+        return filteredData;
+    }
+
+    private static void readRow(BufferedImage image, int y, int[] pixels, byte[] row, boolean hasAlphaChannel) {
+        int width = image.getWidth();
+        StripeDataBuffer stripeBuffer = StripeDataBuffer.of(image);
+        if (!Objects.isNull(stripeBuffer)) {
+            stripeBuffer.get(y * width, pixels, 0, width);
+        } else if (image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB ||
+                !Objects.isNull(OffHeapDataBuffer.of(image))) {
+            image.getRaster().getDataElements(0, y, width, 1, pixels);
+        } else {
+            image.getRGB(0, y, width, 1, pixels, 0, width);
+        }
+
+        int offset = 0;
+        for (int x = 0; x < width; x++) {
+            int pixel = pixels[x];
+            row[offset++] = (byte) (pixel >> 16);
+            row[offset++] = (byte) (pixel >> 8);
+            row[offset++] = (byte) pixel;
+            if (hasAlphaChannel) {
+                row[offset++] = (byte) (pixel >> 24);
+            }
+        }
+    }
+
+    private static int chooseFilter(byte[] row, byte[] previousRow, int bytesPerPixel, byte[][] candidates) {
+        // Minimum sum of absolute differences heuristic, treating the filtered bytes as signed values
+        int bestFilterType = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int filterType = 0; filterType < candidates.length - 1; filterType++) {
+            applyFilter(filterType, row, previousRow, bytesPerPixel, candidates[filterType]);
+            long sum = 0;
+            for (byte value : candidates[filterType]) {
+                sum += Math.abs(value);
+            }
+
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestFilterType = filterType;
+            }
+        }
+
+        return bestFilterType;
+    }
+
+    private static void applyFilter(int filterType, byte[] row, byte[] previousRow, int bytesPerPixel, byte[] output) {
+        // Filter types are numbered as the constants of the PNG filter enum
+        for (int i = 0; i < row.length; i++) {
+            int current = row[i] & 0xFF;
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+            int up = previousRow[i] & 0xFF;
+            int upLeft = i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xFF : 0;
+
+            switch (filterType) {
+                case 1:
+                    output[i] = (byte) (current - left);
+                    break;
+                case 2:
+                    output[i] = (byte) (current - up);
+                    break;
+                case 3:
+                    output[i] = (byte) (current - ((left + up) >>> 1));
+                    break;
+                case 4:
+                    output[i] = (byte) (current - paethPredictor(left, up, upLeft));
+                    break;
+                default:
+                    output[i] = (byte) current;
+            }
+        }
+    }
+
+    private static int paethPredictor(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int upDistance = Math.abs(estimate - up);
+        int upLeftDistance = Math.abs(estimate - upLeft);
+        if (leftDistance <= upDistance && leftDistance <= upLeftDistance) {
+            return left;
+        }
+        return upDistance <= upLeftDistance ? up : upLeft;
+    }
+
+    private static CompressedChunk compress(byte[] data, byte[] previousData, int level, boolean isLastChunk) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (!Objects.isNull(previousData)) {
+                int dictionaryLength = Math.min(DICTIONARY_SIZE, previousData.length);
+                deflater.setDictionary(previousData, previousData.length - dictionaryLength, dictionaryLength);
+            }
+
+            deflater.setInput(data);
+            ByteArrayOutputStream compressedData = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+            if (isLastChunk) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressedData.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int compressedLength;
+                do {
+                    compressedLength = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressedData.write(buffer, 0, compressedLength);
+                } while (compressedLength == buffer.length);
+            }
+
+            Adler32 adler32 = new Adler32();
+            adler32.update(data);
+            return new CompressedChunk(compressedData.toByteArray(), adler32.getValue(), data.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] createZlibHeader(int level) {
+        int compressionInfo = 0x78;
+        int compressionLevel;
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+            compressionLevel = 2;
+        } else if (level <= 1) {
+            compressionLevel = 0;
+        } else {
+            compressionLevel = level <= 5 ? 1 : 3;
+        }
+
+        int flags = compressionLevel << 6;
+        flags += 31 - ((compressionInfo << 8 | flags) % 31);
+        return new byte[]{(byte) compressionInfo, (byte) flags};
+    }
+
+    /**
+     * Returns the Adler-32 checksum of two concatenated sequences, as zlib's adler32_combine
+     */
+    private static long combineAdler32(long firstAdler, long secondAdler, long secondLength) {
+        long remainder = secondLength % ADLER_BASE;
+        long sum1 = firstAdler & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (secondAdler & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((firstAdler >> 16) & 0xFFFF) + ((secondAdler >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= ((long) ADLER_BASE << 1)) {
+            sum2 -= ((long) ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static byte[] toBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exc.getCause();
+            }
+            throw new IOException("Cannot encode PNG stripe", exc.getCause());
+        }
+    }
+
+    private static final class CompressedChunk {
+        private final byte[] data;
+        private final long adler;
+        private final int uncompressedLength;
+
+        private CompressedChunk(byte[] data, long adler, int uncompressedLength) {
+            this.data = data;
+            this.adler = adler;
+            this.uncompressedLength = uncompressedLength;
+        }
+    }
+}
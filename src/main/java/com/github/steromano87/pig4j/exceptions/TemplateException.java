@@ -0,0 +1,22 @@
+package com.github.steromano87.pig4j.exceptions;
+
+public class TemplateException extends Pig4jException {
+    public TemplateException() {
+    }
+
+    public TemplateException(String message) {
+        super(message);
+    }
+
+    public TemplateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TemplateException(Throwable cause) {
+        super(cause);
+    }
+
+    public TemplateException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.steromano87.pig4j.instrumentation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instrumentation that keeps an in-memory histogram of the wall time of each layer stage and of each encoding
+ * <p>
+ * Layer stages are grouped by layer position, layer type and stage; encodings are grouped by format.
+ * Times are collected in power-of-two buckets, hence percentiles are approximated by the upper bound
+ * of their bucket (never exceeding the maximum recorded time).
+ * The recorder is thread-safe and can be shared by several image generators.
+ */
+public class HistogramRecorder implements Instrumentation {
+    private final Map<LayerStageKey, Histogram> layerStages = new ConcurrentHashMap<>();
+
+    private final Map<ImageFormat, Histogram> encodings = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLayerStage(
+            int layerIndex,
+            Layer layer,
+            Stage stage,
+            long elapsedNanos,
+            long pixels,
+            long allocatedBytes
+    ) {
+        LayerStageKey key = new LayerStageKey(layerIndex, layer.getClass().getSimpleName(), stage);
+        this.layerStages.computeIfAbsent(key, k -> new Histogram()).record(elapsedNanos, pixels, allocatedBytes);
+    }
+
+    @Override
+    public void recordEncoding(ImageFormat format, long elapsedNanos, long outputBytes) {
+        this.encodings.computeIfAbsent(format, k -> new Histogram()).record(elapsedNanos, outputBytes, -1);
+    }
+
+    /**
+     * Discards all the recorded events
+     */
+    public void clear() {
+        this.layerStages.clear();
+        this.encodings.clear();
+    }
+
+    /**
+     * Returns the recorded histograms as a JSON document
+     *
+     * @return the JSON representation of the histograms
+     */
+    public String toJson() {
+        return this.createJsonTree().toPrettyString();
+    }
+
+    /**
+     * Writes the recorded histograms as a JSON document
+     *
+     * @param writer the destination writer, that is not closed
+     * @throws IOException if the document cannot be written
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write(this.toJson());
+        writer.flush();
+    }
+
+    private ObjectNode createJsonTree() {
+        ObjectNode root = new ObjectMapper().createObjectNode();
+
+        List<LayerStageKey> layerStageKeys = new ArrayList<>(this.layerStages.keySet());
+        layerStageKeys.sort(Comparator.comparingInt((LayerStageKey key) -> key.layerIndex)
+                .thenComparing(key -> key.layerType)
+                .thenComparing(key -> key.stage));
+        ArrayNode layerNodes = root.putArray("layers");
+        for (LayerStageKey key : layerStageKeys) {
+            ObjectNode layerNode = layerNodes.addObject();
+            layerNode.put("layerIndex", key.layerIndex);
+            layerNode.put("layer", key.layerType);
+            layerNode.put("stage", key.stage.name());
+            this.layerStages.get(key).writeTo(layerNode, "pixels", true);
+        }
+
+        List<ImageFormat> formats = new ArrayList<>(this.encodings.keySet());
+        formats.sort(Comparator.naturalOrder());
+        ArrayNode encodingNodes = root.putArray("encodings");
+        for (ImageFormat format : formats) {
+            ObjectNode encodingNode = encodingNodes.addObject();
+            encodingNode.put("format", format.name());
+            this.encodings.get(format).writeTo(encodingNode, "outputBytes", false);
+        }
+
+        return root;
+    }
+
+    private static final class LayerStageKey {
+        private final int layerIndex;
+        private final String layerType;
+        private final Stage stage;
+
+        private LayerStageKey(int layerIndex, String layerType, Stage stage) {
+            this.layerIndex = layerIndex;
+            this.layerType = layerType;
+            this.stage = stage;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LayerStageKey that = (LayerStageKey) o;
+            return this.layerIndex == that.layerIndex &&
+                    this.layerType.equals(that.layerType) &&
+                    this.stage == that.stage;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.layerIndex, this.layerType, this.stage);
+        }
+    }
+
+    private static final class Histogram {
+        private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+        private final long[] buckets = new long[Long.SIZE];
+        private long count;
+        private long totalNanos;
+        private long minNanos = Long.MAX_VALUE;
+        private long maxNanos;
+        private long totalAmount;
+        private long allocatedBytes;
+        private boolean isAllocationMeasured = true;
+
+        private synchronized void record(long elapsedNanos, long amount, long allocatedBytes) {
+            long nanos = Math.max(0, elapsedNanos);
+            this.buckets[getBucket(nanos)]++;
+            this.count++;
+            this.totalNanos += nanos;
+            this.minNanos = Math.min(this.minNanos, nanos);
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+            this.totalAmount += amount;
+            if (allocatedBytes < 0) {
+                this.isAllocationMeasured = false;
+            } else {
+                this.allocatedBytes += allocatedBytes;
+            }
+        }
+
+        private synchronized void writeTo(ObjectNode node, String amountName, boolean hasAllocation) {
+            node.put("count", this.count);
+            node.put("totalNanos", this.totalNanos);
+            node.put("minNanos", this.minNanos);
+            node.put("meanNanos", this.totalNanos / this.count);
+            for (double percentile : PERCENTILES) {
+                node.put("p" + Math.round(percentile * 100) + "Nanos", this.getPercentile(percentile));
+            }
+            node.put("maxNanos", this.maxNanos);
+            node.put(amountName, this.totalAmount);
+            if (hasAllocation) {
+                node.put("allocatedBytes", this.isAllocationMeasured ? this.allocatedBytes : -1);
+            }
+        }
+
+        private long getPercentile(double percentile) {
+            long threshold = (long) Math.ceil(percentile * this.count);
+            long cumulativeCount = 0;
+            for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+                cumulativeCount += this.buckets[bucket];
+                if (cumulativeCount >= threshold) {
+                    long upperBound = bucket >= Long.SIZE - 2 ? Long.MAX_VALUE : (2L << bucket) - 1;
+                    return Math.min(upperBound, this.maxNanos);
+                }
+            }
+            return this.maxNanos;
+        }
+
+        private static int getBucket(long nanos) {
+            return Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, nanos));
+        }
+    }
+}
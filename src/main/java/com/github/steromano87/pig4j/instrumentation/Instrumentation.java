@@ -0,0 +1,85 @@
+package com.github.steromano87.pig4j.instrumentation;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.layers.Layer;
+
+/**
+ * Receives the timings of the image generation, to find out which layers and stages are slow
+ * <p>
+ * Layers report the stages they go through (scaling, positioning, blending and so on) while being applied,
+ * and the image generator reports the total time of each layer and the encoding of the output image.
+ * Stages can be nested: the time of a layer includes the time of its stages.
+ * Implementations can be invoked by several threads at the same time, hence they should be thread-safe.
+ * <p>
+ * The default instrumentation, {@link #NONE}, ignores all the events: when it is used, no timing is taken at all.
+ *
+ * @see HistogramRecorder
+ */
+public interface Instrumentation {
+    /**
+     * Instrumentation that ignores all the events
+     */
+    Instrumentation NONE = new Instrumentation() {
+    };
+
+    /**
+     * Records a stage of a layer
+     *
+     * @param layerIndex     the position of the layer in the image generator
+     * @param layer          the layer
+     * @param stage          the stage
+     * @param elapsedNanos   the wall time of the stage, expressed in nanoseconds
+     * @param pixels         the number of pixels processed by the stage
+     * @param allocatedBytes the bytes allocated by the current thread during the stage,
+     *                       or -1 if the JVM cannot measure them
+     */
+    default void recordLayerStage(
+            int layerIndex,
+            Layer layer,
+            Stage stage,
+            long elapsedNanos,
+            long pixels,
+            long allocatedBytes
+    ) {
+    }
+
+    /**
+     * Records the encoding of the output image
+     *
+     * @param format       the output format
+     * @param elapsedNanos the wall time of the encoding, expressed in nanoseconds
+     * @param outputBytes  the size of the encoded image, expressed in bytes
+     */
+    default void recordEncoding(ImageFormat format, long elapsedNanos, long outputBytes) {
+    }
+
+    /**
+     * Stages of the application of a layer
+     */
+    enum Stage {
+        /**
+         * Decoding of the source image
+         */
+        DECODE,
+        /**
+         * Drawing of text, shapes or child layers on an intermediate raster
+         */
+        RASTERIZE,
+        /**
+         * Resampling of an image
+         */
+        SCALE,
+        /**
+         * Placing of an image on a canvas-sized image
+         */
+        POSITION,
+        /**
+         * Blending of an image or a color on the canvas
+         */
+        BLEND,
+        /**
+         * Whole application of the layer, including all the other stages
+         */
+        LAYER
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.steromano87.pig4j.instrumentation;
+
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binds the layer being applied by the current thread to an instrumentation, so that the stages of the layer
+ * can be reported without passing the instrumentation around
+ * <p>
+ * The image generator opens a probe around each layer, while layers and options time their stages
+ * through {@link #time(Instrumentation.Stage, long)}. When no probe is open, timing a stage costs a single
+ * volatile read and returns a shared timer that does nothing.
+ */
+public final class LayerProbe implements AutoCloseable {
+    private static final ThreadLocal<LayerProbe> CURRENT_PROBE = new ThreadLocal<>();
+    private static final AtomicInteger OPEN_PROBES = new AtomicInteger();
+    private static final LayerProbe DISABLED_PROBE = new LayerProbe(Instrumentation.NONE, -1, null, null);
+
+    private final Instrumentation instrumentation;
+    private final int layerIndex;
+    private final Layer layer;
+    private final LayerProbe previousProbe;
+
+    private LayerProbe(Instrumentation instrumentation, int layerIndex, Layer layer, LayerProbe previousProbe) {
+        this.instrumentation = instrumentation;
+        this.layerIndex = layerIndex;
+        this.layer = layer;
+        this.previousProbe = previousProbe;
+    }
+
+    /**
+     * Opens a probe for the given layer on the current thread
+     *
+     * @param instrumentation the instrumentation that receives the stages
+     * @param layerIndex      the position of the layer in the image generator
+     * @param layer           the layer
+     * @return the probe, to be closed when the layer has been applied
+     */
+    public static LayerProbe open(Instrumentation instrumentation, int layerIndex, Layer layer) {
+        if (instrumentation == Instrumentation.NONE) {
+            return DISABLED_PROBE;
+        }
+
+        LayerProbe probe = new LayerProbe(instrumentation, layerIndex, layer, CURRENT_PROBE.get());
+        CURRENT_PROBE.set(probe);
+        OPEN_PROBES.incrementAndGet();
+        return probe;
+    }
+
+    /**
+     * Starts timing a stage of the layer being applied by the current thread
+     *
+     * @param stage  the stage
+     * @param pixels the number of pixels processed by the stage
+     * @return the timer, to be closed when the stage is complete
+     */
+    public static StageTimer time(Instrumentation.Stage stage, long pixels) {
+        if (OPEN_PROBES.get() == 0) {
+            return StageTimer.DISABLED;
+        }
+
+        LayerProbe probe = CURRENT_PROBE.get();
+        if (Objects.isNull(probe)) {
+            return StageTimer.DISABLED;
+        }
+        return new StageTimer(probe, stage, pixels);
+    }
+
+    @Override
+    public void close() {
+        if (this == DISABLED_PROBE) {
+            return;
+        }
+
+        if (Objects.isNull(this.previousProbe)) {
+            CURRENT_PROBE.remove();
+        } else {
+            CURRENT_PROBE.set(this.previousProbe);
+        }
+        OPEN_PROBES.decrementAndGet();
+    }
+
+    /**
+     * Timer of a single stage, that reports the stage to the instrumentation when closed
+     */
+    public static final class StageTimer implements AutoCloseable {
+        private static final StageTimer DISABLED = new StageTimer(null, null, 0);
+
+        private final LayerProbe probe;
+        private final Instrumentation.Stage stage;
+        private final long pixels;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private StageTimer(LayerProbe probe, Instrumentation.Stage stage, long pixels) {
+            this.probe = probe;
+            this.stage = stage;
+            this.pixels = pixels;
+            this.startAllocatedBytes = Objects.isNull(probe) ? 0 : AllocationCounter.getAllocatedBytes();
+            this.startNanos = Objects.isNull(probe) ? 0 : System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (Objects.isNull(this.probe)) {
+                return;
+            }
+
+            long elapsedNanos = System.nanoTime() - this.startNanos;
+            long allocatedBytes = AllocationCounter.getAllocatedBytes();
+            this.probe.instrumentation.recordLayerStage(
+                    this.probe.layerIndex,
+                    this.probe.layer,
+                    this.stage,
+                    elapsedNanos,
+                    this.pixels,
+                    allocatedBytes < 0 ? -1 : allocatedBytes - this.startAllocatedBytes
+            );
+        }
+    }
+
+    /**
+     * Reads the bytes allocated by the current thread, loaded only when the instrumentation is enabled
+     */
+    private static final class AllocationCounter {
+        private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+        private static final boolean IS_SUPPORTED = THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemoryEnabled();
+
+        private static long getAllocatedBytes() {
+            if (!IS_SUPPORTED) {
+                return -1;
+            }
+            return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.github.steromano87.pig4j.layers;
 
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+
+import java.awt.*;
 import java.awt.image.BufferedImage;
 
 /**
@@ -16,4 +20,131 @@ public interface Layer {
      * @return the image after being processed by the layer
      */
     BufferedImage apply(BufferedImage image);
+
+    /**
+     * Returns the area of the canvas that can be modified by the current layer
+     * <p>
+     * The returned bounds are used to skip layers that do not touch the canvas and to limit
+     * copying and blending to the affected area. They may exceed the canvas.
+     * The default implementation returns the whole canvas.
+     *
+     * @param canvasWidth  the width of the canvas, expressed in pixels
+     * @param canvasHeight the height of the canvas, expressed in pixels
+     * @return the affected area, expressed in canvas coordinates
+     */
+    default Rectangle getBounds(int canvasWidth, int canvasHeight) {
+        return new Rectangle(0, 0, canvasWidth, canvasHeight);
+    }
+
+    /**
+     * Returns whether the current layer leaves the canvas unchanged, e.g. because it is fully transparent
+     * <p>
+     * No-op layers are never applied. The default implementation returns false.
+     *
+     * @return true if applying the layer has no visible effect, false otherwise
+     * @see com.github.steromano87.pig4j.rendering.RenderPlan
+     */
+    default boolean isNoOp() {
+        return false;
+    }
+
+    /**
+     * Returns whether the current layer replaces the color of every pixel of the canvas, regardless of the previous color
+     * <p>
+     * Opaque covers keep the alpha channel of the canvas, as the source-atop blending does, hence on canvases without
+     * alpha channel the layers below the last cover are never applied.
+     * The default implementation returns false.
+     *
+     * @param canvasWidth  the width of the canvas, expressed in pixels
+     * @param canvasHeight the height of the canvas, expressed in pixels
+     * @return true if the layer hides all the colors below it, false otherwise
+     * @see com.github.steromano87.pig4j.rendering.RenderPlan
+     */
+    default boolean isOpaqueCover(int canvasWidth, int canvasHeight) {
+        return false;
+    }
+
+    /**
+     * Returns a key that identifies the output of the current layer
+     * <p>
+     * Two equal keys guarantee that the layer draws exactly the same pixels on the same underlying image:
+     * the image generator uses them to reuse the composite of the layers that did not change since the
+     * previous generation. Immutable layers can return a constant key, while mutable layers should
+     * return a snapshot of the values (or a hash of the content) that define their output.
+     * Images referenced by a key are compared by identity and are expected not to be modified.
+     * The default implementation returns null, meaning that the layer is applied on every generation.
+     *
+     * @return the render key, or null if the output of the layer cannot be identified
+     */
+    default Object getRenderKey() {
+        return null;
+    }
+
+    /**
+     * Returns a layer that produces the same output as the current one, with all the work that does not depend
+     * on the underlying image (e.g. decoding, scaling, text rasterization) already done
+     * <p>
+     * Prepared layers are used when the same layer has to be drawn on several render targets, such as the tiles
+     * of a tiled rendering. The default implementation returns the layer itself.
+     *
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @return the prepared layer
+     */
+    default Layer prepare(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        return this;
+    }
+
+    /**
+     * Returns a prepared layer that is going to be drawn on the horizontal stripes of a streamed rendering
+     * <p>
+     * Stripes are drawn from top to bottom, each one only once or a few times. Layers whose source can be read
+     * region by region can return a layer that loads only the area of each stripe, so that the source is never
+     * held in memory as a whole. The default implementation returns {@link #prepare(int, int, boolean)}.
+     *
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @return the prepared layer
+     * @see com.github.steromano87.pig4j.rendering.StripeRenderer
+     */
+    default Layer prepareForStripes(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        return this.prepare(canvasWidth, canvasHeight, hasAlphaChannel);
+    }
+
+    /**
+     * Draws the current layer directly on the given render target, without allocating a new canvas
+     * <p>
+     * The default implementation falls back to {@link #apply(BufferedImage)} and copies the area
+     * returned by {@link #getBounds(int, int)} back on the target, so that layers that do not support
+     * in-place compositing keep working. When the target covers only a portion of the canvas,
+     * the fallback applies the layer on a canvas-sized copy, which is correct only for layers that
+     * change each pixel independently of the others.
+     *
+     * @param target the render target to draw on
+     */
+    default void applyInPlace(RenderTarget target) {
+        BufferedImage image = target.getImage();
+        BufferedImage canvasImage = image;
+        if (!target.isFullCanvas()) {
+            canvasImage = new BufferedImage(
+                    image.getColorModel(),
+                    image.getRaster().createCompatibleWritableRaster(target.getCanvasWidth(), target.getCanvasHeight()),
+                    image.isAlphaPremultiplied(),
+                    null
+            );
+            ImageUtils.copyInto(image, canvasImage, target.getOriginX(), target.getOriginY());
+        }
+
+        BufferedImage outputImage = this.apply(canvasImage);
+        if (outputImage == image) {
+            return;
+        }
+
+        Graphics2D graphics2D = target.createGraphics(this.getBounds(target.getCanvasWidth(), target.getCanvasHeight()));
+        graphics2D.setComposite(AlphaComposite.Src);
+        graphics2D.drawImage(outputImage, 0, 0, null);
+        graphics2D.dispose();
+    }
 }
@@ -1,16 +1,37 @@
 package com.github.steromano87.pig4j.layers.base;
 
+import com.github.steromano87.pig4j.cache.GroupCache;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
 import com.github.steromano87.pig4j.layers.Layer;
 import com.github.steromano87.pig4j.options.BlendingOptions;
 import com.github.steromano87.pig4j.options.PositionOptions;
 import com.github.steromano87.pig4j.options.ScalingOptions;
+import com.github.steromano87.pig4j.rendering.RenderPlan;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
-
+/**
+ * Layer that composites a list of layers on its own canvas, then scales, positions and blends it as a whole
+ * <p>
+ * The group canvas has the same size and coordinates of the image canvas, but only the area touched by the children
+ * is allocated and rendered. The scaling options resize the whole group canvas, while the position options
+ * place the scaled canvas on the image.
+ * <p>
+ * The group canvas is a transparent ARGB raster, isolated from the image canvas (see {@link RenderTarget#isIsolated()}):
+ * children are composited on it with the source-over rule, then the whole raster is blended on the image with the
+ * blending options of the group, whether the image canvas supports the alpha channel or not.
+ */
 public class GroupingLayer implements Layer {
+    // Widest support of the resampling filters, expressed in pixels
+    private static final double RESAMPLING_SUPPORT = 3.0;
+
     private List<Layer> layers = new ArrayList<>();
 
     private ScalingOptions scalingOptions = new ScalingOptions();
@@ -40,22 +61,192 @@ public class GroupingLayer implements Layer {
         return this;
     }
 
+    @Override
+    public boolean isNoOp() {
+        return this.blendingOptions.getAlpha() <= 0.0f;
+    }
+
+    @Override
+    public Object getRenderKey() {
+        List<Object> childrenKeys = this.getChildrenKeys();
+        if (Objects.isNull(childrenKeys)) {
+            return null;
+        }
+
+        return Arrays.asList(
+                GroupingLayer.class,
+                childrenKeys,
+                this.scalingOptions.getRenderKey(),
+                this.positionOptions.getRenderKey(),
+                this.blendingOptions.getRenderKey()
+        );
+    }
+
     @Override
     public BufferedImage apply(BufferedImage image) {
-        boolean hasTransparency = image.getColorModel().hasAlpha();
-        int imageType = hasTransparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
-        BufferedImage layerCanvas = new BufferedImage(image.getWidth(), image.getHeight(), imageType);
+        Layer preparedLayer = this.prepare(image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha());
+        return preparedLayer == this ? image : preparedLayer.apply(image);
+    }
 
-        for (Layer layer : this.layers) {
-            layer.apply(layerCanvas);
+    @Override
+    public Rectangle getBounds(int canvasWidth, int canvasHeight) {
+        Rectangle sourceBounds = this.getSourceBounds(canvasWidth, canvasHeight);
+        if (sourceBounds.isEmpty()) {
+            return new Rectangle();
+        }
+
+        return this.getTargetBounds(sourceBounds, canvasWidth, canvasHeight);
+    }
+
+    /**
+     * Renders the children in a raster as large as the area they touch, then scales and positions it
+     * <p>
+     * When the render keys of all the children are known, the raster is taken from the shared {@link GroupCache},
+     * so that a group whose children did not change is rendered only once.
+     *
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @return a raster layer that draws the rendered group, or the group itself if it does not touch the canvas
+     */
+    @Override
+    public Layer prepare(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        Rectangle sourceBounds = this.getSourceBounds(canvasWidth, canvasHeight);
+        if (sourceBounds.isEmpty()) {
+            return this;
+        }
+
+        Rectangle targetBounds = this.getTargetBounds(sourceBounds, canvasWidth, canvasHeight);
+        if (targetBounds.isEmpty()) {
+            return this;
+        }
+
+        List<Object> childrenKeys = this.getChildrenKeys();
+        BufferedImage groupImage;
+        if (Objects.isNull(childrenKeys)) {
+            groupImage = this.renderGroup(sourceBounds, targetBounds.getSize(), canvasWidth, canvasHeight);
+        } else {
+            groupImage = GroupCache.getShared().getRaster(
+                    Arrays.asList(
+                            GroupingLayer.class,
+                            childrenKeys,
+                            this.scalingOptions.getRenderKey(),
+                            canvasWidth,
+                            canvasHeight
+                    ),
+                    () -> this.renderGroup(sourceBounds, targetBounds.getSize(), canvasWidth, canvasHeight)
+            );
+        }
+
+        return new RasterLayer(groupImage, targetBounds.x, targetBounds.y, this.blendingOptions);
+    }
+
+    @Override
+    public void applyInPlace(RenderTarget target) {
+        Layer preparedLayer = this.prepare(
+                target.getCanvasWidth(),
+                target.getCanvasHeight(),
+                target.getImage().getColorModel().hasAlpha()
+        );
+        if (preparedLayer != this) {
+            preparedLayer.applyInPlace(target);
         }
+    }
+
+    private BufferedImage renderGroup(
+            Rectangle sourceBounds,
+            Dimension targetSize,
+            int canvasWidth,
+            int canvasHeight
+    ) {
+        BufferedImage groupImage = new BufferedImage(sourceBounds.width, sourceBounds.height, BufferedImage.TYPE_INT_ARGB);
 
-        return this.blendingOptions.apply(
-                image,
-                this.positionOptions.apply(
-                        image,
-                        this.scalingOptions.apply(layerCanvas)
-                )
+        // Children keep drawing in canvas coordinates, on a transparent target that covers only the area they touch
+        RenderTarget groupTarget = new RenderTarget(
+                groupImage,
+                sourceBounds.x,
+                sourceBounds.y,
+                canvasWidth,
+                canvasHeight,
+                true
         );
+        long pixels = (long) sourceBounds.width * sourceBounds.height;
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.RASTERIZE, pixels)) {
+            RenderPlan renderPlan = RenderPlan.create(this.layers, canvasWidth, canvasHeight, true);
+            for (Layer layer : renderPlan.getLayers()) {
+                if (layer.getBounds(canvasWidth, canvasHeight).intersects(sourceBounds)) {
+                    layer.applyInPlace(groupTarget);
+                }
+            }
+        }
+
+        if (targetSize.equals(sourceBounds.getSize())) {
+            return groupImage;
+        }
+
+        return new ScalingOptions()
+                .setWidth(targetSize.width)
+                .setHeight(targetSize.height)
+                .setAlgorithm(this.scalingOptions.getAlgorithm())
+                .apply(groupImage);
+    }
+
+    private Rectangle getSourceBounds(int canvasWidth, int canvasHeight) {
+        Rectangle canvasBounds = new Rectangle(0, 0, canvasWidth, canvasHeight);
+        Rectangle childrenBounds = this.getChildrenBounds(canvasWidth, canvasHeight).intersection(canvasBounds);
+        if (childrenBounds.isEmpty()) {
+            return new Rectangle();
+        }
+
+        Dimension scaledSize = this.scalingOptions.getScaledSize(canvasWidth, canvasHeight);
+        if (scaledSize.equals(canvasBounds.getSize())) {
+            return childrenBounds;
+        }
+
+        // Widen the children area to include the resampling filter support, expressed in canvas pixels
+        double minimumScale = Math.min((double) scaledSize.width / canvasWidth, (double) scaledSize.height / canvasHeight);
+        int margin = (int) Math.ceil(RESAMPLING_SUPPORT * Math.max(1.0, 1.0 / minimumScale));
+        childrenBounds.grow(margin, margin);
+        return childrenBounds.intersection(canvasBounds);
+    }
+
+    private Rectangle getTargetBounds(Rectangle sourceBounds, int canvasWidth, int canvasHeight) {
+        // Map the source area on the scaled group canvas, that is positioned as a whole
+        Dimension scaledSize = this.scalingOptions.getScaledSize(canvasWidth, canvasHeight);
+        double horizontalScale = (double) scaledSize.width / canvasWidth;
+        double verticalScale = (double) scaledSize.height / canvasHeight;
+        int minX = (int) Math.round(sourceBounds.getMinX() * horizontalScale);
+        int minY = (int) Math.round(sourceBounds.getMinY() * verticalScale);
+        int maxX = (int) Math.round(sourceBounds.getMaxX() * horizontalScale);
+        int maxY = (int) Math.round(sourceBounds.getMaxY() * verticalScale);
+
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledSize.width, scaledSize.height);
+        return new Rectangle(minX + drawingPoint.x, minY + drawingPoint.y, maxX - minX, maxY - minY);
+    }
+
+    private List<Object> getChildrenKeys() {
+        List<Object> childrenKeys = new ArrayList<>();
+        for (Layer layer : this.layers) {
+            Object childKey = layer.getRenderKey();
+            if (Objects.isNull(childKey)) {
+                return null;
+            }
+            childrenKeys.add(childKey);
+        }
+
+        return childrenKeys;
+    }
+
+    private Rectangle getChildrenBounds(int canvasWidth, int canvasHeight) {
+        Rectangle childrenBounds = new Rectangle();
+        for (Layer layer : this.layers) {
+            Rectangle layerBounds = layer.getBounds(canvasWidth, canvasHeight);
+            if (layerBounds.isEmpty()) {
+                continue;
+            }
+            childrenBounds = childrenBounds.isEmpty() ? layerBounds : childrenBounds.union(layerBounds);
+        }
+
+        return childrenBounds;
     }
 }
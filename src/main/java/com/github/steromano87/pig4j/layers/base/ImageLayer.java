@@ -1,23 +1,46 @@
 package com.github.steromano87.pig4j.layers.base;
 
+import com.github.steromano87.pig4j.cache.ImageCache;
+import com.github.steromano87.pig4j.cache.ImageSource;
+import com.github.steromano87.pig4j.cache.ScaledImageCache;
 import com.github.steromano87.pig4j.exceptions.ImageReadingException;
 import com.github.steromano87.pig4j.layers.Layer;
 import com.github.steromano87.pig4j.options.BlendingOptions;
 import com.github.steromano87.pig4j.options.PositionOptions;
 import com.github.steromano87.pig4j.options.ScalingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
 
-import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+/**
+ * Layer that blends an image loaded from a file, a URL or a Base64 string
+ * <p>
+ * Images are decoded lazily, when the layer is applied, through the shared {@link ImageCache}, so that layers
+ * referencing the same source share the same decoded image. Measuring the layer reads only the image header.
+ * <p>
+ * Since the target size is known when the layer is applied, the decoder skips the pixels that are not needed:
+ * images reduced to less than half their size are decoded with source subsampling, keeping at least twice
+ * the target resolution for the resampling filter, while images drawn at their original size are decoded
+ * only in the area that falls inside the canvas.
+ * Scaled images are kept in the shared {@link ScaledImageCache}, so the same source is resampled only once
+ * for each target size.
+ * <p>
+ * In a streamed rendering, images drawn at their original size are decoded stripe by stripe, reading only the rows
+ * of the source that fall inside each stripe and bypassing the image cache. Sources stored in strips or tiles,
+ * such as TIFF images, are read only where needed, while sequential formats are decoded up to the last row of
+ * each stripe. Scaled images and already decoded images are prepared as a whole.
+ */
 public class ImageLayer implements Layer {
     private BufferedImage sourceImage;
+    private ImageSource imageSource;
 
     private File imageFile;
     private URL imageUrl;
@@ -29,39 +52,28 @@ public class ImageLayer implements Layer {
 
     public ImageLayer setImageFile(File imageFile) {
         this.imageFile = imageFile;
-        try {
-            this.sourceImage = ImageIO.read(imageFile);
-        } catch (IOException exc) {
-            throw new ImageReadingException("Cannot read image from file", exc);
-        }
-
+        this.imageSource = ImageSource.ofFile(imageFile);
         return this;
     }
 
     public ImageLayer setImageUrl(URL imageUrl) {
         this.imageUrl = imageUrl;
-        try {
-            this.sourceImage = ImageIO.read(imageUrl);
-        } catch (IOException exc) {
-            throw new ImageReadingException("Cannot read image from URL", exc);
-        }
-
+        this.imageSource = ImageSource.ofUrl(imageUrl);
         return this;
     }
 
     public ImageLayer setImageBase64(String imageBase64) {
         this.imageBase64 = imageBase64;
-        try {
-            byte[] imageBytes = Base64.getDecoder().decode(imageBase64);
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(imageBytes);
-            this.sourceImage = ImageIO.read(inputStream);
-        } catch (IOException exc) {
-            throw new ImageReadingException("Cannot decode Base64 string as image", exc);
-        }
-
+        this.imageSource = ImageSource.ofBase64(imageBase64);
         return this;
     }
 
+    /**
+     * Sets an already decoded image as the layer source
+     *
+     * @param sourceImage the source image, that must not be modified after being set
+     * @return the image layer instance
+     */
     public ImageLayer setSourceImage(BufferedImage sourceImage) {
         this.sourceImage = sourceImage;
         return this;
@@ -94,29 +106,229 @@ public class ImageLayer implements Layer {
         return this;
     }
 
+    @Override
+    public boolean isNoOp() {
+        return this.blendingOptions.getAlpha() <= 0.0f;
+    }
+
+    @Override
+    public Object getRenderKey() {
+        return Arrays.asList(
+                ImageLayer.class,
+                this.getSourceKey(),
+                this.scalingOptions.getRenderKey(),
+                this.positionOptions.getRenderKey(),
+                this.blendingOptions.getRenderKey()
+        );
+    }
+
     @Override
     public BufferedImage apply(BufferedImage image) {
+        BufferedImage outputImage = ImageUtils.copyRegion(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        this.applyInPlace(new RenderTarget(outputImage));
+        return outputImage;
+    }
+
+    @Override
+    public Rectangle getBounds(int canvasWidth, int canvasHeight) {
         this.checkStateConsistency();
-        return this.blendingOptions.apply(
-                image,
-                this.positionOptions.apply(
-                        image,
-                        this.scalingOptions.apply(this.sourceImage)
-                )
-        );
+        Dimension sourceSize = this.getSourceSize();
+        Dimension scaledSize = this.scalingOptions.getScaledSize(sourceSize.width, sourceSize.height);
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledSize.width, scaledSize.height);
+        return new Rectangle(drawingPoint, scaledSize);
+    }
+
+    @Override
+    public Layer prepare(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        Placement placement = this.place(canvasWidth, canvasHeight);
+        return new RasterLayer(placement.image, placement.x, placement.y, this.blendingOptions);
+    }
+
+    @Override
+    public Layer prepareForStripes(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        this.checkStateConsistency();
+        if (!Objects.isNull(this.sourceImage)) {
+            return this.prepare(canvasWidth, canvasHeight, hasAlphaChannel);
+        }
+
+        Dimension sourceSize = this.getSourceSize();
+        Dimension scaledSize = this.scalingOptions.getScaledSize(sourceSize.width, sourceSize.height);
+        if (!scaledSize.equals(sourceSize)) {
+            return this.prepare(canvasWidth, canvasHeight, hasAlphaChannel);
+        }
+
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledSize.width, scaledSize.height);
+        return new SourceRegionLayer(this.imageSource, new Rectangle(drawingPoint, sourceSize), this.blendingOptions);
+    }
+
+    @Override
+    public void applyInPlace(RenderTarget target) {
+        this.prepare(
+                target.getCanvasWidth(),
+                target.getCanvasHeight(),
+                target.getImage().getColorModel().hasAlpha()
+        ).applyInPlace(target);
+    }
+
+    private Placement place(int canvasWidth, int canvasHeight) {
+        this.checkStateConsistency();
+        Dimension sourceSize = this.getSourceSize();
+        Dimension scaledSize = this.scalingOptions.getScaledSize(sourceSize.width, sourceSize.height);
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledSize.width, scaledSize.height);
+
+        if (!Objects.isNull(this.sourceImage)) {
+            BufferedImage scaledImage = ScaledImageCache.getShared().getScaled(this.sourceImage, this.scalingOptions);
+            return new Placement(scaledImage, drawingPoint.x, drawingPoint.y);
+        }
+
+        // Images drawn at their size are decoded only where they overlap the canvas
+        if (scaledSize.equals(sourceSize)) {
+            Rectangle imageBounds = new Rectangle(drawingPoint, scaledSize);
+            Rectangle visibleBounds = imageBounds.intersection(new Rectangle(0, 0, canvasWidth, canvasHeight));
+            if (visibleBounds.isEmpty() || visibleBounds.equals(imageBounds)) {
+                return new Placement(this.decode(1, null), drawingPoint.x, drawingPoint.y);
+            }
+
+            Rectangle sourceRegion = new Rectangle(visibleBounds);
+            sourceRegion.translate(-drawingPoint.x, -drawingPoint.y);
+            return new Placement(this.decode(1, sourceRegion), visibleBounds.x, visibleBounds.y);
+        }
+
+        // Reduced images are subsampled while decoding, then resampled to the exact target size
+        int subsampling = 1;
+        if (scaledSize.width > 0 && scaledSize.height > 0) {
+            int reduction = Math.min(sourceSize.width / scaledSize.width, sourceSize.height / scaledSize.height);
+            subsampling = Math.max(1, reduction / 2);
+        }
+        ScalingOptions targetScalingOptions = new ScalingOptions()
+                .setWidth(scaledSize.width)
+                .setHeight(scaledSize.height)
+                .setAlgorithm(this.scalingOptions.getAlgorithm());
+        BufferedImage scaledImage = ScaledImageCache.getShared().getScaled(this.decode(subsampling, null), targetScalingOptions);
+        return new Placement(scaledImage, drawingPoint.x, drawingPoint.y);
+    }
+
+    private Object getSourceKey() {
+        if (!Objects.isNull(this.sourceImage) || Objects.isNull(this.imageSource)) {
+            return this.sourceImage;
+        }
+
+        try {
+            return this.imageSource.getKey();
+        } catch (IOException exc) {
+            throw new ImageReadingException("Cannot read image from " + this.imageSource.getDescription(), exc);
+        }
+    }
+
+    private Dimension getSourceSize() {
+        if (!Objects.isNull(this.sourceImage)) {
+            return new Dimension(this.sourceImage.getWidth(), this.sourceImage.getHeight());
+        }
+
+        Dimension sourceSize;
+        try {
+            sourceSize = ImageCache.getShared().getSize(this.imageSource);
+        } catch (IOException exc) {
+            throw new ImageReadingException("Cannot read image from " + this.imageSource.getDescription(), exc);
+        }
+
+        if (Objects.isNull(sourceSize)) {
+            throw new ImageReadingException("Unsupported image format in " + this.imageSource.getDescription());
+        }
+        return sourceSize;
+    }
+
+    private BufferedImage decode(int subsampling, Rectangle region) {
+        BufferedImage decodedImage;
+        try {
+            decodedImage = ImageCache.getShared().get(this.imageSource, subsampling, region);
+        } catch (IOException exc) {
+            throw new ImageReadingException("Cannot read image from " + this.imageSource.getDescription(), exc);
+        }
+
+        return checkDecoded(decodedImage, this.imageSource);
+    }
+
+    private static BufferedImage checkDecoded(BufferedImage decodedImage, ImageSource imageSource) {
+        if (Objects.isNull(decodedImage)) {
+            throw new ImageReadingException("Unsupported image format in " + imageSource.getDescription());
+        }
+        return decodedImage;
     }
 
     private void checkStateConsistency() {
-        if (Stream.of(this.imageFile, this.imageUrl, this.imageBase64).allMatch(Objects::isNull)) {
+        if (Stream.of(this.imageFile, this.imageUrl, this.imageBase64, this.sourceImage).allMatch(Objects::isNull)) {
             throw new IllegalStateException(
-                    "One value between image file, image URL and image Base64 should not be null"
+                    "One value between image file, image URL, image Base64 and source image should not be null"
             );
         }
 
-        if (Stream.of(this.imageFile, this.imageUrl, this.imageBase64).filter(Objects::nonNull).count() > 1) {
+        if (Stream.of(this.imageFile, this.imageUrl, this.imageBase64, this.sourceImage).filter(Objects::nonNull).count() > 1) {
             throw new IllegalStateException(
-                    "Only one value between image file, image URL and image Base64 can be specified"
+                    "Only one value between image file, image URL, image Base64 and source image can be specified"
             );
         }
     }
+
+    /**
+     * Image drawn at its original size, whose pixels are decoded only in the region covered by each render target
+     */
+    private static final class SourceRegionLayer implements Layer {
+        private final ImageSource imageSource;
+        private final Rectangle bounds;
+        private final BlendingOptions blendingOptions;
+
+        private SourceRegionLayer(ImageSource imageSource, Rectangle bounds, BlendingOptions blendingOptions) {
+            this.imageSource = imageSource;
+            this.bounds = bounds;
+            this.blendingOptions = blendingOptions;
+        }
+
+        @Override
+        public BufferedImage apply(BufferedImage image) {
+            BufferedImage outputImage = ImageUtils.copyRegion(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+            this.applyInPlace(new RenderTarget(outputImage));
+            return outputImage;
+        }
+
+        @Override
+        public Rectangle getBounds(int canvasWidth, int canvasHeight) {
+            return new Rectangle(this.bounds);
+        }
+
+        @Override
+        public void applyInPlace(RenderTarget target) {
+            Rectangle region = this.bounds.intersection(target.getRegion());
+            if (region.isEmpty()) {
+                return;
+            }
+
+            Rectangle sourceRegion = new Rectangle(region);
+            sourceRegion.translate(-this.bounds.x, -this.bounds.y);
+            BufferedImage regionImage;
+            try {
+                regionImage = ImageCache.readRegion(this.imageSource, sourceRegion);
+            } catch (IOException exc) {
+                throw new ImageReadingException("Cannot read image from " + this.imageSource.getDescription(), exc);
+            }
+
+            new RasterLayer(checkDecoded(regionImage, this.imageSource), region.x, region.y, this.blendingOptions)
+                    .applyInPlace(target);
+        }
+    }
+
+    /**
+     * Image ready to be blended, with the position of its top left corner on the canvas
+     */
+    private static final class Placement {
+        private final BufferedImage image;
+        private final int x;
+        private final int y;
+
+        private Placement(BufferedImage image, int x, int y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+    }
 }
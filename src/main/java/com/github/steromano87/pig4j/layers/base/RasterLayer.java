@@ -0,0 +1,69 @@
+package com.github.steromano87.pig4j.layers.base;
+
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Layer that blends an already rendered raster at a fixed position of the canvas
+ * <p>
+ * Raster layers are the output of {@link Layer#prepare(int, int, boolean)}: the raster is rendered once
+ * and then blended on every render target the layer is applied to.
+ */
+public class RasterLayer implements Layer {
+    private final BufferedImage raster;
+    private final int x;
+    private final int y;
+    private final BlendingOptions blendingOptions;
+
+    /**
+     * Creates a new raster layer
+     *
+     * @param raster          the rendered raster
+     * @param x               the horizontal position of the raster, expressed in canvas coordinates
+     * @param y               the vertical position of the raster, expressed in canvas coordinates
+     * @param blendingOptions the options used to blend the raster on the underlying image
+     */
+    public RasterLayer(BufferedImage raster, int x, int y, BlendingOptions blendingOptions) {
+        this.raster = ImageUtils.toIntArgb(raster);
+        this.x = x;
+        this.y = y;
+        this.blendingOptions = blendingOptions;
+    }
+
+    public BufferedImage getRaster() {
+        return this.raster;
+    }
+
+    @Override
+    public boolean isNoOp() {
+        return this.blendingOptions.getAlpha() <= 0.0f;
+    }
+
+    @Override
+    public Object getRenderKey() {
+        return Arrays.asList(RasterLayer.class, this.raster, this.x, this.y, this.blendingOptions.getRenderKey());
+    }
+
+    @Override
+    public BufferedImage apply(BufferedImage image) {
+        BufferedImage outputImage = ImageUtils.copyRegion(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        this.applyInPlace(new RenderTarget(outputImage));
+        return outputImage;
+    }
+
+    @Override
+    public Rectangle getBounds(int canvasWidth, int canvasHeight) {
+        return new Rectangle(this.x, this.y, this.raster.getWidth(), this.raster.getHeight());
+    }
+
+    @Override
+    public void applyInPlace(RenderTarget target) {
+        this.blendingOptions.applyInPlace(target, this.raster, this.x, this.y);
+    }
+}
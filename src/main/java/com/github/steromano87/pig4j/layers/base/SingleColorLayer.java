@@ -2,9 +2,12 @@ package com.github.steromano87.pig4j.layers.base;
 
 import com.github.steromano87.pig4j.layers.Layer;
 import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 public class SingleColorLayer implements Layer {
     private Color color;
@@ -21,18 +24,41 @@ public class SingleColorLayer implements Layer {
         return this;
     }
 
+    public Color getColor() {
+        return this.color;
+    }
+
+    public BlendingOptions getFusionOptions() {
+        return this.blendingOptions;
+    }
+
     @Override
-    public BufferedImage apply(BufferedImage image) {
-        boolean hasTransparency = this.color.getAlpha() < 255;
-        int imageType = hasTransparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
-        BufferedImage outputImage = new BufferedImage(image.getWidth(), image.getHeight(), imageType);
+    public boolean isNoOp() {
+        return this.color.getAlpha() == 0 || this.blendingOptions.getAlpha() <= 0.0f;
+    }
+
+    @Override
+    public boolean isOpaqueCover(int canvasWidth, int canvasHeight) {
+        return this.color.getAlpha() == 255 &&
+                this.blendingOptions.getAlpha() >= 1.0f &&
+                this.blendingOptions.getMethod() == BlendingOptions.Method.NORMAL;
+    }
+
+    @Override
+    public Object getRenderKey() {
+        return Arrays.asList(SingleColorLayer.class, this.color, this.blendingOptions.getRenderKey());
+    }
 
-        Graphics2D graphics2D = outputImage.createGraphics();
-        graphics2D.setColor(this.color);
-        graphics2D.fillRect(0, 0, outputImage.getWidth(), outputImage.getHeight());
-        graphics2D.dispose();
+    @Override
+    public BufferedImage apply(BufferedImage image) {
+        // The input image is left untouched, the color is blended on a copy without allocating a color image
+        BufferedImage outputImage = ImageUtils.copyRegion(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        this.blendingOptions.fillInPlace(new RenderTarget(outputImage), this.color);
+        return outputImage;
+    }
 
-        // Apply fusion options
-        return this.blendingOptions.apply(image, outputImage);
+    @Override
+    public void applyInPlace(RenderTarget target) {
+        this.blendingOptions.fillInPlace(target, this.color);
     }
 }
@@ -1,14 +1,21 @@
 package com.github.steromano87.pig4j.layers.base;
 
+import com.github.steromano87.pig4j.cache.ScaledImageCache;
+import com.github.steromano87.pig4j.cache.TextCache;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
 import com.github.steromano87.pig4j.layers.Layer;
 import com.github.steromano87.pig4j.options.BlendingOptions;
 import com.github.steromano87.pig4j.options.PositionOptions;
 import com.github.steromano87.pig4j.options.ScalingOptions;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+import com.github.steromano87.pig4j.rendering.TextBlock;
 
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
 
 public class TextLayer implements Layer {
     private String text;
@@ -17,6 +24,11 @@ public class TextLayer implements Layer {
     private Integer fontType = Font.PLAIN;
     private Color color = Color.BLACK;
 
+    private Integer maxWidth;
+    private Integer maxHeight;
+    private Alignment alignment = Alignment.LEFT;
+    private boolean autoFit = false;
+
     private ScalingOptions scalingOptions = new ScalingOptions();
     private PositionOptions positionOptions = new PositionOptions();
     private BlendingOptions blendingOptions = new BlendingOptions();
@@ -46,6 +58,50 @@ public class TextLayer implements Layer {
         return this;
     }
 
+    /**
+     * Sets the maximum width of the text box, wrapping the text on word boundaries
+     * <p>
+     * When the maximum width is set, the text box is always as wide as the maximum width
+     * and the lines are aligned inside it.
+     *
+     * @param maxWidth the maximum width of the text box, expressed in pixels, or null to disable wrapping
+     * @return the text layer instance
+     */
+    public TextLayer setMaxWidth(Integer maxWidth) {
+        this.maxWidth = maxWidth;
+        return this;
+    }
+
+    /**
+     * Sets the maximum height of the text box, dropping the lines that do not fit
+     *
+     * @param maxHeight the maximum height of the text box, expressed in pixels, or null for no limit
+     * @return the text layer instance
+     */
+    public TextLayer setMaxHeight(Integer maxHeight) {
+        this.maxHeight = maxHeight;
+        return this;
+    }
+
+    public TextLayer setAlignment(Alignment alignment) {
+        this.alignment = alignment;
+        return this;
+    }
+
+    /**
+     * Enables the automatic font sizing
+     * <p>
+     * When enabled, the font size is treated as the largest allowed size, and the text is drawn with the largest size
+     * that fits the maximum width and height without dropping lines.
+     *
+     * @param autoFit whether the font size should be reduced to fit the text box or not
+     * @return the text layer instance
+     */
+    public TextLayer setAutoFit(boolean autoFit) {
+        this.autoFit = autoFit;
+        return this;
+    }
+
     public String getText() {
         return text;
     }
@@ -66,6 +122,22 @@ public class TextLayer implements Layer {
         return color;
     }
 
+    public Integer getMaxWidth() {
+        return maxWidth;
+    }
+
+    public Integer getMaxHeight() {
+        return maxHeight;
+    }
+
+    public Alignment getAlignment() {
+        return alignment;
+    }
+
+    public boolean isAutoFit() {
+        return autoFit;
+    }
+
     public TextLayer setScalingOptions(ScalingOptions scalingOptions) {
         this.scalingOptions = scalingOptions;
         return this;
@@ -81,33 +153,149 @@ public class TextLayer implements Layer {
         return this;
     }
 
+    @Override
+    public boolean isNoOp() {
+        return this.blendingOptions.getAlpha() <= 0.0f;
+    }
+
+    @Override
+    public Object getRenderKey() {
+        return Arrays.asList(
+                TextLayer.class,
+                this.text,
+                this.fontName,
+                this.fontSize,
+                this.fontType,
+                this.color,
+                this.maxWidth,
+                this.maxHeight,
+                this.alignment,
+                this.autoFit,
+                this.scalingOptions.getRenderKey(),
+                this.positionOptions.getRenderKey(),
+                this.blendingOptions.getRenderKey()
+        );
+    }
+
     @Override
     public BufferedImage apply(BufferedImage image) {
-        boolean hasTransparency = this.getColor().getAlpha() < 255;
-        int imageType = hasTransparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
-
-        // Calculate the text box size
-        AffineTransform affinetransform = new AffineTransform();
-        FontRenderContext frc = new FontRenderContext(affinetransform, true, true);
-        Font font = new Font(this.fontName, this.fontType, this.fontSize);
-        int textWidth = (int) Math.round(font.getStringBounds(this.text, frc).getWidth());
-        int textHeight = (int) Math.round(font.getStringBounds(this.text, frc).getHeight());
-
-        // Create empty canvas based on the calculated rendered text box
-        BufferedImage textImage = new BufferedImage(textWidth, textHeight, imageType);
-        Graphics2D graphics2D = textImage.createGraphics();
-        graphics2D.setColor(this.getColor());
-        graphics2D.setFont(font);
-        graphics2D.drawString(this.getText(), 0, 0);
-        graphics2D.dispose();
-
-        // Apply the options to blend the text with the background image
-        return this.blendingOptions.apply(
-                image,
-                this.positionOptions.apply(
-                        image,
-                        this.scalingOptions.apply(textImage)
-                )
+        BufferedImage outputImage = ImageUtils.copyRegion(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        this.applyInPlace(new RenderTarget(outputImage));
+        return outputImage;
+    }
+
+    @Override
+    public Rectangle getBounds(int canvasWidth, int canvasHeight) {
+        TextBlock textBlock = this.layOutText();
+        Dimension scaledSize = this.scalingOptions.getScaledSize(getImageWidth(textBlock), getImageHeight(textBlock));
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledSize.width, scaledSize.height);
+        return new Rectangle(drawingPoint, scaledSize);
+    }
+
+    @Override
+    public Layer prepare(int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        BufferedImage scaledImage = ScaledImageCache.getShared().getScaled(this.renderText(), this.scalingOptions);
+        Point drawingPoint = this.positionOptions.getDrawingPoint(scaledImage.getWidth(), scaledImage.getHeight());
+        return new RasterLayer(scaledImage, drawingPoint.x, drawingPoint.y, this.blendingOptions);
+    }
+
+    @Override
+    public void applyInPlace(RenderTarget target) {
+        this.prepare(
+                target.getCanvasWidth(),
+                target.getCanvasHeight(),
+                target.getImage().getColorModel().hasAlpha()
+        ).applyInPlace(target);
+    }
+
+    private BufferedImage renderText() {
+        // Layouts do not depend on the color, hence only the drawing is repeated when the color changes
+        TextBlock textBlock = this.layOutText();
+        Color color = this.getColor();
+        return TextCache.getShared().getImage(
+                Arrays.asList(textBlock, color),
+                () -> renderText(textBlock, color)
         );
     }
+
+    private static BufferedImage renderText(TextBlock textBlock, Color color) {
+        int width = getImageWidth(textBlock);
+        int height = getImageHeight(textBlock);
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.RASTERIZE, (long) width * height)) {
+            BufferedImage textImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics2D = textImage.createGraphics();
+            graphics2D.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            graphics2D.setColor(color);
+            textBlock.draw(graphics2D, 0, 0);
+            graphics2D.dispose();
+
+            return textImage;
+        }
+    }
+
+    private TextBlock layOutText() {
+        TextCache textCache = TextCache.getShared();
+        if (!this.autoFit || (Objects.isNull(this.maxWidth) && Objects.isNull(this.maxHeight))) {
+            return textCache.getLayout(this.text, this.createFont(this.fontSize), this.maxWidth, this.maxHeight, this.alignment);
+        }
+
+        // Binary search of the largest font size that fits the box, every probe is a cached layout
+        TextBlock fittingBlock = null;
+        int lowerSize = 1;
+        int upperSize = this.fontSize;
+        while (lowerSize <= upperSize) {
+            int size = (lowerSize + upperSize) >>> 1;
+            TextBlock textBlock = textCache.getLayout(this.text, this.createFont(size), this.maxWidth, this.maxHeight, this.alignment);
+            if (textBlock.fits(this.maxWidth, this.maxHeight)) {
+                fittingBlock = textBlock;
+                lowerSize = size + 1;
+            } else {
+                upperSize = size - 1;
+            }
+        }
+
+        return Objects.isNull(fittingBlock)
+                ? textCache.getLayout(this.text, this.createFont(1), this.maxWidth, this.maxHeight, this.alignment)
+                : fittingBlock;
+    }
+
+    private Font createFont(int size) {
+        return TextCache.getShared().getFont(this.fontName, this.fontType, size);
+    }
+
+    private static int getImageWidth(TextBlock textBlock) {
+        // Images cannot be empty
+        return Math.max(1, textBlock.getWidth());
+    }
+
+    private static int getImageHeight(TextBlock textBlock) {
+        return Math.max(1, textBlock.getHeight());
+    }
+
+    /**
+     * Horizontal alignment of the lines inside the text box
+     */
+    public enum Alignment {
+        LEFT(0.0f),
+        CENTER(0.5f),
+        RIGHT(1.0f);
+
+        private final float factor;
+
+        Alignment(float factor) {
+            this.factor = factor;
+        }
+
+        /**
+         * Calculates the horizontal position of a line inside the text box
+         *
+         * @param boxWidth  the width of the text box, expressed in pixels
+         * @param lineWidth the width of the line, expressed in pixels
+         * @return the horizontal offset of the line from the left side of the box
+         */
+        public float getOffset(float boxWidth, float lineWidth) {
+            return (boxWidth - lineWidth) * this.factor;
+        }
+    }
 }
@@ -1,28 +1,61 @@
 package com.github.steromano87.pig4j.options;
 
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+import com.github.steromano87.pig4j.rendering.CompositingKernels;
+import com.github.steromano87.pig4j.rendering.ImageUtils;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.Objects;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Class that holds options used to blend two images together
+ * <p>
+ * Blending options are thread-safe: the option values are read once per call and never modified while blending,
+ * so the same instance can be shared by concurrent renders.
+ * <p>
+ * Images in the ARGB or RGB integer layouts are blended by the {@link CompositingKernels},
+ * while any other layout falls back to Java2D.
+ * <p>
+ * Layers are blended with the source-atop rule, which keeps the alpha of the background, except on isolated render
+ * targets (see {@link RenderTarget#isIsolated()}), where the source-over rule adds the foreground alpha.
  */
 public class BlendingOptions {
     private float alpha = 1.0f;
 
     private Method method = Method.NORMAL;
 
-    public BlendingOptions setAlpha(float alpha) {
+    public synchronized BlendingOptions setAlpha(float alpha) {
         this.alpha = alpha;
         return this;
     }
 
-    public BlendingOptions setMethod(Method method) {
+    public synchronized BlendingOptions setMethod(Method method) {
         this.method = method;
         return this;
     }
 
+    public synchronized float getAlpha() {
+        return this.alpha;
+    }
+
+    public synchronized Method getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns a snapshot of the current option values, to be used as part of a layer render key
+     *
+     * @return the option values
+     * @see com.github.steromano87.pig4j.layers.Layer#getRenderKey()
+     */
+    public synchronized List<Object> getRenderKey() {
+        return Arrays.asList(this.alpha, this.method);
+    }
+
     /**
      * Blends two images together
      *
@@ -31,20 +64,189 @@ public class BlendingOptions {
      * @return the blended image
      */
     public BufferedImage apply(BufferedImage bgImage, BufferedImage fgImage) {
-        boolean hasTransparency = bgImage.getColorModel().hasAlpha();
-        int imageType = hasTransparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
-        BufferedImage outputImage = new BufferedImage(bgImage.getWidth(), bgImage.getHeight(), imageType);
+        long pixels = (long) bgImage.getWidth() * bgImage.getHeight();
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.BLEND, pixels)) {
+            Method method;
+            float alpha;
+            synchronized (this) {
+                method = this.method;
+                alpha = this.alpha;
+            }
+            boolean hasTransparency = bgImage.getColorModel().hasAlpha();
+            int imageType = hasTransparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            BufferedImage outputImage = new BufferedImage(bgImage.getWidth(), bgImage.getHeight(), imageType);
+            Rectangle outputBounds = new Rectangle(0, 0, outputImage.getWidth(), outputImage.getHeight());
+            if (bgImage.getType() == imageType && CompositingKernels.supports(bgImage)) {
+                CompositingKernels.copy(bgImage, 0, 0, outputImage, outputBounds);
+            } else {
+                Graphics2D graphics2D = outputImage.createGraphics();
+                graphics2D.drawImage(bgImage, 0, 0, null);
+                graphics2D.dispose();
+            }
+
+            BufferedImage argbImage = ImageUtils.toIntArgb(fgImage);
+            Rectangle blendingArea = outputBounds.intersection(new Rectangle(0, 0, argbImage.getWidth(), argbImage.getHeight()));
+            if (!blendingArea.isEmpty()) {
+                CompositingKernels.blendSourceAtop(argbImage, 0, 0, outputImage, blendingArea, method, alpha);
+            }
+
+            return outputImage;
+        }
+    }
+
+    /**
+     * Blends a foreground image directly on a render target
+     * <p>
+     * Only the area covered by the foreground image is touched, so no canvas-sized image is allocated.
+     * Foreground images that do not use the ARGB integer layout are converted first, so that the result is the same
+     * obtained when blending a positioned foreground through {@link #apply(BufferedImage, BufferedImage)}.
+     *
+     * @param target  the render target, acting as background
+     * @param fgImage the foreground image
+     * @param x       the horizontal position of the foreground image, expressed in canvas coordinates
+     * @param y       the vertical position of the foreground image, expressed in canvas coordinates
+     */
+    public void applyInPlace(RenderTarget target, BufferedImage fgImage, int x, int y) {
+        long pixels = (long) fgImage.getWidth() * fgImage.getHeight();
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.BLEND, pixels)) {
+            Method method;
+            float alpha;
+            synchronized (this) {
+                method = this.method;
+                alpha = this.alpha;
+            }
+            BufferedImage argbImage = ImageUtils.toIntArgb(fgImage);
+            Rectangle fgBounds = new Rectangle(x, y, argbImage.getWidth(), argbImage.getHeight());
+            Rectangle blendingArea = fgBounds.intersection(target.getRegion());
+            if (blendingArea.isEmpty()) {
+                return;
+            }
+
+            BufferedImage targetImage = target.getImage();
+            if (CompositingKernels.supports(targetImage)) {
+                blendArea(
+                        target,
+                        argbImage,
+                        blendingArea.x - x,
+                        blendingArea.y - y,
+                        targetImage,
+                        toImageArea(target, blendingArea),
+                        method,
+                        alpha
+                );
+                return;
+            }
 
-        Graphics2D graphics2D = outputImage.createGraphics();
-        graphics2D.drawImage(bgImage, 0, 0, null);
+            if (method != Method.NORMAL) {
+                BufferedImage blendedImage = ImageUtils.toIntArgb(targetImage);
+                blendArea(
+                        target,
+                        argbImage,
+                        blendingArea.x - x,
+                        blendingArea.y - y,
+                        blendedImage,
+                        toImageArea(target, blendingArea),
+                        method,
+                        alpha
+                );
+                replaceImage(target, blendedImage, blendingArea);
+                return;
+            }
 
-        // TODO: set the various fusion options
-        AlphaComposite alphaComposite = AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, this.alpha);
-        graphics2D.setComposite(alphaComposite);
-        graphics2D.drawImage(fgImage, 0, 0, null);
+            Graphics2D graphics2D = target.createGraphics(fgBounds);
+            graphics2D.setComposite(getComposite(target, alpha));
+            graphics2D.drawImage(argbImage, x, y, null);
+            graphics2D.dispose();
+        }
+    }
+
+    /**
+     * Blends a solid color directly on a render target
+     *
+     * @param target the render target, acting as background
+     * @param color  the color to blend
+     */
+    public void fillInPlace(RenderTarget target, Color color) {
+        long pixels = (long) target.getImage().getWidth() * target.getImage().getHeight();
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.BLEND, pixels)) {
+            Method method;
+            float alpha;
+            synchronized (this) {
+                method = this.method;
+                alpha = this.alpha;
+            }
+            BufferedImage targetImage = target.getImage();
+            Rectangle imageBounds = new Rectangle(0, 0, targetImage.getWidth(), targetImage.getHeight());
+            if (CompositingKernels.supports(targetImage)) {
+                fillArea(target, targetImage, imageBounds, color.getRGB(), method, alpha);
+                return;
+            }
+
+            if (method != Method.NORMAL) {
+                BufferedImage blendedImage = ImageUtils.toIntArgb(targetImage);
+                fillArea(target, blendedImage, imageBounds, color.getRGB(), method, alpha);
+                replaceImage(target, blendedImage, target.getRegion());
+                return;
+            }
+
+            Rectangle canvasBounds = new Rectangle(0, 0, target.getCanvasWidth(), target.getCanvasHeight());
+            Graphics2D graphics2D = target.createGraphics(canvasBounds);
+            graphics2D.setComposite(getComposite(target, alpha));
+            graphics2D.setColor(color);
+            graphics2D.fill(canvasBounds);
+            graphics2D.dispose();
+        }
+    }
+
+    private static Rectangle toImageArea(RenderTarget target, Rectangle canvasArea) {
+        Rectangle imageArea = new Rectangle(canvasArea);
+        imageArea.translate(-target.getOriginX(), -target.getOriginY());
+        return imageArea;
+    }
+
+    private static void replaceImage(RenderTarget target, BufferedImage image, Rectangle area) {
+        // Blending methods are not supported by Java2D: the target is blended on an ARGB copy, then replaced
+        Graphics2D graphics2D = target.createGraphics(area);
+        graphics2D.setComposite(AlphaComposite.Src);
+        graphics2D.drawImage(image, target.getOriginX(), target.getOriginY(), null);
         graphics2D.dispose();
+    }
+
+    private static void blendArea(
+            RenderTarget target,
+            BufferedImage source,
+            int sourceX,
+            int sourceY,
+            BufferedImage destination,
+            Rectangle area,
+            Method method,
+            float alpha
+    ) {
+        if (target.isIsolated()) {
+            CompositingKernels.blendSourceOver(source, sourceX, sourceY, destination, area, method, alpha);
+        } else {
+            CompositingKernels.blendSourceAtop(source, sourceX, sourceY, destination, area, method, alpha);
+        }
+    }
+
+    private static void fillArea(
+            RenderTarget target,
+            BufferedImage destination,
+            Rectangle area,
+            int argb,
+            Method method,
+            float alpha
+    ) {
+        if (target.isIsolated()) {
+            CompositingKernels.fillSourceOver(destination, area, argb, method, alpha);
+        } else {
+            CompositingKernels.fillSourceAtop(destination, area, argb, method, alpha);
+        }
+    }
 
-        return outputImage;
+    private static AlphaComposite getComposite(RenderTarget target, float alpha) {
+        int rule = target.isIsolated() ? AlphaComposite.SRC_OVER : AlphaComposite.SRC_ATOP;
+        return AlphaComposite.getInstance(rule, alpha);
     }
 
     @Override
@@ -52,22 +254,58 @@ public class BlendingOptions {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BlendingOptions that = (BlendingOptions) o;
-        return Float.compare(that.alpha, alpha) == 0 &&
-                method == that.method;
+        return this.getRenderKey().equals(that.getRenderKey());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(alpha, method);
+        return this.getRenderKey().hashCode();
     }
 
     /**
      * Blending method used while joining images
+     * <p>
+     * Each method combines the foreground color (Cs) and the background color (Cb) channel by channel,
+     * with channel values ranging from 0.0 to 1.0.
      *
-     * WIP: currently only the NORMAL method is implicitly used
+     * @link https://www.w3.org/TR/compositing-1/#blending
      */
     public enum Method {
+        /**
+         * Cs
+         */
         NORMAL,
-        SUBTRACT
+        /**
+         * Cs * Cb
+         */
+        MULTIPLY,
+        /**
+         * Cs + Cb - Cs * Cb
+         */
+        SCREEN,
+        /**
+         * MULTIPLY or SCREEN, depending on the background color
+         */
+        OVERLAY,
+        /**
+         * min(Cs, Cb)
+         */
+        DARKEN,
+        /**
+         * max(Cs, Cb)
+         */
+        LIGHTEN,
+        /**
+         * min(1, Cs + Cb)
+         */
+        ADD,
+        /**
+         * max(0, Cb - Cs)
+         */
+        SUBTRACT,
+        /**
+         * |Cb - Cs|
+         */
+        DIFFERENCE
     }
 }
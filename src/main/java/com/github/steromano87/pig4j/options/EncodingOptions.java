@@ -0,0 +1,206 @@
+package com.github.steromano87.pig4j.options;
+
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Class that holds the options used to encode an image in a given format
+ * <p>
+ * Options are applied through the {@link ImageWriteParam} of the encoder, and only when the encoder supports them:
+ * the same instance can hence be used for several formats (e.g. a "fast preview" or an "archive" preset).
+ * Options that are not set keep the encoder defaults.
+ * <p>
+ * The compression quality ranges from 0.0 (highest compression) to 1.0 (highest quality): it is the quality
+ * for JPEG images, it is mapped on the deflate level for PNG images and it is passed as is to the selected
+ * TIFF compression. Formats that support several compression types (TIFF, BMP) require one of them to be set
+ * as compression type, while formats with a single compression type (JPEG, PNG, GIF) always use their own.
+ * <p>
+ * The PNG filter is used only by the pig4j PNG encoder, since the default PNG encoder always chooses
+ * the filter of each scanline adaptively.
+ */
+public class EncodingOptions {
+    private static final int MAX_DEFLATE_LEVEL = 9;
+
+    private String compressionType;
+
+    private Float compressionQuality;
+
+    private Boolean progressive;
+
+    private PngFilter pngFilter;
+
+    /**
+     * Sets the compression type, as named by the encoder (e.g. "LZW", "Deflate" or "PackBits" for TIFF images)
+     *
+     * @param compressionType the compression type
+     * @return the encoding options instance
+     */
+    public synchronized EncodingOptions setCompressionType(String compressionType) {
+        this.compressionType = compressionType;
+        return this;
+    }
+
+    public synchronized EncodingOptions setCompressionQuality(Float compressionQuality) {
+        if (!Objects.isNull(compressionQuality) && (compressionQuality < 0.0f || compressionQuality > 1.0f)) {
+            throw new IllegalArgumentException("Compression quality should be between 0.0 and 1.0");
+        }
+
+        this.compressionQuality = compressionQuality;
+        return this;
+    }
+
+    /**
+     * Sets the compression quality matching the given deflate level, used by PNG and deflate-compressed TIFF images
+     *
+     * @param deflateLevel the deflate level, from 0 (no compression) to 9 (highest compression)
+     * @return the encoding options instance
+     */
+    public synchronized EncodingOptions setDeflateLevel(int deflateLevel) {
+        if (deflateLevel < 0 || deflateLevel > MAX_DEFLATE_LEVEL) {
+            throw new IllegalArgumentException("Deflate level should be between 0 and " + MAX_DEFLATE_LEVEL);
+        }
+
+        this.compressionQuality = (float) (MAX_DEFLATE_LEVEL - deflateLevel) / MAX_DEFLATE_LEVEL;
+        return this;
+    }
+
+    /**
+     * Sets whether the image is encoded progressively (progressive JPEG, interlaced PNG and GIF)
+     *
+     * @param progressive true to enable the progressive encoding, false to disable it
+     * @return the encoding options instance
+     */
+    public synchronized EncodingOptions setProgressive(Boolean progressive) {
+        this.progressive = progressive;
+        return this;
+    }
+
+    /**
+     * Sets the filter applied to the scanlines of PNG images before compressing them
+     *
+     * @param pngFilter the PNG filter
+     * @return the encoding options instance
+     */
+    public synchronized EncodingOptions setPngFilter(PngFilter pngFilter) {
+        this.pngFilter = pngFilter;
+        return this;
+    }
+
+    public synchronized String getCompressionType() {
+        return this.compressionType;
+    }
+
+    public synchronized Float getCompressionQuality() {
+        return this.compressionQuality;
+    }
+
+    public synchronized Boolean getProgressive() {
+        return this.progressive;
+    }
+
+    public synchronized PngFilter getPngFilter() {
+        return this.pngFilter;
+    }
+
+    /**
+     * Returns the deflate level matching the compression quality
+     *
+     * @return the deflate level, from 0 (no compression) to 9 (highest compression), or null if the compression
+     * quality is not set
+     */
+    public synchronized Integer getDeflateLevel() {
+        if (Objects.isNull(this.compressionQuality)) {
+            return null;
+        }
+
+        return MAX_DEFLATE_LEVEL - Math.round(MAX_DEFLATE_LEVEL * this.compressionQuality);
+    }
+
+    /**
+     * Creates the write parameters that apply the current options on the given encoder
+     *
+     * @param imageWriter the encoder
+     * @return the write parameters, or null if no option is set
+     * @throws IllegalStateException if the encoder supports several compression types and none of them is selected
+     */
+    public synchronized ImageWriteParam createWriteParam(ImageWriter imageWriter) {
+        if (Stream.of(this.compressionType, this.compressionQuality, this.progressive).allMatch(Objects::isNull)) {
+            return null;
+        }
+
+        ImageWriteParam writeParam = imageWriter.getDefaultWriteParam();
+        if (!Objects.isNull(this.progressive) && writeParam.canWriteProgressive()) {
+            writeParam.setProgressiveMode(
+                    this.progressive ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED
+            );
+        }
+
+        boolean hasCompressionOptions = !Objects.isNull(this.compressionType) || !Objects.isNull(this.compressionQuality);
+        if (hasCompressionOptions && writeParam.canWriteCompressed()) {
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            String[] compressionTypes = writeParam.getCompressionTypes();
+            if (!Objects.isNull(compressionTypes)) {
+                writeParam.setCompressionType(this.selectCompressionType(compressionTypes));
+            }
+
+            if (!Objects.isNull(this.compressionQuality)) {
+                writeParam.setCompressionQuality(this.compressionQuality);
+            }
+        }
+
+        return writeParam;
+    }
+
+    private String selectCompressionType(String[] compressionTypes) {
+        if (Arrays.asList(compressionTypes).contains(this.compressionType)) {
+            return this.compressionType;
+        }
+
+        // Encoders with a single compression type use it regardless of the requested one
+        if (compressionTypes.length == 1) {
+            return compressionTypes[0];
+        }
+
+        throw new IllegalStateException(
+                "A compression type should be specified, choosing among " + Arrays.toString(compressionTypes)
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EncodingOptions that = (EncodingOptions) o;
+        return this.getValues().equals(that.getValues());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getValues().hashCode();
+    }
+
+    private synchronized List<Object> getValues() {
+        return Arrays.asList(this.compressionType, this.compressionQuality, this.progressive, this.pngFilter);
+    }
+
+    /**
+     * Filters applied to the scanlines of PNG images
+     *
+     * @link https://www.w3.org/TR/PNG/#9Filters
+     */
+    public enum PngFilter {
+        NONE,
+        SUB,
+        UP,
+        AVERAGE,
+        PAETH,
+        /**
+         * Chooses the filter of each scanline, using the minimum sum of absolute differences heuristic
+         */
+        ADAPTIVE
+    }
+}
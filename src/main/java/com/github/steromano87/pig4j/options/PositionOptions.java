@@ -1,8 +1,20 @@
 package com.github.steromano87.pig4j.options;
 
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+import com.github.steromano87.pig4j.rendering.CompositingKernels;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
-
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class that holds the options used to place an image on an existing canvas
+ * <p>
+ * Position options are thread-safe: the drawing point is resolved on each call from a consistent snapshot
+ * of the option values, so the same instance can be shared by concurrent renders.
+ */
 public class PositionOptions {
     private Hook imageHook = Hook.TOP_LEFT;
 
@@ -10,35 +22,113 @@ public class PositionOptions {
 
     private int y = 0;
 
-    public PositionOptions setX(int x) {
+    public synchronized PositionOptions setX(int x) {
         this.x = x;
         return this;
     }
 
-    public PositionOptions setY(int y) {
+    public synchronized PositionOptions setY(int y) {
         this.y = y;
         return this;
     }
 
-    public PositionOptions setImageHook(Hook imageHook) {
+    public synchronized PositionOptions setImageHook(Hook imageHook) {
         this.imageHook = imageHook;
         return this;
     }
 
+    public synchronized int getX() {
+        return this.x;
+    }
+
+    public synchronized int getY() {
+        return this.y;
+    }
+
+    public synchronized Hook getImageHook() {
+        return this.imageHook;
+    }
+
+    /**
+     * Returns a snapshot of the current option values, to be used as part of a layer render key
+     *
+     * @return the option values
+     * @see com.github.steromano87.pig4j.layers.Layer#getRenderKey()
+     */
+    public synchronized List<Object> getRenderKey() {
+        return Arrays.asList(this.x, this.y, this.imageHook);
+    }
+
+    /**
+     * Places a foreground image on a transparent image with the size of the background image
+     * <p>
+     * The returned image is canvas-sized, hence layers do not use this method: they blend their foreground directly
+     * on the canvas through {@link BlendingOptions#applyInPlace(com.github.steromano87.pig4j.rendering.RenderTarget,
+     * BufferedImage, int, int)}, touching only the area it covers.
+     *
+     * @param bgImage background image, that defines the size of the output
+     * @param fgImage foreground image
+     * @return the positioned foreground image
+     */
     public BufferedImage apply(BufferedImage bgImage, BufferedImage fgImage) {
-        // Initialize a canvas with size equal to the background image
-        BufferedImage outputImage = new BufferedImage(bgImage.getWidth(), bgImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        long pixels = (long) bgImage.getWidth() * bgImage.getHeight();
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.POSITION, pixels)) {
+            // Initialize a canvas with size equal to the background image
+            BufferedImage outputImage = new BufferedImage(bgImage.getWidth(), bgImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+            // Calculate start drawing point for the foreground image
+            Point startDrawingPoint = this.getDrawingPoint(fgImage.getWidth(), fgImage.getHeight());
+
+            // Copy ARGB foregrounds straight into the transparent canvas, as drawing them would do
+            Rectangle outputBounds = new Rectangle(0, 0, outputImage.getWidth(), outputImage.getHeight());
+            if (fgImage.getType() == BufferedImage.TYPE_INT_ARGB && CompositingKernels.supports(fgImage)) {
+                Rectangle fgBounds = new Rectangle(startDrawingPoint, new Dimension(fgImage.getWidth(), fgImage.getHeight()));
+                Rectangle copyArea = outputBounds.intersection(fgBounds);
+                if (!copyArea.isEmpty()) {
+                    CompositingKernels.copy(
+                            fgImage,
+                            copyArea.x - startDrawingPoint.x,
+                            copyArea.y - startDrawingPoint.y,
+                            outputImage,
+                            copyArea
+                    );
+                }
+                return outputImage;
+            }
+
+            // Draw the bgImage on the canvas using the assigned position
+            Graphics2D graphics2D = outputImage.createGraphics();
+            graphics2D.drawImage(fgImage, startDrawingPoint.x, startDrawingPoint.y, null);
+            graphics2D.dispose();
+
+            return outputImage;
+        }
+    }
 
-        // Calculate start drawing point for the foreground image
-        int startDrawingPointX = (int) Math.round(this.x - (fgImage.getWidth() * this.imageHook.getHorizontalRelativePosition()));
-        int startDrawingPointY = (int) Math.round(this.y - (fgImage.getHeight() * this.imageHook.getVerticalRelativePosition()));
+    /**
+     * Calculates where the top-left corner of a foreground image should be drawn on the canvas
+     *
+     * @param fgWidth  the width of the foreground image, expressed in pixels
+     * @param fgHeight the height of the foreground image, expressed in pixels
+     * @return the start drawing point, expressed in canvas coordinates
+     */
+    public synchronized Point getDrawingPoint(int fgWidth, int fgHeight) {
+        int startDrawingPointX = (int) Math.round(this.x - (fgWidth * this.imageHook.getHorizontalRelativePosition()));
+        int startDrawingPointY = (int) Math.round(this.y - (fgHeight * this.imageHook.getVerticalRelativePosition()));
+        return new Point(startDrawingPointX, startDrawingPointY);
+    }
 
-        // Draw the bgImage on the canvas using the assigned position
-        Graphics2D graphics2D = outputImage.createGraphics();
-        graphics2D.drawImage(fgImage, startDrawingPointX, startDrawingPointY, null);
-        graphics2D.dispose();
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PositionOptions that = (PositionOptions) o;
+        return this.getRenderKey().equals(that.getRenderKey());
+    }
 
-        return outputImage;
+    @Override
+    public int hashCode() {
+        return this.getRenderKey().hashCode();
     }
 
     public enum Hook {
@@ -1,14 +1,22 @@
 package com.github.steromano87.pig4j.options;
 
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
 import com.twelvemonkeys.image.ResampleOp;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Class that holds the scaling options used when merging two images together
  *
  * The option defines how an image with an arbitrary size is fitted on an existing canvas
+ * <p>
+ * Scaling options are thread-safe: the scaled size is resolved on each call from a consistent snapshot
+ * of the option values and never stored back, so the same instance can be shared by concurrent renders.
  */
 public class ScalingOptions {
     private Integer width;
@@ -18,59 +26,149 @@ public class ScalingOptions {
 
     private Algorithm algorithm = Algorithm.LANCZOS;
 
-    public ScalingOptions setWidth(Integer width) {
+    public synchronized ScalingOptions setWidth(Integer width) {
         this.width = width;
         this.scale = null;
         return this;
     }
 
-    public ScalingOptions setHeight(Integer height) {
+    public synchronized ScalingOptions setHeight(Integer height) {
         this.height = height;
         this.scale = null;
         return this;
     }
 
-    public ScalingOptions setScale(Double scale) {
+    public synchronized ScalingOptions setScale(Double scale) {
         this.scale = scale;
         this.width = null;
         this.height = null;
         return this;
     }
 
-    public ScalingOptions setAlgorithm(Algorithm algorithm) {
+    public synchronized ScalingOptions setAlgorithm(Algorithm algorithm) {
         this.algorithm = algorithm;
         return this;
     }
 
+    public synchronized Integer getWidth() {
+        return this.width;
+    }
+
+    public synchronized Integer getHeight() {
+        return this.height;
+    }
+
+    public synchronized Double getScale() {
+        return this.scale;
+    }
+
+    public synchronized Algorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * Returns a snapshot of the current option values, to be used as part of a layer render key
+     *
+     * @return the option values
+     * @see com.github.steromano87.pig4j.layers.Layer#getRenderKey()
+     */
+    public synchronized List<Object> getRenderKey() {
+        return Arrays.asList(this.width, this.height, this.scale, this.algorithm);
+    }
+
     public BufferedImage apply(BufferedImage image) {
+        Snapshot snapshot = this.takeSnapshot();
+        Dimension scaledSize = snapshot.resolveScaledSize(image.getWidth(), image.getHeight());
+
         // No-op mode
-        if (this.width == null && this.height == null && this.scale == null) {
+        if (scaledSize.width == image.getWidth() && scaledSize.height == image.getHeight()) {
             return image;
         }
 
-        if (this.scale != null && (this.width != null || this.height != null)) {
-            throw new IllegalStateException(
-                    "Either the scale or (al least) one between width and height should be specified");
+        long pixels = (long) scaledSize.width * scaledSize.height;
+        try (LayerProbe.StageTimer ignored = LayerProbe.time(Instrumentation.Stage.SCALE, pixels)) {
+            BufferedImageOp resampleOp = new ResampleOp(scaledSize.width, scaledSize.height, snapshot.algorithm.getFilter());
+            return resampleOp.filter(image, null);
         }
+    }
 
-        int originalWidth = image.getWidth();
-        int originalHeight = image.getHeight();
+    /**
+     * Calculates the size of an image after being scaled with the current options, without scaling it
+     *
+     * @param originalWidth  the width of the original image, expressed in pixels
+     * @param originalHeight the height of the original image, expressed in pixels
+     * @return the size of the scaled image
+     */
+    public Dimension getScaledSize(int originalWidth, int originalHeight) {
+        return this.takeSnapshot().resolveScaledSize(originalWidth, originalHeight);
+    }
 
-        if (this.scale == null) {
-            if (this.width == null) {
-                double calculatedScale = (double) this.height / originalHeight;
-                this.width = Math.toIntExact(Math.round(originalWidth * calculatedScale));
-            } else if (this.height == null) {
-                double calculatedScale = (double) this.width / originalWidth;
-                this.height = Math.toIntExact(Math.round(originalHeight * calculatedScale));
-            }
-        } else {
-            this.width = Math.toIntExact(Math.round(originalWidth * this.scale));
-            this.height = Math.toIntExact(Math.round(originalHeight * this.scale));
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScalingOptions that = (ScalingOptions) o;
+        return this.getRenderKey().equals(that.getRenderKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getRenderKey().hashCode();
+    }
+
+    private synchronized Snapshot takeSnapshot() {
+        return new Snapshot(this.width, this.height, this.scale, this.algorithm);
+    }
+
+    /**
+     * Immutable copy of the option values, used to resolve the scaled size without holding the lock
+     */
+    private static final class Snapshot {
+        private final Integer width;
+        private final Integer height;
+        private final Double scale;
+        private final Algorithm algorithm;
+
+        private Snapshot(Integer width, Integer height, Double scale, Algorithm algorithm) {
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.algorithm = algorithm;
         }
 
-        BufferedImageOp resampleOp = new ResampleOp(this.width, this.height, this.algorithm.getFilter());
-        return resampleOp.filter(image, null);
+        private Dimension resolveScaledSize(int originalWidth, int originalHeight) {
+            // No-op mode
+            if (this.width == null && this.height == null && this.scale == null) {
+                return new Dimension(originalWidth, originalHeight);
+            }
+
+            if (this.scale != null && (this.width != null || this.height != null)) {
+                throw new IllegalStateException(
+                        "Either the scale or (al least) one between width and height should be specified");
+            }
+
+            int scaledWidth;
+            int scaledHeight;
+            if (this.scale == null) {
+                if (this.width == null) {
+                    double calculatedScale = (double) this.height / originalHeight;
+                    scaledWidth = Math.toIntExact(Math.round(originalWidth * calculatedScale));
+                    scaledHeight = this.height;
+                } else if (this.height == null) {
+                    double calculatedScale = (double) this.width / originalWidth;
+                    scaledWidth = this.width;
+                    scaledHeight = Math.toIntExact(Math.round(originalHeight * calculatedScale));
+                } else {
+                    scaledWidth = this.width;
+                    scaledHeight = this.height;
+                }
+            } else {
+                scaledWidth = Math.toIntExact(Math.round(originalWidth * this.scale));
+                scaledHeight = Math.toIntExact(Math.round(originalHeight * this.scale));
+            }
+
+            return new Dimension(scaledWidth, scaledHeight);
+        }
     }
 
     public enum Algorithm {
@@ -0,0 +1,204 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.encoding.ImageEncoder;
+import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
+import com.github.steromano87.pig4j.exceptions.ImageWritingException;
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Renders many variants of the same image concurrently
+ * <p>
+ * The layers of the template generator are composited only once: every variant starts from a copy of
+ * this static base and adds on top of it the layers returned by the binder for that variant.
+ * Variants are rendered on a bounded pool of workers and no more than a fixed number of variants is in flight
+ * at any time, so that memory usage does not depend on the size of the batch.
+ * <p>
+ * Binders should reuse immutable resources between variants (e.g. passing the same decoded image
+ * to {@link com.github.steromano87.pig4j.layers.base.ImageLayer#setSourceImage(BufferedImage)})
+ * instead of loading them again for each variant.
+ *
+ * @param <T> the type of the parameters that define a variant
+ */
+public class BatchRenderer<T> {
+    private final ImageGenerator template;
+    private final Function<T, List<Layer>> binder;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int maxPendingVariants = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new batch renderer
+     *
+     * @param template the generator holding the layers shared by all the variants
+     * @param binder   the function that returns the layers to add on top of the template for a given variant
+     */
+    public BatchRenderer(ImageGenerator template, Function<T, List<Layer>> binder) {
+        this.template = template;
+        this.binder = binder;
+    }
+
+    /**
+     * Sets the number of worker threads used to render the variants
+     * <p>
+     * This method uses the builder pattern.
+     *
+     * @param parallelism the number of worker threads
+     * @return the batch renderer instance
+     */
+    public BatchRenderer<T> setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be a positive number");
+        }
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of variants that can be rendered or waiting for the sink at the same time
+     * <p>
+     * When the limit is reached, reading from the variants stream is suspended until a variant is completed.
+     * This method uses the builder pattern.
+     *
+     * @param maxPendingVariants the maximum number of pending variants
+     * @return the batch renderer instance
+     */
+    public BatchRenderer<T> setMaxPendingVariants(int maxPendingVariants) {
+        if (maxPendingVariants <= 0) {
+            throw new IllegalArgumentException("Maximum pending variants should be a positive number");
+        }
+
+        this.maxPendingVariants = maxPendingVariants;
+        return this;
+    }
+
+    /**
+     * Renders all the variants, passing each encoded image to the sink
+     * <p>
+     * The sink is invoked by the worker threads, hence it should be thread-safe.
+     * The method returns when all the variants have been passed to the sink. The first failure stops the batch.
+     *
+     * @param variants the parameters of the variants to render
+     * @param format   the format used to encode the variants
+     * @param sink     the consumer of the encoded variants
+     * @throws ImageGenerationException if a variant cannot be rendered
+     * @throws ImageWritingException    if a variant cannot be encoded or consumed
+     */
+    public void render(Stream<T> variants, ImageFormat format, Sink<T> sink) throws ImageGenerationException {
+        this.render(variants, format, new EncodingOptions(), sink);
+    }
+
+    /**
+     * Renders all the variants, passing each image encoded with the given encoding options to the sink
+     * <p>
+     * The sink is invoked by the worker threads, hence it should be thread-safe.
+     * The method returns when all the variants have been passed to the sink. The first failure stops the batch.
+     *
+     * @param variants        the parameters of the variants to render
+     * @param format          the format used to encode the variants
+     * @param encodingOptions the encoder parameters
+     * @param sink            the consumer of the encoded variants
+     * @throws ImageGenerationException if a variant cannot be rendered, e.g. because a worker runs out of memory
+     * @throws ImageWritingException    if a variant cannot be encoded or consumed
+     */
+    public void render(Stream<T> variants, ImageFormat format, EncodingOptions encodingOptions, Sink<T> sink)
+            throws ImageGenerationException {
+        BufferedImage baseImage = this.template.build().toImage();
+        Semaphore pendingVariants = new Semaphore(this.maxPendingVariants);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+
+        try {
+            Iterator<T> iterator = variants.iterator();
+            while (iterator.hasNext() && Objects.isNull(failure.get())) {
+                T variant = iterator.next();
+                pendingVariants.acquire();
+                executor.execute(() -> {
+                    try {
+                        if (Objects.isNull(failure.get())) {
+                            byte[] encodedImage = this.renderVariant(baseImage, variant, format, encodingOptions);
+                            sink.accept(variant, encodedImage);
+                        }
+                    } catch (IOException exc) {
+                        failure.compareAndSet(null, new ImageWritingException("Cannot write batch variant", exc));
+                    } catch (RuntimeException exc) {
+                        failure.compareAndSet(null, exc);
+                    } catch (Throwable exc) {
+                        failure.compareAndSet(null, new ImageGenerationException("Cannot render batch variant", exc));
+                    } finally {
+                        pendingVariants.release();
+                    }
+                });
+            }
+
+            // Wait for the in-flight variants to complete
+            pendingVariants.acquire(this.maxPendingVariants);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new ImageGenerationException("Batch rendering has been interrupted", exc);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!Objects.isNull(failure.get())) {
+            throw failure.get();
+        }
+    }
+
+    private byte[] renderVariant(
+            BufferedImage baseImage,
+            T variant,
+            ImageFormat format,
+            EncodingOptions encodingOptions
+    ) throws IOException {
+        int canvasWidth = baseImage.getWidth();
+        int canvasHeight = baseImage.getHeight();
+        BufferedImage variantImage = ImageUtils.copyRegion(baseImage, new Rectangle(0, 0, canvasWidth, canvasHeight));
+
+        RenderTarget target = new RenderTarget(variantImage);
+        Rectangle canvasBounds = new Rectangle(0, 0, canvasWidth, canvasHeight);
+        for (Layer layer : this.binder.apply(variant)) {
+            if (layer.getBounds(canvasWidth, canvasHeight).intersects(canvasBounds)) {
+                layer.applyInPlace(target);
+            }
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageEncoder.write(variantImage, format, encodingOptions, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Consumer of the encoded variants of a batch
+     *
+     * @param <T> the type of the parameters that define a variant
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        /**
+         * Consumes an encoded variant
+         *
+         * @param variant      the parameters of the variant
+         * @param encodedImage the encoded image
+         * @throws IOException if the encoded image cannot be consumed
+         */
+        void accept(T variant, byte[] encodedImage) throws IOException;
+    }
+}
@@ -0,0 +1,389 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.options.BlendingOptions;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Compositing loops that work directly on the pixel arrays of {@link BufferedImage#TYPE_INT_ARGB}
+ * and {@link BufferedImage#TYPE_INT_RGB} images
+ * <p>
+ * The loops avoid the per-pixel color model conversions of the generic Java2D software loops.
+ * Colors are not premultiplied: blending a foreground pixel with alpha A (already multiplied by the extra alpha)
+ * gives {@code C = (Cf * A + Cb * (255 - A)) / 255} on each channel, rounded to the nearest integer,
+ * while the background alpha is kept unchanged, as in {@link AlphaComposite#SRC_ATOP}.
+ * Since the result is rounded once, it can differ by one or two levels from Java2D, which rounds the premultiplied
+ * values as well.
+ * <p>
+ * Blending methods other than {@link BlendingOptions.Method#NORMAL} replace the foreground color with the
+ * separable blend function of the foreground and background colors, weighted by the background alpha
+ * as defined by the W3C compositing specification, before the source-atop rule is applied.
+ * <p>
+ * The source-over variants, used for isolated render targets, add the foreground alpha to the background one:
+ * {@code A = Af + Ab * (255 - Af) / 255} and {@code C = (Cf * Af + Cb * Ab * (255 - Af) / 255) / A}.
+ * On RGB images, which are fully opaque, they give the same result of the source-atop ones.
+ * Callers should check {@link #supports(BufferedImage)} and fall back to Java2D for any other image layout.
+ *
+ * @link https://www.w3.org/TR/compositing-1/#blending
+ */
+public final class CompositingKernels {
+    private static final int ALPHA_MASK = 0xFF000000;
+
+    private CompositingKernels() {
+    }
+
+    /**
+     * Checks whether the kernels can work on the given image
+     *
+     * @param image the image to check
+     * @return true if the image stores non-premultiplied ARGB or RGB pixels in an integer array, false otherwise
+     */
+    public static boolean supports(BufferedImage image) {
+        int imageType = image.getType();
+        return (imageType == BufferedImage.TYPE_INT_ARGB || imageType == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel;
+    }
+
+    /**
+     * Blends an area of an ARGB image on another image, using the source-atop rule
+     *
+     * @param source      the foreground image, in the ARGB integer layout
+     * @param sourceX     the horizontal position of the area, expressed in foreground image coordinates
+     * @param sourceY     the vertical position of the area, expressed in foreground image coordinates
+     * @param destination the background image, modified in place
+     * @param area        the area to blend, expressed in background image coordinates
+     * @param method      the blending method
+     * @param alpha       the extra alpha applied to the foreground, from 0.0 to 1.0
+     */
+    public static void blendSourceAtop(
+            BufferedImage source,
+            int sourceX,
+            int sourceY,
+            BufferedImage destination,
+            Rectangle area,
+            BlendingOptions.Method method,
+            float alpha
+    ) {
+        blendArea(source, sourceX, sourceY, destination, area, method, alpha, false);
+    }
+
+    /**
+     * Blends an area of an ARGB image on another image, using the source-over rule
+     *
+     * @param source      the foreground image, in the ARGB integer layout
+     * @param sourceX     the horizontal position of the area, expressed in foreground image coordinates
+     * @param sourceY     the vertical position of the area, expressed in foreground image coordinates
+     * @param destination the background image, modified in place
+     * @param area        the area to blend, expressed in background image coordinates
+     * @param method      the blending method
+     * @param alpha       the extra alpha applied to the foreground, from 0.0 to 1.0
+     */
+    public static void blendSourceOver(
+            BufferedImage source,
+            int sourceX,
+            int sourceY,
+            BufferedImage destination,
+            Rectangle area,
+            BlendingOptions.Method method,
+            float alpha
+    ) {
+        blendArea(source, sourceX, sourceY, destination, area, method, alpha, true);
+    }
+
+    private static void blendArea(
+            BufferedImage source,
+            int sourceX,
+            int sourceY,
+            BufferedImage destination,
+            Rectangle area,
+            BlendingOptions.Method method,
+            float alpha,
+            boolean sourceOver
+    ) {
+        int extraAlpha = toAlpha8(alpha);
+        if (extraAlpha == 0) {
+            return;
+        }
+
+        boolean hasAlphaChannel = destination.getColorModel().hasAlpha();
+
+        int[] sourcePixels = getPixels(source);
+        int sourceStride = getScanlineStride(source);
+        int[] destinationPixels = getPixels(destination);
+        int destinationStride = getScanlineStride(destination);
+
+        for (int row = 0; row < area.height; row++) {
+            int sourceIndex = getIndex(source, sourceX, sourceY + row, sourceStride);
+            int destinationIndex = getIndex(destination, area.x, area.y + row, destinationStride);
+            for (int column = 0; column < area.width; column++) {
+                int foreground = sourcePixels[sourceIndex + column];
+                int foregroundAlpha = multiply(foreground >>> 24, extraAlpha);
+                if (foregroundAlpha != 0) {
+                    int background = destinationPixels[destinationIndex + column];
+                    if (method != BlendingOptions.Method.NORMAL) {
+                        foreground = mix(method, foreground, background, hasAlphaChannel);
+                    }
+                    destinationPixels[destinationIndex + column] = sourceOver && hasAlphaChannel
+                            ? blendOver(foreground, background, foregroundAlpha)
+                            : blend(foreground, background, foregroundAlpha);
+                }
+            }
+        }
+    }
+
+    /**
+     * Blends a solid color on an area of an image, using the source-atop rule
+     *
+     * @param destination the background image, modified in place
+     * @param area        the area to fill, expressed in background image coordinates
+     * @param argb        the color to blend, as a non-premultiplied ARGB value
+     * @param method      the blending method
+     * @param alpha       the extra alpha applied to the color, from 0.0 to 1.0
+     */
+    public static void fillSourceAtop(
+            BufferedImage destination,
+            Rectangle area,
+            int argb,
+            BlendingOptions.Method method,
+            float alpha
+    ) {
+        fillArea(destination, area, argb, method, alpha, false);
+    }
+
+    /**
+     * Blends a solid color on an area of an image, using the source-over rule
+     *
+     * @param destination the background image, modified in place
+     * @param area        the area to fill, expressed in background image coordinates
+     * @param argb        the color to blend, as a non-premultiplied ARGB value
+     * @param method      the blending method
+     * @param alpha       the extra alpha applied to the color, from 0.0 to 1.0
+     */
+    public static void fillSourceOver(
+            BufferedImage destination,
+            Rectangle area,
+            int argb,
+            BlendingOptions.Method method,
+            float alpha
+    ) {
+        fillArea(destination, area, argb, method, alpha, true);
+    }
+
+    private static void fillArea(
+            BufferedImage destination,
+            Rectangle area,
+            int argb,
+            BlendingOptions.Method method,
+            float alpha,
+            boolean sourceOver
+    ) {
+        int foregroundAlpha = multiply(argb >>> 24, toAlpha8(alpha));
+        if (foregroundAlpha == 0) {
+            return;
+        }
+
+        boolean hasAlphaChannel = destination.getColorModel().hasAlpha();
+        boolean addsAlpha = sourceOver && hasAlphaChannel;
+
+        int[] destinationPixels = getPixels(destination);
+        int destinationStride = getScanlineStride(destination);
+        if (method == BlendingOptions.Method.NORMAL && !addsAlpha) {
+            fillNormal(
+                    destinationPixels,
+                    getIndex(destination, area.x, area.y, destinationStride),
+                    destinationStride,
+                    area,
+                    argb,
+                    foregroundAlpha,
+                    hasAlphaChannel
+            );
+            return;
+        }
+
+        for (int row = 0; row < area.height; row++) {
+            int destinationIndex = getIndex(destination, area.x, area.y + row, destinationStride);
+            for (int column = 0; column < area.width; column++) {
+                int background = destinationPixels[destinationIndex + column];
+                int foreground = method == BlendingOptions.Method.NORMAL
+                        ? argb
+                        : mix(method, argb, background, hasAlphaChannel);
+                destinationPixels[destinationIndex + column] = addsAlpha
+                        ? blendOver(foreground, background, foregroundAlpha)
+                        : blend(foreground, background, foregroundAlpha);
+            }
+        }
+    }
+
+    /**
+     * Copies an area of an image on another image with the same layout, replacing the destination pixels
+     *
+     * @param source      the image to copy
+     * @param sourceX     the horizontal position of the area, expressed in source image coordinates
+     * @param sourceY     the vertical position of the area, expressed in source image coordinates
+     * @param destination the image to copy to
+     * @param area        the area to copy, expressed in destination image coordinates
+     */
+    public static void copy(BufferedImage source, int sourceX, int sourceY, BufferedImage destination, Rectangle area) {
+        int[] sourcePixels = getPixels(source);
+        int sourceStride = getScanlineStride(source);
+        int[] destinationPixels = getPixels(destination);
+        int destinationStride = getScanlineStride(destination);
+
+        for (int row = 0; row < area.height; row++) {
+            System.arraycopy(
+                    sourcePixels,
+                    getIndex(source, sourceX, sourceY + row, sourceStride),
+                    destinationPixels,
+                    getIndex(destination, area.x, area.y + row, destinationStride),
+                    area.width
+            );
+        }
+    }
+
+    private static void fillNormal(
+            int[] pixels,
+            int firstIndex,
+            int stride,
+            Rectangle area,
+            int argb,
+            int foregroundAlpha,
+            boolean hasAlphaChannel
+    ) {
+        int rgb = argb & ~ALPHA_MASK;
+        if (foregroundAlpha == 0xFF) {
+            // Opaque colors replace the background color, RGB images carry no alpha bits to keep
+            for (int row = 0; row < area.height; row++) {
+                int index = firstIndex + row * stride;
+                if (!hasAlphaChannel) {
+                    Arrays.fill(pixels, index, index + area.width, rgb);
+                    continue;
+                }
+                for (int column = index; column < index + area.width; column++) {
+                    pixels[column] = (pixels[column] & ALPHA_MASK) | rgb;
+                }
+            }
+            return;
+        }
+
+        // Translucent colors are a linear interpolation with constant foreground terms
+        int backgroundAlpha = 0xFF - foregroundAlpha;
+        int red = ((argb >> 16) & 0xFF) * foregroundAlpha;
+        int green = ((argb >> 8) & 0xFF) * foregroundAlpha;
+        int blue = (argb & 0xFF) * foregroundAlpha;
+        for (int row = 0; row < area.height; row++) {
+            int index = firstIndex + row * stride;
+            for (int column = index; column < index + area.width; column++) {
+                int background = pixels[column];
+                pixels[column] = (background & ALPHA_MASK)
+                        | (divide(red + ((background >> 16) & 0xFF) * backgroundAlpha) << 16)
+                        | (divide(green + ((background >> 8) & 0xFF) * backgroundAlpha) << 8)
+                        | divide(blue + (background & 0xFF) * backgroundAlpha);
+            }
+        }
+    }
+
+    private static int blend(int foreground, int background, int foregroundAlpha) {
+        if (foregroundAlpha == 0xFF) {
+            return (background & ALPHA_MASK) | (foreground & ~ALPHA_MASK);
+        }
+
+        int backgroundAlpha = 0xFF - foregroundAlpha;
+        int red = divide(((foreground >> 16) & 0xFF) * foregroundAlpha + ((background >> 16) & 0xFF) * backgroundAlpha);
+        int green = divide(((foreground >> 8) & 0xFF) * foregroundAlpha + ((background >> 8) & 0xFF) * backgroundAlpha);
+        int blue = divide((foreground & 0xFF) * foregroundAlpha + (background & 0xFF) * backgroundAlpha);
+        return (background & ALPHA_MASK) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int blendOver(int foreground, int background, int foregroundAlpha) {
+        int backgroundAlpha = multiply(background >>> 24, 0xFF - foregroundAlpha);
+        int outputAlpha = foregroundAlpha + backgroundAlpha;
+        int red = divideBy(((foreground >> 16) & 0xFF) * foregroundAlpha + ((background >> 16) & 0xFF) * backgroundAlpha, outputAlpha);
+        int green = divideBy(((foreground >> 8) & 0xFF) * foregroundAlpha + ((background >> 8) & 0xFF) * backgroundAlpha, outputAlpha);
+        int blue = divideBy((foreground & 0xFF) * foregroundAlpha + (background & 0xFF) * backgroundAlpha, outputAlpha);
+        return (outputAlpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int mix(BlendingOptions.Method method, int foreground, int background, boolean hasAlphaChannel) {
+        // RGB backgrounds carry no alpha bits, but they are fully opaque
+        int backgroundAlpha = hasAlphaChannel ? background >>> 24 : 0xFF;
+        int red = mixChannel(method, (foreground >> 16) & 0xFF, (background >> 16) & 0xFF, backgroundAlpha);
+        int green = mixChannel(method, (foreground >> 8) & 0xFF, (background >> 8) & 0xFF, backgroundAlpha);
+        int blue = mixChannel(method, foreground & 0xFF, background & 0xFF, backgroundAlpha);
+        return (foreground & ALPHA_MASK) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int mixChannel(BlendingOptions.Method method, int foreground, int background, int backgroundAlpha) {
+        int blended = blendChannel(method, foreground, background);
+        if (backgroundAlpha == 0xFF) {
+            return blended;
+        }
+        return divide(foreground * (0xFF - backgroundAlpha) + blended * backgroundAlpha);
+    }
+
+    private static int blendChannel(BlendingOptions.Method method, int foreground, int background) {
+        switch (method) {
+            case MULTIPLY:
+                return multiply(foreground, background);
+            case SCREEN:
+                return foreground + background - multiply(foreground, background);
+            case OVERLAY:
+                // Hard light with swapped layers
+                if (background < 0x80) {
+                    return multiply(foreground, background << 1);
+                }
+                int doubledBackground = (background << 1) - 0xFF;
+                return foreground + doubledBackground - multiply(foreground, doubledBackground);
+            case DARKEN:
+                return Math.min(foreground, background);
+            case LIGHTEN:
+                return Math.max(foreground, background);
+            case ADD:
+                return Math.min(0xFF, foreground + background);
+            case SUBTRACT:
+                return Math.max(0, background - foreground);
+            case DIFFERENCE:
+                return Math.abs(background - foreground);
+            default:
+                return foreground;
+        }
+    }
+
+    private static int multiply(int first, int second) {
+        return divide(first * second);
+    }
+
+    private static int divide(int value) {
+        // Rounded division by 255, exact for values up to 255 * 255
+        int rounded = value + 128;
+        return (rounded + (rounded >> 8)) >> 8;
+    }
+
+    private static int divideBy(int value, int divisor) {
+        return (value + (divisor >> 1)) / divisor;
+    }
+
+    private static int toAlpha8(float alpha) {
+        return (int) (Math.max(0.0f, Math.min(1.0f, alpha)) * 255 + 0.5f);
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private static int getScanlineStride(BufferedImage image) {
+        return ((SinglePixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride();
+    }
+
+    private static int getIndex(BufferedImage image, int x, int y, int scanlineStride) {
+        WritableRaster raster = image.getRaster();
+        return raster.getDataBuffer().getOffset()
+                + (y - raster.getSampleModelTranslateY()) * scanlineStride
+                + (x - raster.getSampleModelTranslateX());
+    }
+}
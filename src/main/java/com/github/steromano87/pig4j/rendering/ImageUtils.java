@@ -0,0 +1,127 @@
+package com.github.steromano87.pig4j.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Helper methods shared by the rendering pipeline to create and copy buffered images
+ */
+public final class ImageUtils {
+    private ImageUtils() {
+    }
+
+    /**
+     * Returns the given image in the {@link BufferedImage#TYPE_INT_ARGB} layout, converting it only if needed
+     *
+     * @param image the image to convert
+     * @return the image itself if it already uses the ARGB integer layout, a converted copy otherwise
+     */
+    public static BufferedImage toIntArgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+
+        BufferedImage argbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = argbImage.createGraphics();
+        graphics2D.drawImage(image, 0, 0, null);
+        graphics2D.dispose();
+        return argbImage;
+    }
+
+    /**
+     * Copies a region of an image into a new image with the same type
+     * <p>
+     * Regions of images backed by an {@link OffHeapDataBuffer} are copied on the heap, in the matching integer layout.
+     *
+     * @param image  the source image
+     * @param region the region to copy, expressed in source image coordinates
+     * @return the copied region
+     */
+    public static BufferedImage copyRegion(BufferedImage image, Rectangle region) {
+        BufferedImage regionImage;
+        if (image.getRaster().getDataBuffer() instanceof OffHeapDataBuffer) {
+            int imageType = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            regionImage = new BufferedImage(region.width, region.height, imageType);
+        } else {
+            regionImage = new BufferedImage(
+                    image.getColorModel(),
+                    image.getRaster().createCompatibleWritableRaster(region.width, region.height),
+                    image.isAlphaPremultiplied(),
+                    null
+            );
+        }
+        copyInto(image, regionImage, -region.x, -region.y);
+        return regionImage;
+    }
+
+    /**
+     * Copies all the pixels of an image into another image, at the given position
+     *
+     * @param source      the image to copy
+     * @param destination the image to copy to
+     * @param x           the horizontal position of the copy, expressed in destination image coordinates
+     * @param y           the vertical position of the copy, expressed in destination image coordinates
+     */
+    public static void copyInto(BufferedImage source, BufferedImage destination, int x, int y) {
+        if (!copyPixelRows(source.getRaster(), destination.getRaster(), x, y)) {
+            destination.getRaster().setRect(x, y, source.getRaster());
+        }
+    }
+
+    private static boolean copyPixelRows(WritableRaster source, WritableRaster destination, int x, int y) {
+        // Off-heap pixels are copied a row at a time, instead of unpacking every sample through the sample model
+        DataBuffer sourceBuffer = source.getDataBuffer();
+        DataBuffer destinationBuffer = destination.getDataBuffer();
+        if (!(sourceBuffer instanceof OffHeapDataBuffer || destinationBuffer instanceof OffHeapDataBuffer) ||
+                !isPackedInt(source) || !isPackedInt(destination) ||
+                !Arrays.equals(getBitMasks(source), getBitMasks(destination))) {
+            return false;
+        }
+
+        Rectangle area = new Rectangle(x, y, source.getWidth(), source.getHeight()).intersection(destination.getBounds());
+        if (area.isEmpty()) {
+            return true;
+        }
+
+        int[] row = new int[area.width];
+        for (int line = area.y; line < area.y + area.height; line++) {
+            int sourceIndex = getIndex(source, area.x - x, line - y);
+            int destinationIndex = getIndex(destination, area.x, line);
+            if (sourceBuffer instanceof OffHeapDataBuffer) {
+                ((OffHeapDataBuffer) sourceBuffer).get(sourceIndex, row, 0, area.width);
+            } else {
+                System.arraycopy(((DataBufferInt) sourceBuffer).getData(), sourceIndex, row, 0, area.width);
+            }
+
+            if (destinationBuffer instanceof OffHeapDataBuffer) {
+                ((OffHeapDataBuffer) destinationBuffer).put(destinationIndex, row, 0, area.width);
+            } else {
+                System.arraycopy(row, 0, ((DataBufferInt) destinationBuffer).getData(), destinationIndex, area.width);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPackedInt(WritableRaster raster) {
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        return (dataBuffer instanceof OffHeapDataBuffer || dataBuffer instanceof DataBufferInt) &&
+                dataBuffer.getNumBanks() == 1 &&
+                raster.getSampleModel() instanceof SinglePixelPackedSampleModel;
+    }
+
+    private static int[] getBitMasks(WritableRaster raster) {
+        return ((SinglePixelPackedSampleModel) raster.getSampleModel()).getBitMasks();
+    }
+
+    private static int getIndex(WritableRaster raster, int x, int y) {
+        SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        return raster.getDataBuffer().getOffset() +
+                (y - raster.getSampleModelTranslateY()) * sampleModel.getScanlineStride() +
+                (x - raster.getSampleModelTranslateX());
+    }
+}
@@ -0,0 +1,223 @@
+package com.github.steromano87.pig4j.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Integer pixel buffer stored outside of the Java heap, in a direct byte buffer
+ * <p>
+ * Very large canvases backed by an off-heap buffer do not need a contiguous heap array, do not count against
+ * the maximum heap size and are never copied by the garbage collector. The buffer is freed as soon as
+ * {@link #release()} is called, without waiting for the garbage collection; any later access to the pixels
+ * throws an {@link IllegalStateException}.
+ * <p>
+ * Images created by {@link #createImage(int, int, boolean)} use the same pixel layout of the
+ * {@link BufferedImage#TYPE_INT_ARGB} and {@link BufferedImage#TYPE_INT_RGB} images, but are reported as
+ * {@link BufferedImage#TYPE_CUSTOM}: Java2D draws on them with its generic loops, while {@link ImageUtils}
+ * copies whole rows between them and the integer heap images.
+ */
+public final class OffHeapDataBuffer extends DataBuffer {
+    private static final int RGB_MASK = 0x00FFFFFF;
+
+    private static final Consumer<ByteBuffer> CLEANER = findCleaner();
+
+    private volatile ByteBuffer byteBuffer;
+    private volatile IntBuffer pixels;
+
+    /**
+     * Creates an off-heap buffer with the given number of pixels, all set to zero
+     *
+     * @param size the number of pixels
+     */
+    public OffHeapDataBuffer(int size) {
+        super(DataBuffer.TYPE_INT, size);
+        if (size > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Off-heap buffers cannot hold more than 2 GiB of pixels");
+        }
+
+        this.byteBuffer = ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder());
+        this.pixels = this.byteBuffer.asIntBuffer();
+    }
+
+    /**
+     * Creates an image backed by an off-heap buffer, with all the pixels set to zero
+     *
+     * @param width           the width of the image, expressed in pixels
+     * @param height          the height of the image, expressed in pixels
+     * @param hasAlphaChannel whether the image stores ARGB or RGB pixels
+     * @return the off-heap image
+     */
+    public static BufferedImage createImage(int width, int height, boolean hasAlphaChannel) {
+        long size = (long) width * height;
+        if (size > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Off-heap images cannot hold more than 2 GiB of pixels");
+        }
+
+        ColorModel colorModel = hasAlphaChannel
+                ? ColorModel.getRGBdefault()
+                : new DirectColorModel(24, 0x00FF0000, 0x0000FF00, 0x000000FF);
+        SinglePixelPackedSampleModel sampleModel = new SinglePixelPackedSampleModel(
+                DataBuffer.TYPE_INT,
+                width,
+                height,
+                ((DirectColorModel) colorModel).getMasks()
+        );
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, new OffHeapDataBuffer((int) size), new Point());
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    /**
+     * Returns the off-heap buffer that stores the pixels of an image, if any
+     *
+     * @param image the image to inspect
+     * @return the off-heap buffer, or null if the image is stored on the heap
+     */
+    public static OffHeapDataBuffer of(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return dataBuffer instanceof OffHeapDataBuffer ? (OffHeapDataBuffer) dataBuffer : null;
+    }
+
+    /**
+     * Frees the off-heap buffer of an image, doing nothing if the image is stored on the heap
+     *
+     * @param image the image to release, can be null
+     */
+    public static void release(BufferedImage image) {
+        if (Objects.isNull(image)) {
+            return;
+        }
+
+        OffHeapDataBuffer dataBuffer = of(image);
+        if (!Objects.isNull(dataBuffer)) {
+            dataBuffer.release();
+        }
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        return this.getPixels().get(i + this.offsets[bank]);
+    }
+
+    @Override
+    public void setElem(int bank, int i, int val) {
+        this.getPixels().put(i + this.offsets[bank], val);
+    }
+
+    /**
+     * Reads consecutive pixels into an array
+     *
+     * @param index       the index of the first pixel
+     * @param destination the array to fill
+     * @param offset      the position of the first pixel in the array
+     * @param length      the number of pixels to read
+     */
+    public void get(int index, int[] destination, int offset, int length) {
+        // Duplicates keep their own position, so concurrent readers do not interfere
+        IntBuffer pixels = this.getPixels().duplicate();
+        pixels.position(index);
+        pixels.get(destination, offset, length);
+    }
+
+    /**
+     * Writes consecutive pixels from an array
+     *
+     * @param index  the index of the first pixel
+     * @param source the array to read from
+     * @param offset the position of the first pixel in the array
+     * @param length the number of pixels to write
+     */
+    public void put(int index, int[] source, int offset, int length) {
+        IntBuffer pixels = this.getPixels().duplicate();
+        pixels.position(index);
+        pixels.put(source, offset, length);
+    }
+
+    /**
+     * Sets all the pixels to the same value
+     *
+     * @param argb            the pixel value, as a non-premultiplied ARGB value
+     * @param hasAlphaChannel whether the alpha bits should be kept or cleared, as in RGB images
+     */
+    public void fill(int argb, boolean hasAlphaChannel) {
+        int value = hasAlphaChannel ? argb : argb & RGB_MASK;
+        IntBuffer pixels = this.getPixels();
+        for (int i = 0; i < this.size; i++) {
+            pixels.put(i, value);
+        }
+    }
+
+    /**
+     * Frees the off-heap memory immediately
+     * <p>
+     * The memory is returned to the operating system, hence the buffer must not be in use by other threads.
+     * Releasing a buffer more than once has no effect.
+     */
+    public synchronized void release() {
+        ByteBuffer byteBuffer = this.byteBuffer;
+        if (Objects.isNull(byteBuffer)) {
+            return;
+        }
+
+        this.pixels = null;
+        this.byteBuffer = null;
+        CLEANER.accept(byteBuffer);
+    }
+
+    public boolean isReleased() {
+        return Objects.isNull(this.pixels);
+    }
+
+    private IntBuffer getPixels() {
+        IntBuffer pixels = this.pixels;
+        if (Objects.isNull(pixels)) {
+            throw new IllegalStateException("The off-heap pixel buffer has been released");
+        }
+        return pixels;
+    }
+
+    private static Consumer<ByteBuffer> findCleaner() {
+        // Java 9 and later expose the cleaner through the unsupported Unsafe class
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            Object unsafe = unsafeField.get(null);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return byteBuffer -> invoke(invokeCleaner, unsafe, byteBuffer);
+        } catch (ReflectiveOperationException | RuntimeException exc) {
+            // Not available, try the Java 8 cleaner
+        }
+
+        // Java 8 direct buffers carry their own cleaner
+        try {
+            Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return byteBuffer -> invoke(cleanMethod, invoke(cleanerMethod, byteBuffer));
+        } catch (ReflectiveOperationException | RuntimeException exc) {
+            // Leave the memory to the garbage collector
+            return byteBuffer -> {
+            };
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... arguments) {
+        try {
+            return method.invoke(target, arguments);
+        } catch (ReflectiveOperationException exc) {
+            throw new IllegalStateException("Cannot free the off-heap pixel buffer", exc);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Subset of a layer stack that has to be applied to obtain the same image as applying all the layers
+ * <p>
+ * The plan drops the layers that cannot change the canvas: layers that lie entirely outside of the canvas and
+ * layers that report themselves as no-ops (see {@link Layer#isNoOp()}). It also drops the layers hidden by an
+ * opaque cover (see {@link Layer#isOpaqueCover(int, int)}): since covers keep the canvas alpha, on canvases with
+ * alpha channel only the covers directly below another cover are dropped, while on canvases without alpha channel
+ * the plan starts from the last cover.
+ * <p>
+ * Layers are inspected only through their bounds and their no-op and cover flags, so planning never draws anything.
+ */
+public final class RenderPlan {
+    private final List<Layer> layers;
+    private final List<Integer> indexes;
+
+    private RenderPlan(List<Layer> layers, List<Integer> indexes) {
+        this.layers = Collections.unmodifiableList(layers);
+        this.indexes = Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * Plans the application of a layer stack
+     *
+     * @param layers          the layers to apply, in FIFO order
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @return the render plan
+     */
+    public static RenderPlan create(List<Layer> layers, int canvasWidth, int canvasHeight, boolean hasAlphaChannel) {
+        Rectangle canvasBounds = new Rectangle(0, 0, canvasWidth, canvasHeight);
+        List<Layer> plannedLayers = new ArrayList<>();
+        List<Integer> plannedIndexes = new ArrayList<>();
+        boolean previousIsCover = false;
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            if (layer.isNoOp() || !layer.getBounds(canvasWidth, canvasHeight).intersects(canvasBounds)) {
+                continue;
+            }
+
+            boolean isCover = layer.isOpaqueCover(canvasWidth, canvasHeight);
+            // Hidden layers would be entirely repainted, with the canvas alpha they leave unchanged
+            if (isCover && !hasAlphaChannel) {
+                plannedLayers.clear();
+                plannedIndexes.clear();
+            } else if (isCover && previousIsCover) {
+                plannedLayers.remove(plannedLayers.size() - 1);
+                plannedIndexes.remove(plannedIndexes.size() - 1);
+            }
+
+            plannedLayers.add(layer);
+            plannedIndexes.add(i);
+            previousIsCover = isCover;
+        }
+
+        return new RenderPlan(plannedLayers, plannedIndexes);
+    }
+
+    /**
+     * Returns the layers to apply, in FIFO order
+     *
+     * @return the planned layers
+     */
+    public List<Layer> getLayers() {
+        return this.layers;
+    }
+
+    /**
+     * Returns the position of each planned layer in the original layer stack
+     *
+     * @return the original indexes of the planned layers
+     */
+    public List<Integer> getIndexes() {
+        return this.indexes;
+    }
+}
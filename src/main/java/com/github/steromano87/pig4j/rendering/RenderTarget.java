@@ -0,0 +1,132 @@
+package com.github.steromano87.pig4j.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Destination raster used when layers are composited in place.
+ * <p>
+ * A render target wraps a buffered image that covers a rectangular region of the logical image canvas.
+ * Layers always draw using canvas coordinates: the graphics returned by {@link #createGraphics(Rectangle)}
+ * are already translated so that the canvas origin maps to the right pixel of the wrapped image.
+ * <p>
+ * Layers are composited on image canvases with the source-atop rule, which keeps the canvas alpha. Isolated targets
+ * are transparent rasters that collect the output of some layers before it is blended as a whole, such as
+ * the raster of a group: layers are composited on them with the source-over rule, so that they add their own alpha.
+ *
+ * @see com.github.steromano87.pig4j.layers.Layer#applyInPlace(RenderTarget)
+ */
+public class RenderTarget {
+    private final BufferedImage image;
+    private final int originX;
+    private final int originY;
+    private final int canvasWidth;
+    private final int canvasHeight;
+    private final boolean isolated;
+
+    /**
+     * Creates a render target that covers the whole canvas
+     *
+     * @param image the destination image, whose size is the canvas size
+     */
+    public RenderTarget(BufferedImage image) {
+        this(image, 0, 0, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Creates a render target that covers only a portion of the canvas
+     *
+     * @param image        the destination image
+     * @param originX      the horizontal position of the destination image on the canvas, expressed in pixels
+     * @param originY      the vertical position of the destination image on the canvas, expressed in pixels
+     * @param canvasWidth  the width of the whole canvas, expressed in pixels
+     * @param canvasHeight the height of the whole canvas, expressed in pixels
+     */
+    public RenderTarget(BufferedImage image, int originX, int originY, int canvasWidth, int canvasHeight) {
+        this(image, originX, originY, canvasWidth, canvasHeight, false);
+    }
+
+    /**
+     * Creates a render target that covers only a portion of the canvas, possibly isolated from the image canvas
+     *
+     * @param image        the destination image, in the ARGB integer layout if the target is isolated
+     * @param originX      the horizontal position of the destination image on the canvas, expressed in pixels
+     * @param originY      the vertical position of the destination image on the canvas, expressed in pixels
+     * @param canvasWidth  the width of the whole canvas, expressed in pixels
+     * @param canvasHeight the height of the whole canvas, expressed in pixels
+     * @param isolated     whether layers are composited with the source-over rule instead of the source-atop one
+     */
+    public RenderTarget(
+            BufferedImage image,
+            int originX,
+            int originY,
+            int canvasWidth,
+            int canvasHeight,
+            boolean isolated
+    ) {
+        this.image = image;
+        this.originX = originX;
+        this.originY = originY;
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.isolated = isolated;
+    }
+
+    public BufferedImage getImage() {
+        return this.image;
+    }
+
+    public int getOriginX() {
+        return this.originX;
+    }
+
+    public int getOriginY() {
+        return this.originY;
+    }
+
+    public int getCanvasWidth() {
+        return this.canvasWidth;
+    }
+
+    public int getCanvasHeight() {
+        return this.canvasHeight;
+    }
+
+    public boolean isIsolated() {
+        return this.isolated;
+    }
+
+    /**
+     * Returns the area of the canvas covered by this target, expressed in canvas coordinates
+     *
+     * @return the covered area
+     */
+    public Rectangle getRegion() {
+        return new Rectangle(this.originX, this.originY, this.image.getWidth(), this.image.getHeight());
+    }
+
+    /**
+     * Returns whether this target covers the whole canvas
+     *
+     * @return true if the wrapped image is the whole canvas, false otherwise
+     */
+    public boolean isFullCanvas() {
+        return this.originX == 0 && this.originY == 0 &&
+                this.image.getWidth() == this.canvasWidth && this.image.getHeight() == this.canvasHeight;
+    }
+
+    /**
+     * Creates a graphics context that draws in canvas coordinates, clipped to the given area
+     * <p>
+     * The caller is responsible for disposing the returned graphics.
+     *
+     * @param clip the area to draw on, expressed in canvas coordinates
+     * @return the graphics context
+     */
+    public Graphics2D createGraphics(Rectangle clip) {
+        Graphics2D graphics2D = this.image.createGraphics();
+        graphics2D.translate(-this.originX, -this.originY);
+        graphics2D.clip(clip.intersection(this.getRegion()));
+        return graphics2D;
+    }
+}
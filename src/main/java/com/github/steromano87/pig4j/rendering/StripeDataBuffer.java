@@ -0,0 +1,208 @@
+package com.github.steromano87.pig4j.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * Read-only integer pixel buffer whose pixels are rendered on demand, one horizontal stripe at a time
+ * <p>
+ * The pixels of a stripe are painted the first time one of its rows is read, and only the last
+ * {@link #MAX_CACHED_STRIPES} stripes are kept in memory: readers that go through the image from top to bottom,
+ * such as the image encoders, never hold more than a few stripes, whatever the image size. Reading a row of
+ * a discarded stripe paints the stripe again.
+ * <p>
+ * Images created by {@link #createImage(int, int, boolean, int, StripePainter)} use the same pixel layout of the
+ * {@link BufferedImage#TYPE_INT_ARGB} and {@link BufferedImage#TYPE_INT_RGB} images, but are reported as
+ * {@link BufferedImage#TYPE_CUSTOM}. Any attempt to modify their pixels throws an
+ * {@link UnsupportedOperationException}.
+ */
+public final class StripeDataBuffer extends DataBuffer {
+    /**
+     * Number of painted stripes kept in memory, so that concurrent readers of adjacent rows do not paint
+     * the same stripe twice
+     */
+    public static final int MAX_CACHED_STRIPES = 3;
+
+    private final int width;
+    private final int height;
+    private final int stripeHeight;
+    private final boolean hasAlphaChannel;
+    private final StripePainter painter;
+
+    private final Deque<Stripe> cachedStripes = new ArrayDeque<>();
+    private volatile Stripe lastStripe;
+
+    private StripeDataBuffer(int width, int height, boolean hasAlphaChannel, int stripeHeight, StripePainter painter) {
+        super(DataBuffer.TYPE_INT, width * height);
+        this.width = width;
+        this.height = height;
+        this.stripeHeight = stripeHeight;
+        this.hasAlphaChannel = hasAlphaChannel;
+        this.painter = painter;
+    }
+
+    /**
+     * Creates an image whose pixels are painted stripe by stripe when they are read
+     *
+     * @param width           the width of the image, expressed in pixels
+     * @param height          the height of the image, expressed in pixels
+     * @param hasAlphaChannel whether the image stores ARGB or RGB pixels
+     * @param stripeHeight    the number of rows of each stripe
+     * @param painter         the painter that draws the pixels of each stripe
+     * @return the streamed image
+     */
+    public static BufferedImage createImage(
+            int width,
+            int height,
+            boolean hasAlphaChannel,
+            int stripeHeight,
+            StripePainter painter
+    ) {
+        if (stripeHeight <= 0) {
+            throw new IllegalArgumentException("Stripe height should be a positive number");
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Streamed images cannot hold more than " + Integer.MAX_VALUE + " pixels");
+        }
+
+        ColorModel colorModel = hasAlphaChannel
+                ? ColorModel.getRGBdefault()
+                : new DirectColorModel(24, 0x00FF0000, 0x0000FF00, 0x000000FF);
+        SinglePixelPackedSampleModel sampleModel = new SinglePixelPackedSampleModel(
+                DataBuffer.TYPE_INT,
+                width,
+                height,
+                ((DirectColorModel) colorModel).getMasks()
+        );
+        StripeDataBuffer dataBuffer = new StripeDataBuffer(width, height, hasAlphaChannel, stripeHeight, painter);
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, new Point());
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    /**
+     * Returns the streamed buffer that provides the pixels of an image, if any
+     *
+     * @param image the image to inspect
+     * @return the streamed buffer, or null if the pixels of the image are stored in memory
+     */
+    public static StripeDataBuffer of(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return dataBuffer instanceof StripeDataBuffer ? (StripeDataBuffer) dataBuffer : null;
+    }
+
+    public int getStripeHeight() {
+        return this.stripeHeight;
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        int index = i + this.offsets[bank];
+        int row = index / this.width;
+        Stripe stripe = this.lastStripe;
+        if (Objects.isNull(stripe) || !stripe.contains(row)) {
+            stripe = this.getStripe(row);
+        }
+        return stripe.pixels[index - stripe.fromRow * this.width];
+    }
+
+    @Override
+    public void setElem(int bank, int i, int val) {
+        throw new UnsupportedOperationException("The pixels of a streamed image cannot be modified");
+    }
+
+    /**
+     * Reads consecutive pixels into an array, painting the stripes they belong to if needed
+     *
+     * @param index       the index of the first pixel
+     * @param destination the array to fill
+     * @param offset      the position of the first pixel in the array
+     * @param length      the number of pixels to read
+     */
+    public void get(int index, int[] destination, int offset, int length) {
+        int copied = 0;
+        while (copied < length) {
+            int row = (index + copied) / this.width;
+            Stripe stripe = this.lastStripe;
+            if (Objects.isNull(stripe) || !stripe.contains(row)) {
+                stripe = this.getStripe(row);
+            }
+
+            int stripeIndex = index + copied - stripe.fromRow * this.width;
+            int count = Math.min(length - copied, stripe.pixels.length - stripeIndex);
+            System.arraycopy(stripe.pixels, stripeIndex, destination, offset + copied, count);
+            copied += count;
+        }
+    }
+
+    private synchronized Stripe getStripe(int row) {
+        if (row < 0 || row >= this.height) {
+            throw new ArrayIndexOutOfBoundsException("Row " + row + " is outside of the streamed image");
+        }
+
+        for (Stripe stripe : this.cachedStripes) {
+            if (stripe.contains(row)) {
+                this.lastStripe = stripe;
+                return stripe;
+            }
+        }
+
+        int fromRow = row - row % this.stripeHeight;
+        int toRow = Math.min(this.height, fromRow + this.stripeHeight);
+        BufferedImage stripeImage = new BufferedImage(
+                this.width,
+                toRow - fromRow,
+                this.hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+        );
+        this.painter.paint(new RenderTarget(stripeImage, 0, fromRow, this.width, this.height));
+
+        Stripe stripe = new Stripe(fromRow, toRow, ((DataBufferInt) stripeImage.getRaster().getDataBuffer()).getData());
+        if (this.cachedStripes.size() == MAX_CACHED_STRIPES) {
+            this.cachedStripes.removeFirst();
+        }
+        this.cachedStripes.addLast(stripe);
+        this.lastStripe = stripe;
+        return stripe;
+    }
+
+    /**
+     * Draws the pixels of a stripe
+     */
+    @FunctionalInterface
+    public interface StripePainter {
+        /**
+         * Paints a stripe, whose pixels are initially all set to zero
+         *
+         * @param target the render target that covers the rows of the stripe, with its integer heap image
+         */
+        void paint(RenderTarget target);
+    }
+
+    /**
+     * Painted rows of the image
+     */
+    private static final class Stripe {
+        private final int fromRow;
+        private final int toRow;
+        private final int[] pixels;
+
+        private Stripe(int fromRow, int toRow, int[] pixels) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.pixels = pixels;
+        }
+
+        private boolean contains(int row) {
+            return row >= this.fromRow && row < this.toRow;
+        }
+    }
+}
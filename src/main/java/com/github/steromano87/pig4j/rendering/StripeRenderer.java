@@ -0,0 +1,147 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Renders a layer stack one horizontal stripe at a time, while the output image is being read
+ * <p>
+ * Layers are planned (see {@link RenderPlan}) and prepared once for the stripes
+ * (see {@link Layer#prepareForStripes(int, int, boolean)}), then the returned image paints each stripe only when
+ * its rows are read (see {@link StripeDataBuffer}): each stripe is filled with the background and composited in
+ * place with all the layers that touch it. Encoders that write the image from top to bottom, as the PNG scanlines
+ * or the TIFF strips, keep in memory only a few stripes instead of the whole canvas.
+ * <p>
+ * Since every stripe is drawn with the same prepared layers, the output is the same of the sequential
+ * in-place compositing.
+ */
+public class StripeRenderer {
+    private final int stripeHeight;
+
+    /**
+     * Creates a stripe renderer
+     *
+     * @param stripeHeight the number of rows of each stripe
+     */
+    public StripeRenderer(int stripeHeight) {
+        if (stripeHeight <= 0) {
+            throw new IllegalArgumentException("Stripe height should be a positive number");
+        }
+
+        this.stripeHeight = stripeHeight;
+    }
+
+    public int getStripeHeight() {
+        return this.stripeHeight;
+    }
+
+    /**
+     * Returns an image that renders the given layers on a background stripe by stripe, when its pixels are read
+     * <p>
+     * The layers must not be modified until the image has been read.
+     *
+     * @param layers          the layers to apply, in FIFO order
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param backgroundColor the background color of every stripe, or null for a transparent background
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @return the streamed image
+     */
+    public BufferedImage render(
+            List<Layer> layers,
+            int canvasWidth,
+            int canvasHeight,
+            Color backgroundColor,
+            boolean hasAlphaChannel
+    ) {
+        return this.render(layers, canvasWidth, canvasHeight, backgroundColor, hasAlphaChannel, Instrumentation.NONE, 0);
+    }
+
+    /**
+     * Returns an image that renders the given layers stripe by stripe, reporting the stages of each layer
+     * to an instrumentation
+     * <p>
+     * The stages of a layer are reported once for the preparation and once for every stripe the layer touches.
+     * The layers must not be modified until the image has been read.
+     *
+     * @param layers          the layers to apply, in FIFO order
+     * @param canvasWidth     the width of the canvas, expressed in pixels
+     * @param canvasHeight    the height of the canvas, expressed in pixels
+     * @param backgroundColor the background color of every stripe, or null for a transparent background
+     * @param hasAlphaChannel whether the canvas supports the alpha channel or not
+     * @param instrumentation the instrumentation that receives the stages
+     * @param firstLayerIndex the index reported for the first layer of the list
+     * @return the streamed image
+     */
+    public BufferedImage render(
+            List<Layer> layers,
+            int canvasWidth,
+            int canvasHeight,
+            Color backgroundColor,
+            boolean hasAlphaChannel,
+            Instrumentation instrumentation,
+            int firstLayerIndex
+    ) {
+        RenderPlan renderPlan = RenderPlan.create(layers, canvasWidth, canvasHeight, hasAlphaChannel);
+        List<Layer> preparedLayers = new ArrayList<>();
+        List<Rectangle> preparedBounds = new ArrayList<>();
+        List<Integer> preparedIndexes = new ArrayList<>();
+        for (int i = 0; i < renderPlan.getLayers().size(); i++) {
+            Layer layer = renderPlan.getLayers().get(i);
+            int layerIndex = firstLayerIndex + renderPlan.getIndexes().get(i);
+            Layer preparedLayer;
+            try (LayerProbe ignored = LayerProbe.open(instrumentation, layerIndex, layer)) {
+                preparedLayer = layer.prepareForStripes(canvasWidth, canvasHeight, hasAlphaChannel);
+            }
+            preparedLayers.add(preparedLayer);
+            preparedBounds.add(preparedLayer.getBounds(canvasWidth, canvasHeight));
+            preparedIndexes.add(layerIndex);
+        }
+
+        int background = Objects.isNull(backgroundColor) ? 0 : backgroundColor.getRGB();
+        return StripeDataBuffer.createImage(
+                canvasWidth,
+                canvasHeight,
+                hasAlphaChannel,
+                this.stripeHeight,
+                target -> paintStripe(target, background, preparedLayers, preparedBounds, preparedIndexes, instrumentation)
+        );
+    }
+
+    private static void paintStripe(
+            RenderTarget target,
+            int background,
+            List<Layer> layers,
+            List<Rectangle> bounds,
+            List<Integer> indexes,
+            Instrumentation instrumentation
+    ) {
+        BufferedImage stripeImage = target.getImage();
+        if (background != 0) {
+            Graphics2D graphics2D = stripeImage.createGraphics();
+            graphics2D.setComposite(AlphaComposite.Src);
+            graphics2D.setColor(new Color(background, true));
+            graphics2D.fillRect(0, 0, stripeImage.getWidth(), stripeImage.getHeight());
+            graphics2D.dispose();
+        }
+
+        Rectangle stripeBounds = target.getRegion();
+        long stripePixels = (long) stripeBounds.width * stripeBounds.height;
+        for (int i = 0; i < layers.size(); i++) {
+            if (bounds.get(i).intersects(stripeBounds)) {
+                Layer layer = layers.get(i);
+                try (LayerProbe ignored = LayerProbe.open(instrumentation, indexes.get(i), layer);
+                     LayerProbe.StageTimer timer = LayerProbe.time(Instrumentation.Stage.LAYER, stripePixels)) {
+                    layer.applyInPlace(target);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.cache.TextCache;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+
+import java.awt.*;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable layout of a text, split in lines that are ready to be drawn
+ * <p>
+ * The text is split in paragraphs on line feeds, then each paragraph is wrapped on word boundaries
+ * with a {@link LineBreakMeasurer} when a maximum width is given. Words longer than the maximum width
+ * are broken across lines. Lines that do not fit entirely in the maximum height are dropped.
+ * <p>
+ * The block is as wide as the maximum width, if any, or as the longest line otherwise, and lines are aligned
+ * inside it. Since the layout does not depend on the text color, the same block can be drawn with any color.
+ */
+public final class TextBlock {
+    private final List<Line> lines;
+    private final int width;
+    private final int height;
+    private final float contentWidth;
+    private final boolean isTruncated;
+    private final int characterCount;
+
+    private TextBlock(List<Line> lines, int width, int height, float contentWidth, boolean isTruncated, int characterCount) {
+        this.lines = lines;
+        this.width = width;
+        this.height = height;
+        this.contentWidth = contentWidth;
+        this.isTruncated = isTruncated;
+        this.characterCount = characterCount;
+    }
+
+    /**
+     * Lays out a text in a bounded box
+     *
+     * @param text      the text, where line feeds start new paragraphs
+     * @param font      the text font
+     * @param maxWidth  the maximum width of the lines, expressed in pixels, or null to disable wrapping
+     * @param maxHeight the maximum height of the block, expressed in pixels, or null to keep all the lines
+     * @param alignment the horizontal alignment of the lines inside the block
+     * @return the text layout
+     */
+    public static TextBlock layOut(String text, Font font, Integer maxWidth, Integer maxHeight, TextLayer.Alignment alignment) {
+        float wrappingWidth = Objects.isNull(maxWidth) ? Float.MAX_VALUE : maxWidth;
+
+        // Break the paragraphs in lines, stacking them from the top of the block
+        List<TextLayout> layouts = new ArrayList<>();
+        List<Float> baselines = new ArrayList<>();
+        float lineTop = 0;
+        float contentWidth = 0;
+        boolean isTruncated = false;
+        for (String paragraph : text.split("\n", -1)) {
+            for (TextLayout layout : layOutParagraph(paragraph, font, wrappingWidth)) {
+                float lineHeight = layout.getAscent() + layout.getDescent() + layout.getLeading();
+                if (!Objects.isNull(maxHeight) && lineTop + layout.getAscent() + layout.getDescent() > maxHeight) {
+                    isTruncated = true;
+                    break;
+                }
+                layouts.add(layout);
+                baselines.add(lineTop + layout.getAscent());
+                contentWidth = Math.max(contentWidth, layout.getAdvance());
+                lineTop += lineHeight;
+            }
+            if (isTruncated) {
+                break;
+            }
+        }
+
+        int width = Objects.isNull(maxWidth) ? (int) Math.ceil(contentWidth) : maxWidth;
+        int height = (int) Math.ceil(lineTop);
+        if (!Objects.isNull(maxHeight)) {
+            height = Math.min(height, maxHeight);
+        }
+
+        List<Line> lines = new ArrayList<>();
+        for (int i = 0; i < layouts.size(); i++) {
+            TextLayout layout = layouts.get(i);
+            lines.add(new Line(layout, alignment.getOffset(width, layout.getVisibleAdvance()), baselines.get(i)));
+        }
+        return new TextBlock(Collections.unmodifiableList(lines), width, height, contentWidth, isTruncated, text.length());
+    }
+
+    /**
+     * Draws the lines on a graphics context, using its current paint
+     *
+     * @param graphics2D the graphics context
+     * @param x          the horizontal position of the top left corner of the block
+     * @param y          the vertical position of the top left corner of the block
+     */
+    public void draw(Graphics2D graphics2D, float x, float y) {
+        for (Line line : this.lines) {
+            line.layout.draw(graphics2D, x + line.x, y + line.baseline);
+        }
+    }
+
+    /**
+     * Checks whether the block fits in a box without dropping lines
+     *
+     * @param maxWidth  the maximum width of the box, expressed in pixels, or null for no limit
+     * @param maxHeight the maximum height of the box, expressed in pixels, or null for no limit
+     * @return true if all the lines are kept and none of them is wider than the box, false otherwise
+     */
+    public boolean fits(Integer maxWidth, Integer maxHeight) {
+        return !this.isTruncated &&
+                (Objects.isNull(maxWidth) || this.contentWidth <= maxWidth) &&
+                (Objects.isNull(maxHeight) || this.height <= maxHeight);
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getLineCount() {
+        return this.lines.size();
+    }
+
+    public int getCharacterCount() {
+        return this.characterCount;
+    }
+
+    private static List<TextLayout> layOutParagraph(String paragraph, Font font, float wrappingWidth) {
+        if (paragraph.isEmpty()) {
+            // Empty paragraphs still take the height of a line
+            return Collections.singletonList(new TextLayout(" ", font, TextCache.getFontRenderContext()));
+        }
+
+        AttributedString attributedText = new AttributedString(paragraph);
+        attributedText.addAttribute(TextAttribute.FONT, font);
+        LineBreakMeasurer measurer = new LineBreakMeasurer(attributedText.getIterator(), TextCache.getFontRenderContext());
+
+        List<TextLayout> layouts = new ArrayList<>();
+        while (measurer.getPosition() < paragraph.length()) {
+            layouts.add(measurer.nextLayout(wrappingWidth));
+        }
+        return layouts;
+    }
+
+    private static final class Line {
+        private final TextLayout layout;
+        private final float x;
+        private final float baseline;
+
+        private Line(TextLayout layout, float x, float baseline) {
+            this.layout = layout;
+            this.x = x;
+            this.baseline = baseline;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.steromano87.pig4j.rendering;
+
+import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.instrumentation.LayerProbe;
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Renders a layer stack in parallel, splitting the canvas in square tiles
+ * <p>
+ * Layers are planned (see {@link RenderPlan}) and prepared once (see {@link Layer#prepare(int, int, boolean)}),
+ * then each tile is copied from the canvas, composited in place with all the layers that touch it and copied back.
+ * Since every tile is drawn with the same prepared rasters, the output is the same of the sequential
+ * in-place compositing.
+ */
+public class TileRenderer {
+    private final int tileSize;
+    private final Executor executor;
+
+    /**
+     * Creates a tile renderer that runs on the common fork-join pool
+     *
+     * @param tileSize the size of the side of a tile, expressed in pixels
+     */
+    public TileRenderer(int tileSize) {
+        this(tileSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a tile renderer that runs on the given executor
+     *
+     * @param tileSize the size of the side of a tile, expressed in pixels
+     * @param executor the executor used to prepare layers and render tiles
+     */
+    public TileRenderer(int tileSize, Executor executor) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size should be a positive number");
+        }
+
+        this.tileSize = tileSize;
+        this.executor = executor;
+    }
+
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    /**
+     * Composites the given layers on the canvas, modifying it in place
+     *
+     * @param layers the layers to apply, in FIFO order
+     * @param canvas the canvas to draw on
+     * @throws ImageGenerationException if any layer fails during the rendering
+     */
+    public void render(List<Layer> layers, BufferedImage canvas) throws ImageGenerationException {
+        this.render(layers, canvas, Instrumentation.NONE, 0);
+    }
+
+    /**
+     * Composites the given layers on the canvas, reporting the stages of each layer to an instrumentation
+     * <p>
+     * The stages of a layer are reported once for the preparation and once for every tile the layer touches.
+     *
+     * @param layers          the layers to apply, in FIFO order
+     * @param canvas          the canvas to draw on
+     * @param instrumentation the instrumentation that receives the stages
+     * @param firstLayerIndex the index reported for the first layer of the list
+     * @throws ImageGenerationException if any layer fails during the rendering
+     */
+    public void render(List<Layer> layers, BufferedImage canvas, Instrumentation instrumentation, int firstLayerIndex)
+            throws ImageGenerationException {
+        int canvasWidth = canvas.getWidth();
+        int canvasHeight = canvas.getHeight();
+        boolean hasAlphaChannel = canvas.getColorModel().hasAlpha();
+        Rectangle canvasBounds = new Rectangle(0, 0, canvasWidth, canvasHeight);
+
+        // Prepare the planned layers concurrently, keeping their order
+        RenderPlan renderPlan = RenderPlan.create(layers, canvasWidth, canvasHeight, hasAlphaChannel);
+        List<CompletableFuture<Layer>> preparations = new ArrayList<>();
+        List<Integer> preparedIndexes = new ArrayList<>();
+        for (int i = 0; i < renderPlan.getLayers().size(); i++) {
+            Layer layer = renderPlan.getLayers().get(i);
+            int layerIndex = firstLayerIndex + renderPlan.getIndexes().get(i);
+            preparations.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        try (LayerProbe ignored = LayerProbe.open(instrumentation, layerIndex, layer)) {
+                            return layer.prepare(canvasWidth, canvasHeight, hasAlphaChannel);
+                        }
+                    },
+                    this.executor
+            ));
+            preparedIndexes.add(layerIndex);
+        }
+
+        List<Layer> preparedLayers = new ArrayList<>();
+        List<Rectangle> preparedBounds = new ArrayList<>();
+        for (CompletableFuture<Layer> preparation : preparations) {
+            Layer preparedLayer = this.await(preparation);
+            preparedLayers.add(preparedLayer);
+            preparedBounds.add(preparedLayer.getBounds(canvasWidth, canvasHeight));
+        }
+        TileLayers tileLayers = new TileLayers(preparedLayers, preparedBounds, preparedIndexes, instrumentation);
+
+        // Render every tile independently
+        List<CompletableFuture<Void>> tiles = new ArrayList<>();
+        for (int y = 0; y < canvasHeight; y += this.tileSize) {
+            for (int x = 0; x < canvasWidth; x += this.tileSize) {
+                Rectangle tileBounds = new Rectangle(x, y, this.tileSize, this.tileSize).intersection(canvasBounds);
+                tiles.add(CompletableFuture.runAsync(
+                        () -> renderTile(tileLayers, canvas, tileBounds),
+                        this.executor
+                ));
+            }
+        }
+
+        for (CompletableFuture<Void> tile : tiles) {
+            this.await(tile);
+        }
+    }
+
+    private static void renderTile(TileLayers tileLayers, BufferedImage canvas, Rectangle tileBounds) {
+        BufferedImage tileImage = ImageUtils.copyRegion(canvas, tileBounds);
+        RenderTarget target = new RenderTarget(
+                tileImage,
+                tileBounds.x,
+                tileBounds.y,
+                canvas.getWidth(),
+                canvas.getHeight()
+        );
+
+        long tilePixels = (long) tileBounds.width * tileBounds.height;
+        for (int i = 0; i < tileLayers.layers.size(); i++) {
+            if (tileLayers.bounds.get(i).intersects(tileBounds)) {
+                Layer layer = tileLayers.layers.get(i);
+                try (LayerProbe ignored = LayerProbe.open(tileLayers.instrumentation, tileLayers.indexes.get(i), layer);
+                     LayerProbe.StageTimer timer = LayerProbe.time(Instrumentation.Stage.LAYER, tilePixels)) {
+                    layer.applyInPlace(target);
+                }
+            }
+        }
+
+        ImageUtils.copyInto(tileImage, canvas, tileBounds.x, tileBounds.y);
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws ImageGenerationException {
+        try {
+            return future.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exc.getCause();
+            }
+            throw new ImageGenerationException("Cannot render image tile", exc.getCause());
+        }
+    }
+
+    /**
+     * Prepared layers shared by all the tiles, with their bounds and their indexes in the image generator
+     */
+    private static final class TileLayers {
+        private final List<Layer> layers;
+        private final List<Rectangle> bounds;
+        private final List<Integer> indexes;
+        private final Instrumentation instrumentation;
+
+        private TileLayers(List<Layer> layers, List<Rectangle> bounds, List<Integer> indexes, Instrumentation instrumentation) {
+            this.layers = layers;
+            this.bounds = bounds;
+            this.indexes = indexes;
+            this.instrumentation = instrumentation;
+        }
+    }
+}
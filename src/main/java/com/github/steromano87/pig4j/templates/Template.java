@@ -0,0 +1,363 @@
+package com.github.steromano87.pig4j.templates;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.exceptions.TemplateException;
+import com.github.steromano87.pig4j.layers.Layer;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Layer stack read from a JSON, YAML or XML document and compiled once, to be rendered many times
+ * <p>
+ * A template defines the canvas ({@code width}, {@code height}, {@code backgroundColor}, {@code alphaChannel}
+ * and {@code compositingMode}) and the {@code layers} list. Each layer selects its class with the {@code type}
+ * property ({@code image}, {@code text}, {@code color} or {@code group}) and sets the other properties through
+ * the layer setters, e.g. {@code {"type": "text", "text": "Hello", "positionOptions": {"x": 10, "y": 20}}}.
+ * Colors are written as {@code #RRGGBB} or {@code #RRGGBBAA} strings. In XML templates lists are written
+ * as repeated elements inside the list element, e.g. {@code <layers><layer type="text">...</layer></layers>}.
+ * <p>
+ * Any string value can contain {@code ${name}} placeholders, that are replaced by the bindings passed to
+ * {@link #createGenerator(Map)}. A placeholder that is the whole value is replaced by the bound value itself,
+ * so numbers, booleans and colors keep their type, while placeholders inside a longer string are replaced by
+ * the string representation of the bound value.
+ * <p>
+ * Templates are immutable and thread-safe. Top-level layers without placeholders are created once when the template
+ * is compiled and shared by all the generators, so that their render keys and cached rasters are reused as well:
+ * they must not be modified. Only the layers with placeholders are created again for each generator.
+ *
+ * @see com.github.steromano87.pig4j.cache.TemplateCache
+ */
+public final class Template {
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]+)}");
+    private static final String LAYERS_PROPERTY = "layers";
+
+    private final CompiledNode<Canvas> canvas;
+    private final List<CompiledNode<Layer>> layers;
+    private final Set<String> placeholders;
+
+    private Template(CompiledNode<Canvas> canvas, List<CompiledNode<Layer>> layers, Set<String> placeholders) {
+        this.canvas = canvas;
+        this.layers = layers;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Reads and compiles a template
+     *
+     * @param inputStream the template document, not closed by this method
+     * @param format      the template format
+     * @return the compiled template
+     * @throws TemplateException if the template cannot be read or does not define a valid layer stack
+     */
+    public static Template parse(InputStream inputStream, Format format) throws TemplateException {
+        try {
+            return compile(TemplateMappers.getReader(format).readTree(inputStream));
+        } catch (IOException exc) {
+            throw new TemplateException("Cannot read " + format + " template", exc);
+        }
+    }
+
+    /**
+     * Reads and compiles a template
+     *
+     * @param template the template document
+     * @param format   the template format
+     * @return the compiled template
+     * @throws TemplateException if the template cannot be read or does not define a valid layer stack
+     */
+    public static Template parse(String template, Format format) throws TemplateException {
+        try {
+            return compile(TemplateMappers.getReader(format).readTree(template));
+        } catch (IOException exc) {
+            throw new TemplateException("Cannot read " + format + " template", exc);
+        }
+    }
+
+    /**
+     * Creates a new image generator with the layers of the template, replacing the placeholders with the given values
+     *
+     * @param bindings the values of the placeholders, by name
+     * @return the image generator, ready to be built
+     * @throws TemplateException if a placeholder has no value or a bound value is not valid
+     */
+    public ImageGenerator createGenerator(Map<String, ?> bindings) throws TemplateException {
+        Canvas canvas = this.canvas.resolve(bindings);
+        ImageGenerator generator = new ImageGenerator(
+                canvas.width,
+                canvas.height,
+                canvas.backgroundColor,
+                canvas.alphaChannel
+        ).setCompositingMode(canvas.compositingMode);
+
+        for (CompiledNode<Layer> layer : this.layers) {
+            generator.addLayer(layer.resolve(bindings));
+        }
+        return generator;
+    }
+
+    /**
+     * Returns the names of all the placeholders used by the template
+     *
+     * @return the placeholder names, in order of appearance
+     */
+    public Set<String> getPlaceholders() {
+        return this.placeholders;
+    }
+
+    private static Template compile(JsonNode document) throws TemplateException {
+        if (Objects.isNull(document) || !document.isObject()) {
+            throw new TemplateException("Templates should be objects holding the canvas properties and the layers");
+        }
+
+        ObjectNode root = (ObjectNode) normalizeLists(document.deepCopy());
+        JsonNode layersNode = root.remove(LAYERS_PROPERTY);
+        if (Objects.isNull(layersNode) || !layersNode.isArray() || layersNode.size() == 0) {
+            throw new TemplateException("Templates should define at least one layer");
+        }
+
+        Set<String> placeholders = new LinkedHashSet<>();
+        CompiledNode<Canvas> canvas = CompiledNode.compile(root, Canvas.class, placeholders);
+        List<CompiledNode<Layer>> layers = new ArrayList<>();
+        for (JsonNode layerNode : layersNode) {
+            layers.add(CompiledNode.compile(layerNode, Layer.class, placeholders));
+        }
+
+        return new Template(canvas, Collections.unmodifiableList(layers), Collections.unmodifiableSet(placeholders));
+    }
+
+    private static JsonNode normalizeLists(JsonNode node) {
+        if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                arrayNode.set(i, normalizeLists(arrayNode.get(i)));
+            }
+            return arrayNode;
+        }
+
+        if (!node.isObject()) {
+            return node;
+        }
+
+        ObjectNode objectNode = (ObjectNode) node;
+        Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (LAYERS_PROPERTY.equals(field.getKey())) {
+                value = toList(value);
+            }
+            field.setValue(normalizeLists(value));
+        }
+        return objectNode;
+    }
+
+    private static JsonNode toList(JsonNode node) {
+        // XML lists are read as an element wrapping one or more repeated elements
+        if (node.isArray()) {
+            return node;
+        }
+
+        ArrayNode arrayNode = JsonNodeFactory.instance.arrayNode();
+        if (node.isObject() && node.size() == 1) {
+            JsonNode items = node.elements().next();
+            if (items.isArray()) {
+                arrayNode.addAll((ArrayNode) items);
+            } else {
+                arrayNode.add(items);
+            }
+        } else if (!(node.isTextual() && node.asText().trim().isEmpty())) {
+            arrayNode.add(node);
+        }
+        return arrayNode;
+    }
+
+    private static JsonNode bind(JsonNode node, Map<String, ?> bindings) throws TemplateException {
+        if (node.isTextual()) {
+            return bindText(node.asText(), bindings);
+        }
+
+        if (node.isArray()) {
+            ArrayNode arrayNode = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode item : node) {
+                arrayNode.add(bind(item, bindings));
+            }
+            return arrayNode;
+        }
+
+        if (node.isObject()) {
+            ObjectNode objectNode = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                objectNode.set(field.getKey(), bind(field.getValue(), bindings));
+            }
+            return objectNode;
+        }
+
+        return node;
+    }
+
+    private static JsonNode bindText(String text, Map<String, ?> bindings) throws TemplateException {
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        if (matcher.matches()) {
+            return toNode(getBinding(matcher.group(1), bindings));
+        }
+
+        StringBuffer boundText = new StringBuffer();
+        while (matcher.find()) {
+            Object value = getBinding(matcher.group(1), bindings);
+            String replacement = value instanceof Color ? TemplateMappers.formatColor((Color) value) : String.valueOf(value);
+            matcher.appendReplacement(boundText, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(boundText);
+        return new TextNode(boundText.toString());
+    }
+
+    private static Object getBinding(String name, Map<String, ?> bindings) throws TemplateException {
+        if (!bindings.containsKey(name)) {
+            throw new TemplateException("No value is bound to placeholder '" + name + "'");
+        }
+        return bindings.get(name);
+    }
+
+    private static JsonNode toNode(Object value) {
+        if (value instanceof Color) {
+            return new TextNode(TemplateMappers.formatColor((Color) value));
+        }
+        if (value instanceof File || value instanceof URL) {
+            return new TextNode(value.toString());
+        }
+        return TemplateMappers.getBinder().valueToTree(value);
+    }
+
+    private static boolean hasPlaceholders(JsonNode node, Set<String> placeholders) {
+        boolean hasPlaceholders = false;
+        if (node.isTextual()) {
+            Matcher matcher = PLACEHOLDER.matcher(node.asText());
+            while (matcher.find()) {
+                placeholders.add(matcher.group(1));
+                hasPlaceholders = true;
+            }
+        }
+        for (JsonNode child : node) {
+            hasPlaceholders |= hasPlaceholders(child, placeholders);
+        }
+        return hasPlaceholders;
+    }
+
+    /**
+     * Template node that is either bound once at compile time or on every render, when it holds placeholders
+     *
+     * @param <T> the type of the bound value
+     */
+    private static final class CompiledNode<T> {
+        private final JsonNode node;
+        private final Class<T> type;
+        private final T value;
+
+        private CompiledNode(JsonNode node, Class<T> type, T value) {
+            this.node = node;
+            this.type = type;
+            this.value = value;
+        }
+
+        private static <T> CompiledNode<T> compile(JsonNode node, Class<T> type, Set<String> placeholders)
+                throws TemplateException {
+            if (hasPlaceholders(node, placeholders)) {
+                return new CompiledNode<>(node, type, null);
+            }
+            return new CompiledNode<>(null, type, convert(node, type));
+        }
+
+        private T resolve(Map<String, ?> bindings) throws TemplateException {
+            if (Objects.isNull(this.node)) {
+                return this.value;
+            }
+            return convert(bind(this.node, bindings), this.type);
+        }
+
+        private static <T> T convert(JsonNode node, Class<T> type) throws TemplateException {
+            try {
+                return TemplateMappers.getBinder().treeToValue(node, type);
+            } catch (JsonProcessingException | IllegalArgumentException exc) {
+                throw new TemplateException("Invalid template " + type.getSimpleName().toLowerCase() + ": " + exc.getMessage(), exc);
+            }
+        }
+    }
+
+    /**
+     * Canvas properties of a template
+     */
+    private static final class Canvas {
+        @JsonProperty(required = true)
+        private int width;
+
+        @JsonProperty(required = true)
+        private int height;
+
+        @JsonProperty
+        private Color backgroundColor = Color.WHITE;
+
+        @JsonProperty
+        private boolean alphaChannel = false;
+
+        @JsonProperty
+        private ImageGenerator.CompositingMode compositingMode = ImageGenerator.CompositingMode.COPY;
+    }
+
+    /**
+     * Document formats supported by templates
+     */
+    public enum Format {
+        JSON("json"),
+        YAML("yaml", "yml"),
+        XML("xml");
+
+        private final String[] extensions;
+
+        Format(String... extensions) {
+            this.extensions = extensions;
+        }
+
+        /**
+         * Returns the format of a template file, given its extension
+         *
+         * @param file the template file
+         * @return the template format
+         * @throws TemplateException if the file extension does not match any format
+         */
+        public static Format fromFile(File file) throws TemplateException {
+            String fileName = file.getName();
+            String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+            for (Format format : values()) {
+                for (String formatExtension : format.extensions) {
+                    if (formatExtension.equals(extension)) {
+                        return format;
+                    }
+                }
+            }
+            throw new TemplateException("Unknown template format for file " + fileName);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.steromano87.pig4j.templates;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.layers.base.GroupingLayer;
+import com.github.steromano87.pig4j.layers.base.ImageLayer;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Jackson mappers used to read the templates and to bind their nodes to layers and options
+ * <p>
+ * Layers are selected by the {@code type} property, colors are written as {@code #RRGGBB} or {@code #RRGGBBAA}
+ * hexadecimal strings, while all the other properties are bound through the fluent setters of the layers and options.
+ */
+final class TemplateMappers {
+    private static final ObjectMapper JSON_MAPPER = configure(new ObjectMapper());
+    private static final ObjectMapper YAML_MAPPER = configure(new YAMLMapper());
+    private static final ObjectMapper XML_MAPPER = configure(new XmlMapper());
+
+    private TemplateMappers() {
+    }
+
+    /**
+     * Returns the mapper that reads templates in the given format
+     *
+     * @param format the template format
+     * @return the template mapper
+     */
+    static ObjectMapper getReader(Template.Format format) {
+        switch (format) {
+            case YAML:
+                return YAML_MAPPER;
+            case XML:
+                return XML_MAPPER;
+            default:
+                return JSON_MAPPER;
+        }
+    }
+
+    /**
+     * Returns the mapper that binds template nodes to layers and options, regardless of the template format
+     *
+     * @return the binding mapper
+     */
+    static ObjectMapper getBinder() {
+        return JSON_MAPPER;
+    }
+
+    /**
+     * Formats a color in the notation accepted by templates
+     *
+     * @param color the color to format
+     * @return the color as a {@code #RRGGBBAA} hexadecimal string
+     */
+    static String formatColor(Color color) {
+        return String.format("#%02X%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha());
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        SimpleModule module = new SimpleModule("pig4j-templates");
+        module.addDeserializer(Color.class, new ColorDeserializer());
+        mapper.registerModule(module);
+        mapper.addMixIn(Layer.class, LayerMixIn.class);
+        mapper.addMixIn(ImageLayer.class, ImageLayerMixIn.class);
+        return mapper;
+    }
+
+    /**
+     * Maps the {@code type} property of the templates to the layer classes
+     */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({
+            @JsonSubTypes.Type(value = ImageLayer.class, name = "image"),
+            @JsonSubTypes.Type(value = TextLayer.class, name = "text"),
+            @JsonSubTypes.Type(value = SingleColorLayer.class, name = "color"),
+            @JsonSubTypes.Type(value = GroupingLayer.class, name = "group")
+    })
+    private abstract static class LayerMixIn {
+    }
+
+    /**
+     * Hides the decoded source image, that cannot be written in a template
+     */
+    private abstract static class ImageLayerMixIn {
+        @JsonIgnore
+        abstract ImageLayer setSourceImage(BufferedImage sourceImage);
+    }
+
+    /**
+     * Reads colors from hexadecimal strings
+     */
+    private static final class ColorDeserializer extends StdScalarDeserializer<Color> {
+        private ColorDeserializer() {
+            super(Color.class);
+        }
+
+        @Override
+        public Color deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String value = parser.getValueAsString();
+            if (value == null || !value.matches("#([0-9a-fA-F]{6}|[0-9a-fA-F]{8})")) {
+                return (Color) context.handleWeirdStringValue(Color.class, value, "expected #RRGGBB or #RRGGBBAA");
+            }
+
+            long rgba = Long.parseLong(value.substring(1), 16);
+            if (value.length() == 7) {
+                return new Color((int) rgba);
+            }
+            return new Color((int) (rgba >> 24) & 0xFF, (int) (rgba >> 16) & 0xFF, (int) (rgba >> 8) & 0xFF, (int) rgba & 0xFF);
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package com.github.steromano87.pig4j.test;
 
+import com.github.steromano87.pig4j.ImageFormat;
 import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.encoding.ParallelPngEncoder;
 import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
+import com.github.steromano87.pig4j.layers.base.GroupingLayer;
+import com.github.steromano87.pig4j.layers.base.ImageLayer;
 import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import com.github.steromano87.pig4j.rendering.OffHeapDataBuffer;
+import com.github.steromano87.pig4j.rendering.StripeDataBuffer;
+import com.github.steromano87.pig4j.rendering.TileRenderer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Base64;
 
 class ImageGeneratorTests {
     @Test
@@ -73,4 +92,244 @@ class ImageGeneratorTests {
                 () -> Assertions.assertFalse(outputImage.getColorModel().hasAlpha())
         );
     }
+
+    @Test
+    void testRebuildDoesNotModifyReturnedImage() {
+        SingleColorLayer layer = new SingleColorLayer().setColor(Color.BLUE);
+        ImageGenerator generator = new ImageGenerator(64, 48).addLayer(layer);
+        BufferedImage firstImage = generator.build().toImage();
+
+        layer.setColor(Color.RED);
+        BufferedImage secondImage = generator.build().toImage();
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotSame(firstImage, secondImage),
+                () -> Assertions.assertEquals(Color.BLUE.getRGB(), firstImage.getRGB(10, 10)),
+                () -> Assertions.assertEquals(Color.RED.getRGB(), secondImage.getRGB(10, 10))
+        );
+    }
+
+    @Test
+    void testStreamingOutputsMatchByteArray() {
+        ImageGenerator generator = new ImageGenerator(64, 64);
+        generator.addLayer(new SingleColorLayer().setColor(Color.ORANGE));
+        generator.build();
+
+        byte[] encodedImage = generator.toByteArray(ImageFormat.PNG);
+        String base64Image = Base64.getEncoder().encodeToString(encodedImage);
+
+        ByteArrayOutputStream channelStream = new ByteArrayOutputStream();
+        boolean channelWritten = generator.toChannel(Channels.newChannel(channelStream), ImageFormat.PNG);
+        ByteArrayOutputStream dataUrlStream = new ByteArrayOutputStream();
+        generator.toDataUrl(dataUrlStream, ImageFormat.PNG);
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(channelWritten),
+                () -> Assertions.assertArrayEquals(encodedImage, channelStream.toByteArray()),
+                () -> Assertions.assertEquals(base64Image, generator.toBase64(ImageFormat.PNG)),
+                () -> Assertions.assertEquals(
+                        "data:image/png;base64," + base64Image,
+                        new String(dataUrlStream.toByteArray(), StandardCharsets.US_ASCII)
+                ),
+                () -> Assertions.assertEquals(generator.toDataUrl(ImageFormat.PNG), "data:image/png;base64," + base64Image)
+        );
+    }
+
+    @Test
+    void testRepeatedBuildsDoNotReapplyLayers() {
+        ImageGenerator generator = new ImageGenerator(64, 64);
+        generator.addLayer(new SingleColorLayer().setColor(new Color(255, 0, 0, 128)));
+
+        int firstBuildColor = generator.build().toImage().getRGB(10, 10);
+        int secondBuildColor = generator.build().toImage().getRGB(10, 10);
+
+        Assertions.assertEquals(firstBuildColor, secondBuildColor);
+    }
+
+    @Test
+    void testRebuildWithChangedTopLayer() {
+        TextLayer headlineLayer = new TextLayer();
+        headlineLayer.setText("First headline").setFontSize(40);
+        headlineLayer.setPositionOptions(new PositionOptions().setX(100).setY(300));
+
+        ImageGenerator generator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        generator.addLayer(headlineLayer);
+        generator.build();
+        headlineLayer.setText("Second headline");
+        generator.build();
+        headlineLayer.setText("Third headline");
+        BufferedImage rebuiltImage = generator.build().toImage();
+
+        ImageGenerator freshGenerator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        freshGenerator.addLayer(headlineLayer);
+        BufferedImage freshImage = freshGenerator.build().toImage();
+
+        Assertions.assertArrayEquals(
+                freshImage.getRGB(0, 0, 640, 400, null, 0, 640),
+                rebuiltImage.getRGB(0, 0, 640, 400, null, 0, 640)
+        );
+    }
+
+    @Test
+    void testInPlaceCompositingMatchesCopyCompositing() {
+        BufferedImage copiedImage = this.buildSampleGenerator(ImageGenerator.CompositingMode.COPY).build().toImage();
+        BufferedImage inPlaceImage = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE).build().toImage();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(copiedImage.getType(), inPlaceImage.getType()),
+                () -> Assertions.assertArrayEquals(
+                        copiedImage.getRGB(0, 0, 640, 400, null, 0, 640),
+                        inPlaceImage.getRGB(0, 0, 640, 400, null, 0, 640)
+                )
+        );
+    }
+
+    @Test
+    void testTiledRenderingMatchesSequentialRendering() {
+        ImageGenerator copiedGenerator = new ImageGenerator(640, 400);
+        this.addSeamCrossingLayers(copiedGenerator);
+        BufferedImage copiedImage = copiedGenerator.build().toImage();
+
+        ImageGenerator inPlaceGenerator = new ImageGenerator(640, 400)
+                .setCompositingMode(ImageGenerator.CompositingMode.IN_PLACE);
+        this.addSeamCrossingLayers(inPlaceGenerator);
+        BufferedImage inPlaceImage = inPlaceGenerator.build().toImage();
+
+        ImageGenerator tiledGenerator = new ImageGenerator(640, 400).setTileRenderer(new TileRenderer(96));
+        this.addSeamCrossingLayers(tiledGenerator);
+        BufferedImage tiledImage = tiledGenerator.build().toImage();
+
+        int[] tiledPixels = tiledImage.getRGB(0, 0, 640, 400, null, 0, 640);
+        Assertions.assertAll(
+                () -> Assertions.assertArrayEquals(copiedImage.getRGB(0, 0, 640, 400, null, 0, 640), tiledPixels),
+                () -> Assertions.assertArrayEquals(inPlaceImage.getRGB(0, 0, 640, 400, null, 0, 640), tiledPixels)
+        );
+    }
+
+    @Test
+    void testOffHeapCanvasMatchesHeapCanvas() throws Exception {
+        ImageGenerator heapGenerator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        this.addTextAndGroupLayers(heapGenerator);
+        heapGenerator.setTileRenderer(new TileRenderer(96));
+        BufferedImage heapImage = heapGenerator.build().toImage();
+
+        ImageGenerator offHeapGenerator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        this.addTextAndGroupLayers(offHeapGenerator);
+        offHeapGenerator.setCanvasStorage(ImageGenerator.CanvasStorage.OFF_HEAP);
+        BufferedImage offHeapImage = offHeapGenerator.build().build().toImage();
+        BufferedImage decodedImage = ImageIO.read(new ByteArrayInputStream(offHeapGenerator.toByteArray(ImageFormat.PNG)));
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotNull(OffHeapDataBuffer.of(offHeapImage)),
+                () -> Assertions.assertArrayEquals(
+                        heapImage.getRGB(0, 0, 640, 400, null, 0, 640),
+                        offHeapImage.getRGB(0, 0, 640, 400, null, 0, 640)
+                ),
+                () -> Assertions.assertArrayEquals(
+                        heapImage.getRGB(0, 0, 640, 400, null, 0, 640),
+                        decodedImage.getRGB(0, 0, 640, 400, null, 0, 640)
+                )
+        );
+    }
+
+    @Test
+    void testReleasedOffHeapCanvas() {
+        ImageGenerator generator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        generator.setCanvasStorage(ImageGenerator.CanvasStorage.OFF_HEAP);
+        BufferedImage releasedImage = generator.build().toImage();
+        generator.release();
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(OffHeapDataBuffer.of(releasedImage).isReleased()),
+                () -> Assertions.assertThrows(ImageGenerationException.class, generator::toImage),
+                () -> Assertions.assertEquals(640, generator.build().toImage().getWidth())
+        );
+    }
+
+    @Test
+    void testStreamedCanvasMatchesHeapCanvas() throws Exception {
+        ImageGenerator heapGenerator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        this.addTextAndGroupLayers(heapGenerator);
+        BufferedImage heapImage = heapGenerator.build().toImage();
+
+        ImageGenerator streamedGenerator = this.buildSampleGenerator(ImageGenerator.CompositingMode.IN_PLACE);
+        this.addTextAndGroupLayers(streamedGenerator);
+        streamedGenerator.setCanvasStorage(ImageGenerator.CanvasStorage.STREAMED);
+        BufferedImage streamedImage = streamedGenerator.build().toImage();
+        ByteArrayOutputStream pngStream = new ByteArrayOutputStream();
+        new ParallelPngEncoder().setChunkSize(4096).encode(streamedImage, new EncodingOptions(), pngStream);
+        BufferedImage pngImage = ImageIO.read(new ByteArrayInputStream(pngStream.toByteArray()));
+        BufferedImage tiffImage = ImageIO.read(new ByteArrayInputStream(streamedGenerator.toByteArray(ImageFormat.TIFF)));
+
+        int[] heapPixels = heapImage.getRGB(0, 0, 640, 400, null, 0, 640);
+        Assertions.assertAll(
+                () -> Assertions.assertNotNull(StripeDataBuffer.of(streamedImage)),
+                () -> Assertions.assertArrayEquals(heapPixels, streamedImage.getRGB(0, 0, 640, 400, null, 0, 640)),
+                () -> Assertions.assertArrayEquals(heapPixels, pngImage.getRGB(0, 0, 640, 400, null, 0, 640)),
+                () -> Assertions.assertArrayEquals(heapPixels, tiffImage.getRGB(0, 0, 640, 400, null, 0, 640)),
+                () -> Assertions.assertThrows(UnsupportedOperationException.class, () -> streamedImage.setRGB(0, 0, 0))
+        );
+    }
+
+    private void addSeamCrossingLayers(ImageGenerator generator) {
+        ImageLayer backgroundLayer = new ImageLayer();
+        backgroundLayer.setImageFile(Paths.get("src/test/resources/common", "landscape_640_400.jpg").toFile());
+        generator.addLayer(backgroundLayer);
+
+        // Every layer below crosses the seams at multiples of 96 pixels on both axes
+        TextLayer textLayer = new TextLayer();
+        textLayer.setText("Seams 96 192 288").setFontSize(56).setColor(new Color(250, 220, 20, 180));
+        textLayer.setPositionOptions(new PositionOptions().setX(70).setY(70));
+        generator.addLayer(textLayer);
+
+        ImageLayer scaledLayer = new ImageLayer();
+        scaledLayer.setImageFile(Paths.get("src/test/resources/common", "trollface.png").toFile());
+        scaledLayer.setScalingOptions(new ScalingOptions().setWidth(170));
+        scaledLayer.setPositionOptions(new PositionOptions().setX(180).setY(170));
+        scaledLayer.setBlendingOptions(new BlendingOptions().setAlpha(0.75f));
+        generator.addLayer(scaledLayer);
+
+        this.addTextAndGroupLayers(generator);
+    }
+
+    private void addTextAndGroupLayers(ImageGenerator generator) {
+        TextLayer textLayer = new TextLayer();
+        textLayer.setText("pig4j tiled rendering").setFontSize(40).setColor(new Color(20, 40, 200, 200));
+        textLayer.setPositionOptions(new PositionOptions().setX(90).setY(180));
+        generator.addLayer(textLayer);
+
+        ImageLayer badgeLayer = new ImageLayer();
+        badgeLayer.setImageFile(Paths.get("src/test/resources/common", "trollface.png").toFile());
+        badgeLayer.setScalingOptions(new ScalingOptions().setWidth(150));
+        badgeLayer.setPositionOptions(new PositionOptions().setX(250).setY(150));
+
+        GroupingLayer groupingLayer = new GroupingLayer();
+        groupingLayer.addLayer(badgeLayer);
+        groupingLayer.setScalingOptions(new ScalingOptions().setScale(0.75));
+        groupingLayer.setBlendingOptions(new BlendingOptions().setAlpha(0.8f));
+        generator.addLayer(groupingLayer);
+    }
+
+    private ImageGenerator buildSampleGenerator(ImageGenerator.CompositingMode compositingMode) {
+        ImageGenerator generator = new ImageGenerator(640, 400).setCompositingMode(compositingMode);
+
+        ImageLayer backgroundLayer = new ImageLayer();
+        backgroundLayer.setImageFile(Paths.get("src/test/resources/common", "landscape_640_400.jpg").toFile());
+        generator.addLayer(backgroundLayer);
+
+        SingleColorLayer tintLayer = new SingleColorLayer();
+        tintLayer.setColor(new Color(255, 0, 0, 128));
+        tintLayer.setFusionOptions(new BlendingOptions().setAlpha(0.5f));
+        generator.addLayer(tintLayer);
+
+        ImageLayer overlayLayer = new ImageLayer();
+        overlayLayer.setImageFile(Paths.get("src/test/resources/common", "trollface.png").toFile());
+        overlayLayer.setPositionOptions(
+                new PositionOptions().setImageHook(PositionOptions.Hook.MID_CENTER).setX(600).setY(200)
+        );
+        overlayLayer.setBlendingOptions(new BlendingOptions().setAlpha(0.75f));
+        generator.addLayer(overlayLayer);
+
+        return generator;
+    }
 }
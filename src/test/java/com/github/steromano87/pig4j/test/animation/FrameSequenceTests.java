@@ -0,0 +1,214 @@
+package com.github.steromano87.pig4j.test.animation;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.animation.FrameSequence;
+import com.github.steromano87.pig4j.layers.base.ImageLayer;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+class FrameSequenceTests {
+    private static final int FRAMES = 6;
+
+    @Test
+    void testGifFramesRebuildEveryState() throws IOException {
+        ImageLayer square = createSquare();
+        ImageGenerator generator = new ImageGenerator(120, 80, Color.WHITE).addLayer(square);
+
+        byte[] animation = createMovingSquare(generator, square).toByteArray(FrameSequence.Format.GIF);
+        List<BufferedImage> frames = readGifFrames(animation, 120, 80, false);
+
+        square.getPositionOptions().setX(10 * (FRAMES - 1));
+        BufferedImage expectedImage = render(generator);
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(FRAMES, frames.size(), "Frame count mismatch"),
+                () -> Assertions.assertArrayEquals(
+                        expectedImage.getRGB(0, 0, 120, 80, null, 0, 120),
+                        frames.get(FRAMES - 1).getRGB(0, 0, 120, 80, null, 0, 120)
+                )
+        );
+    }
+
+    @Test
+    void testGifPaletteIsExtendedByLaterFrames() throws IOException {
+        ImageLayer square = createSquare();
+        ImageGenerator generator = new ImageGenerator(120, 80, Color.WHITE, true).addLayer(square);
+        BufferedImage redSquare = createSquareImage(Color.RED);
+        BufferedImage greenSquare = createSquareImage(Color.GREEN);
+
+        byte[] animation = new FrameSequence(generator)
+                .setFrameCount(2)
+                .setFrameUpdater(frameIndex -> square.setSourceImage(frameIndex == 0 ? redSquare : greenSquare))
+                .toByteArray(FrameSequence.Format.GIF);
+        List<BufferedImage> frames = readGifFrames(animation, 120, 80, true);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, frames.size(), "Frame count mismatch"),
+                () -> Assertions.assertEquals(Color.RED.getRGB(), frames.get(0).getRGB(5, 35)),
+                () -> Assertions.assertEquals(Color.GREEN.getRGB(), frames.get(1).getRGB(5, 35)),
+                () -> Assertions.assertEquals(Color.WHITE.getRGB(), frames.get(1).getRGB(50, 35))
+        );
+    }
+
+    @Test
+    void testApngFramesStoreChangedRectangles() throws IOException {
+        ImageLayer square = createSquare();
+        ImageGenerator generator = new ImageGenerator(120, 80, Color.WHITE).addLayer(square);
+
+        byte[] animation = createMovingSquare(generator, square).toByteArray(FrameSequence.Format.APNG);
+        List<byte[]> frameControls = readChunks(animation, "fcTL");
+        BufferedImage defaultImage = ImageIO.read(new ByteArrayInputStream(animation));
+
+        square.getPositionOptions().setX(0);
+        BufferedImage expectedImage = render(generator);
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(FRAMES, frameControls.size(), "Frame count mismatch"),
+                () -> Assertions.assertEquals(FRAMES, readInt(readChunks(animation, "acTL").get(0), 0)),
+                () -> Assertions.assertEquals(120, readInt(frameControls.get(0), 4), "First frame is not full"),
+                () -> Assertions.assertEquals(20, readInt(frameControls.get(1), 4), "Frame is not a delta"),
+                () -> Assertions.assertEquals(10, readInt(frameControls.get(1), 8), "Frame is not a delta"),
+                () -> Assertions.assertArrayEquals(
+                        expectedImage.getRGB(0, 0, 120, 80, null, 0, 120),
+                        defaultImage.getRGB(0, 0, 120, 80, null, 0, 120)
+                )
+        );
+    }
+
+    @Test
+    void testUnchangedFramesAreMerged() throws IOException {
+        SingleColorLayer colorLayer = new SingleColorLayer().setColor(Color.BLUE);
+        ImageGenerator generator = new ImageGenerator(60, 40).addLayer(colorLayer);
+        FrameSequence frameSequence = new FrameSequence(generator)
+                .setFrameCount(4)
+                .setFrameDelay(50)
+                .setFrameUpdater(frameIndex -> colorLayer.setColor(frameIndex < 3 ? Color.BLUE : Color.RED));
+
+        List<byte[]> frameControls = readChunks(frameSequence.toByteArray(FrameSequence.Format.APNG), "fcTL");
+        List<BufferedImage> frames = readGifFrames(frameSequence.toByteArray(FrameSequence.Format.GIF), 60, 40, false);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, frameControls.size(), "Frame count mismatch"),
+                () -> Assertions.assertEquals(150, readShort(frameControls.get(0), 20), "Merged delay mismatch"),
+                () -> Assertions.assertEquals(2, frames.size(), "Frame count mismatch"),
+                () -> Assertions.assertEquals(Color.RED.getRGB(), frames.get(1).getRGB(30, 20))
+        );
+    }
+
+    private static FrameSequence createMovingSquare(ImageGenerator generator, ImageLayer square) {
+        return new FrameSequence(generator)
+                .setFrameCount(FRAMES)
+                .setFrameDelay(40)
+                .setFrameUpdater(frameIndex -> square.getPositionOptions().setX(10 * frameIndex));
+    }
+
+    private static ImageLayer createSquare() {
+        return new ImageLayer()
+                .setSourceImage(createSquareImage(Color.RED))
+                .setPositionOptions(new PositionOptions().setX(0).setY(30));
+    }
+
+    private static BufferedImage createSquareImage(Color color) {
+        BufferedImage squareImage = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = squareImage.createGraphics();
+        graphics2D.setColor(color);
+        graphics2D.fillRect(0, 0, 10, 10);
+        graphics2D.dispose();
+        return squareImage;
+    }
+
+    private static BufferedImage render(ImageGenerator generator) {
+        return generator.setCompositingMode(ImageGenerator.CompositingMode.IN_PLACE).build().toImage();
+    }
+
+    /**
+     * Composites the frames of an animated GIF, returning the canvas displayed by each frame
+     */
+    private static List<BufferedImage> readGifFrames(byte[] animation, int width, int height, boolean hasAlphaChannel)
+            throws IOException {
+        List<BufferedImage> frames = new ArrayList<>();
+        ImageReader imageReader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(animation))) {
+            imageReader.setInput(inputStream);
+            BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Rectangle clearedArea = null;
+            for (int i = 0; i < imageReader.getNumImages(true); i++) {
+                if (!Objects.isNull(clearedArea)) {
+                    Graphics2D graphics2D = canvas.createGraphics();
+                    graphics2D.setComposite(AlphaComposite.Clear);
+                    graphics2D.fill(clearedArea);
+                    graphics2D.dispose();
+                }
+
+                IIOMetadataNode metadata = (IIOMetadataNode) imageReader.getImageMetadata(i)
+                        .getAsTree("javax_imageio_gif_image_1.0");
+                IIOMetadataNode descriptor = (IIOMetadataNode) metadata.getElementsByTagName("ImageDescriptor").item(0);
+                Node control = metadata.getElementsByTagName("GraphicControlExtension").item(0);
+                Rectangle bounds = new Rectangle(
+                        Integer.parseInt(descriptor.getAttribute("imageLeftPosition")),
+                        Integer.parseInt(descriptor.getAttribute("imageTopPosition")),
+                        Integer.parseInt(descriptor.getAttribute("imageWidth")),
+                        Integer.parseInt(descriptor.getAttribute("imageHeight"))
+                );
+                String disposal = ((IIOMetadataNode) control).getAttribute("disposalMethod");
+                clearedArea = "restoreToBackgroundColor".equals(disposal) ? bounds : null;
+
+                Graphics2D graphics2D = canvas.createGraphics();
+                graphics2D.drawImage(imageReader.read(i), bounds.x, bounds.y, null);
+                graphics2D.dispose();
+
+                BufferedImage frame = new BufferedImage(
+                        width,
+                        height,
+                        hasAlphaChannel ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+                );
+                frame.getGraphics().drawImage(canvas, 0, 0, null);
+                frames.add(frame);
+            }
+        } finally {
+            imageReader.dispose();
+        }
+        return frames;
+    }
+
+    private static List<byte[]> readChunks(byte[] animation, String chunkType) throws IOException {
+        List<byte[]> chunks = new ArrayList<>();
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(animation));
+        inputStream.skipBytes(8);
+        byte[] type = new byte[4];
+        while (inputStream.available() > 0) {
+            byte[] data = new byte[inputStream.readInt()];
+            inputStream.readFully(type);
+            inputStream.readFully(data);
+            inputStream.readInt();
+            if (chunkType.equals(new String(type, StandardCharsets.US_ASCII))) {
+                chunks.add(data);
+            }
+        }
+        return chunks;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 |
+                (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF);
+    }
+}
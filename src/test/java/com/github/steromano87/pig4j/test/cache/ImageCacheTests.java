@@ -0,0 +1,126 @@
+package com.github.steromano87.pig4j.test.cache;
+
+import com.github.steromano87.pig4j.cache.CacheStatistics;
+import com.github.steromano87.pig4j.cache.ImageCache;
+import com.github.steromano87.pig4j.cache.ImageSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+
+class ImageCacheTests {
+    private final File landscapeFile = Paths.get("src/test/resources/common", "landscape_640_400.jpg").toFile();
+    private final File trollfaceFile = Paths.get("src/test/resources/common", "trollface.png").toFile();
+
+    @Test
+    void testRepeatedFileReadsShareTheDecodedImage() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+
+        BufferedImage firstImage = imageCache.getFromFile(this.landscapeFile);
+        BufferedImage secondImage = imageCache.getFromFile(new File(this.landscapeFile.getAbsolutePath()));
+        CacheStatistics statistics = imageCache.getStatistics();
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstImage, secondImage, "Decoded image is not shared"),
+                () -> Assertions.assertEquals(1, statistics.getHitCount(), "Hit count mismatch"),
+                () -> Assertions.assertEquals(1, statistics.getMissCount(), "Miss count mismatch"),
+                () -> Assertions.assertEquals(ImageCache.getPixelBytes(firstImage), statistics.getWeight(), "Weight mismatch")
+        );
+    }
+
+    @Test
+    void testBase64ReadsAreKeyedByContent() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+        String imageBase64 = Base64.getEncoder().encodeToString(Files.readAllBytes(this.trollfaceFile.toPath()));
+
+        BufferedImage firstImage = imageCache.getFromBase64(imageBase64);
+        BufferedImage secondImage = imageCache.getFromBase64(new String(imageBase64.toCharArray()));
+
+        Assertions.assertSame(firstImage, secondImage, "Decoded image is not shared");
+    }
+
+    @Test
+    void testLeastRecentlyUsedImageIsEvicted() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+        BufferedImage landscapeImage = imageCache.getFromFile(this.landscapeFile);
+        imageCache.getFromFile(this.trollfaceFile);
+        imageCache.setMaximumWeight(ImageCache.getPixelBytes(landscapeImage));
+
+        BufferedImage trollfaceImage = imageCache.getFromFile(this.trollfaceFile);
+        CacheStatistics statistics = imageCache.getStatistics();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(1, statistics.getEvictionCount(), "Eviction count mismatch"),
+                () -> Assertions.assertEquals(1, statistics.getEntryCount(), "Entry count mismatch"),
+                () -> Assertions.assertEquals(ImageCache.getPixelBytes(trollfaceImage), statistics.getWeight(), "Weight mismatch")
+        );
+    }
+
+    @Test
+    void testSubsampledRead() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+        ImageSource source = ImageSource.ofFile(this.landscapeFile);
+
+        BufferedImage fullImage = imageCache.get(source);
+        BufferedImage subsampledImage = imageCache.get(source, 3, null);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(214, subsampledImage.getWidth(), "Subsampled width mismatch"),
+                () -> Assertions.assertEquals(134, subsampledImage.getHeight(), "Subsampled height mismatch"),
+                () -> Assertions.assertEquals(fullImage.getRGB(30, 60), subsampledImage.getRGB(10, 20), "Pixel mismatch"),
+                () -> Assertions.assertSame(fullImage, imageCache.getFromFile(this.landscapeFile), "Full read key mismatch")
+        );
+    }
+
+    @Test
+    void testRegionRead() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+        ImageSource source = ImageSource.ofFile(this.trollfaceFile);
+
+        BufferedImage fullImage = imageCache.get(source);
+        BufferedImage regionImage = imageCache.get(source, 1, new Rectangle(20, 10, 50, 40));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(50, regionImage.getWidth(), "Region width mismatch"),
+                () -> Assertions.assertEquals(40, regionImage.getHeight(), "Region height mismatch"),
+                () -> Assertions.assertEquals(fullImage.getRGB(25, 15), regionImage.getRGB(5, 5), "Pixel mismatch")
+        );
+    }
+
+    @Test
+    void testSizeIsReadWithoutDecoding() throws IOException {
+        ImageCache imageCache = new ImageCache(Long.MAX_VALUE);
+
+        Dimension size = imageCache.getSize(ImageSource.ofFile(this.landscapeFile));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(new Dimension(640, 400), size, "Size mismatch"),
+                () -> Assertions.assertEquals(0, imageCache.getStatistics().getEntryCount(), "Image has been decoded")
+        );
+    }
+
+    @Test
+    void testFileKeyFollowsModifications() throws IOException {
+        File copiedFile = Files.createTempFile("pig4j", ".png").toFile();
+        copiedFile.deleteOnExit();
+        Files.copy(this.trollfaceFile.toPath(), copiedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        ImageSource source = ImageSource.ofFile(copiedFile);
+        ImageSource relativeSource = ImageSource.ofFile(new File(copiedFile.getParentFile(), "./" + copiedFile.getName()));
+
+        Object firstKey = source.getKey();
+        Assertions.assertTrue(copiedFile.setLastModified(copiedFile.lastModified() - 10000));
+        Object secondKey = source.getKey();
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotEquals(firstKey, secondKey, "Modified file keeps the same key"),
+                () -> Assertions.assertEquals(secondKey, relativeSource.getKey(), "Equivalent paths get different keys")
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.steromano87.pig4j.test.cache;
+
+import com.github.steromano87.pig4j.cache.ByteBufferImageInputStream;
+import com.github.steromano87.pig4j.cache.ImageCache;
+import com.github.steromano87.pig4j.cache.ImageSource;
+import com.github.steromano87.pig4j.cache.MappedFileCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+class MappedFileCacheTests {
+    private final File trollfaceFile = Paths.get("src/test/resources/common", "trollface.png").toFile();
+
+    @Test
+    void testRepeatedMappingsAreShared() throws IOException {
+        MappedFileCache mappedFileCache = new MappedFileCache(Long.MAX_VALUE);
+
+        ByteBuffer firstBuffer = mappedFileCache.map(this.trollfaceFile);
+        ByteBuffer secondBuffer = mappedFileCache.map(new File(this.trollfaceFile.getAbsolutePath()));
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstBuffer, secondBuffer, "Mapping is not shared"),
+                () -> Assertions.assertEquals(this.trollfaceFile.length(), firstBuffer.capacity(), "Mapping size mismatch"),
+                () -> Assertions.assertEquals(1, mappedFileCache.getStatistics().getHitCount(), "Hit count mismatch")
+        );
+    }
+
+    @Test
+    void testStreamReadsAndSeeks() throws IOException {
+        byte[] fileBytes = Files.readAllBytes(this.trollfaceFile.toPath());
+        ByteBufferImageInputStream inputStream = new ByteBufferImageInputStream(
+                new MappedFileCache(Long.MAX_VALUE).map(this.trollfaceFile)
+        );
+
+        byte[] header = new byte[8];
+        inputStream.readFully(header);
+        inputStream.seek(fileBytes.length - 1);
+        int lastByte = inputStream.read();
+        int endOfStream = inputStream.read();
+
+        Assertions.assertAll(
+                () -> Assertions.assertArrayEquals(Arrays.copyOf(fileBytes, 8), header, "Header mismatch"),
+                () -> Assertions.assertEquals(fileBytes[fileBytes.length - 1] & 0xFF, lastByte, "Last byte mismatch"),
+                () -> Assertions.assertEquals(-1, endOfStream, "Stream should be over"),
+                () -> Assertions.assertEquals(fileBytes.length, inputStream.length(), "Stream length mismatch")
+        );
+    }
+
+    @Test
+    void testMappedDecodingMatchesImageIo() throws IOException {
+        BufferedImage mappedImage = new ImageCache(Long.MAX_VALUE).get(ImageSource.ofFile(this.trollfaceFile));
+        BufferedImage readImage = ImageIO.read(this.trollfaceFile);
+
+        Assertions.assertArrayEquals(
+                readImage.getRGB(0, 0, readImage.getWidth(), readImage.getHeight(), null, 0, readImage.getWidth()),
+                mappedImage.getRGB(0, 0, mappedImage.getWidth(), mappedImage.getHeight(), null, 0, mappedImage.getWidth())
+        );
+    }
+}
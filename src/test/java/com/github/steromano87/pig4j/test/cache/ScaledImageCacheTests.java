@@ -0,0 +1,56 @@
+package com.github.steromano87.pig4j.test.cache;
+
+import com.github.steromano87.pig4j.cache.ScaledImageCache;
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+class ScaledImageCacheTests {
+    @Test
+    void testRepeatedScalingIsMemoized() {
+        ScaledImageCache scaledImageCache = new ScaledImageCache(Long.MAX_VALUE);
+        BufferedImage sourceImage = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage firstImage = scaledImageCache.getScaled(sourceImage, new ScalingOptions().setWidth(50));
+        BufferedImage secondImage = scaledImageCache.getScaled(sourceImage, new ScalingOptions().setScale(0.25));
+        BufferedImage nearestImage = scaledImageCache.getScaled(
+                sourceImage,
+                new ScalingOptions().setWidth(50).setAlgorithm(ScalingOptions.Algorithm.NEAREST)
+        );
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstImage, secondImage, "Scaled image is not memoized"),
+                () -> Assertions.assertNotSame(firstImage, nearestImage, "Algorithm is not part of the key"),
+                () -> Assertions.assertEquals(50, firstImage.getWidth(), "Scaled width mismatch"),
+                () -> Assertions.assertEquals(25, firstImage.getHeight(), "Scaled height mismatch"),
+                () -> Assertions.assertEquals(1, scaledImageCache.getStatistics().getHitCount(), "Hit count mismatch")
+        );
+    }
+
+    @Test
+    void testWeightIncludesSourceImage() {
+        BufferedImage sourceImage = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        long sourceBytes = 200 * 100 * 4;
+        long scaledBytes = 50 * 25 * 4;
+
+        ScaledImageCache largeCache = new ScaledImageCache(sourceBytes + scaledBytes);
+        largeCache.getScaled(sourceImage, new ScalingOptions().setWidth(50));
+        ScaledImageCache smallCache = new ScaledImageCache(sourceBytes);
+        smallCache.getScaled(sourceImage, new ScalingOptions().setWidth(50));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(sourceBytes + scaledBytes, largeCache.getStatistics().getWeight(), "Weight mismatch"),
+                () -> Assertions.assertEquals(0, smallCache.getStatistics().getEntryCount(), "Source image is not weighted")
+        );
+    }
+
+    @Test
+    void testUnchangedSizeReturnsSourceImage() {
+        ScaledImageCache scaledImageCache = new ScaledImageCache(Long.MAX_VALUE);
+        BufferedImage sourceImage = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+
+        Assertions.assertSame(sourceImage, scaledImageCache.getScaled(sourceImage, new ScalingOptions()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.steromano87.pig4j.test.cache;
+
+import com.github.steromano87.pig4j.cache.TextCache;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.rendering.TextBlock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TextCacheTests {
+    @Test
+    void testFontsAreShared() {
+        TextCache textCache = new TextCache(Long.MAX_VALUE);
+
+        Font firstFont = textCache.getFont("Serif", Font.BOLD, 24);
+        Font secondFont = textCache.getFont("Serif", Font.BOLD, 24);
+        Font otherFont = textCache.getFont("Serif", Font.BOLD, 12);
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstFont, secondFont, "Font is not memoized"),
+                () -> Assertions.assertNotSame(firstFont, otherFont, "Size is not part of the key"),
+                () -> Assertions.assertEquals(24, firstFont.getSize(), "Font size mismatch")
+        );
+    }
+
+    @Test
+    void testRepeatedTextIsRenderedOnce() {
+        TextCache textCache = new TextCache(Long.MAX_VALUE);
+        AtomicInteger renderCount = new AtomicInteger();
+        Font font = textCache.getFont("Serif", Font.PLAIN, 12);
+
+        BufferedImage firstImage = textCache.getImage(Arrays.asList("9.99", font, Color.RED), () -> {
+            renderCount.incrementAndGet();
+            return new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        });
+        BufferedImage secondImage = textCache.getImage(Arrays.asList("9.99", font, Color.RED), () -> {
+            renderCount.incrementAndGet();
+            return new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        });
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstImage, secondImage, "Text image is not memoized"),
+                () -> Assertions.assertEquals(1, renderCount.get(), "Render count mismatch"),
+                () -> Assertions.assertEquals(20 * 10 * 4, textCache.getStatistics().getWeight(), "Weight mismatch")
+        );
+    }
+
+    @Test
+    void testLayoutsAreShared() {
+        TextCache textCache = new TextCache(Long.MAX_VALUE);
+        Font font = textCache.getFont("Serif", Font.PLAIN, 20);
+
+        TextBlock firstBlock = textCache.getLayout("Sample", font, null, null, TextLayer.Alignment.LEFT);
+        TextBlock secondBlock = textCache.getLayout("Sample", font, null, null, TextLayer.Alignment.LEFT);
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstBlock, secondBlock, "Layout is not memoized"),
+                () -> Assertions.assertEquals(
+                        Math.ceil(font.getStringBounds("Sample", TextCache.getFontRenderContext()).getWidth()),
+                        firstBlock.getWidth(),
+                        "Layout width mismatch"
+                )
+        );
+    }
+}
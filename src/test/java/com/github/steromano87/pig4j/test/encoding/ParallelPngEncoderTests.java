@@ -0,0 +1,114 @@
+package com.github.steromano87.pig4j.test.encoding;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.encoding.ImageEncoder;
+import com.github.steromano87.pig4j.encoding.ParallelPngEncoder;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+class ParallelPngEncoderTests {
+    @ParameterizedTest
+    @EnumSource(EncodingOptions.PngFilter.class)
+    void testDecodedImageMatchesSource(EncodingOptions.PngFilter pngFilter) throws IOException {
+        BufferedImage image = createSampleImage(BufferedImage.TYPE_INT_ARGB);
+        ParallelPngEncoder encoder = new ParallelPngEncoder().setChunkSize(4096);
+
+        BufferedImage decodedImage = decode(encode(encoder, image, new EncodingOptions().setPngFilter(pngFilter)));
+
+        assertSamePixels(image, decodedImage);
+    }
+
+    @Test
+    void testOpaqueImage() throws IOException {
+        BufferedImage image = createSampleImage(BufferedImage.TYPE_3BYTE_BGR);
+        ParallelPngEncoder encoder = new ParallelPngEncoder().setChunkSize(1000).setMaxPendingChunks(3);
+
+        BufferedImage decodedImage = decode(encode(encoder, image, new EncodingOptions().setDeflateLevel(1)));
+
+        Assertions.assertAll(
+                () -> Assertions.assertFalse(decodedImage.getColorModel().hasAlpha(), "Alpha channel mismatch"),
+                () -> assertSamePixels(image, decodedImage)
+        );
+    }
+
+    @Test
+    void testCompressionRatio() throws IOException {
+        BufferedImage image = createSampleImage(BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream defaultOutput = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", defaultOutput);
+
+        byte[] encodedImage = encode(new ParallelPngEncoder().setChunkSize(16 * 1024), image, new EncodingOptions());
+
+        Assertions.assertTrue(
+                encodedImage.length < defaultOutput.size() * 1.1,
+                "Parallel PNG should be about as small as the default PNG"
+        );
+    }
+
+    @Test
+    void testRegisteredFormatEncoder() {
+        ImageGenerator imageGenerator = new ImageGenerator(300, 200)
+                .addLayer(new SingleColorLayer().setColor(new Color(10, 20, 30, 128)));
+
+        try {
+            ImageEncoder.setFormatEncoder(ImageFormat.PNG, new ParallelPngEncoder());
+            byte[] encodedImage = imageGenerator.build().toByteArray(ImageFormat.PNG);
+            assertSamePixels(imageGenerator.toImage(), decode(encodedImage));
+        } finally {
+            ImageEncoder.setFormatEncoder(ImageFormat.PNG, null);
+        }
+    }
+
+    private static byte[] encode(ParallelPngEncoder encoder, BufferedImage image, EncodingOptions encodingOptions)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        encoder.encode(image, encodingOptions, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] encodedImage) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(encodedImage));
+        } catch (IOException exc) {
+            throw new AssertionError("Cannot decode PNG image", exc);
+        }
+    }
+
+    private static void assertSamePixels(BufferedImage expectedImage, BufferedImage actualImage) {
+        Assertions.assertEquals(expectedImage.getWidth(), actualImage.getWidth(), "Width mismatch");
+        Assertions.assertEquals(expectedImage.getHeight(), actualImage.getHeight(), "Height mismatch");
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                if (expectedImage.getRGB(x, y) != actualImage.getRGB(x, y)) {
+                    Assertions.fail("Pixel mismatch at " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    private static BufferedImage createSampleImage(int imageType) {
+        BufferedImage image = new BufferedImage(320, 240, imageType);
+        Random random = new Random(7);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int alpha = 128 + (x + y) % 128;
+                int noise = random.nextInt(16);
+                image.setRGB(x, y, alpha << 24 | ((x + noise) & 0xFF) << 16 | ((y * 2) & 0xFF) << 8 | noise * 8);
+            }
+        }
+        return image;
+    }
+}
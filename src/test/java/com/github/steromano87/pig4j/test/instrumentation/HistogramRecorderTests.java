@@ -0,0 +1,121 @@
+package com.github.steromano87.pig4j.test.instrumentation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.cache.ScaledImageCache;
+import com.github.steromano87.pig4j.cache.TextCache;
+import com.github.steromano87.pig4j.instrumentation.HistogramRecorder;
+import com.github.steromano87.pig4j.instrumentation.Instrumentation;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import com.github.steromano87.pig4j.rendering.TileRenderer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+
+class HistogramRecorderTests {
+    @BeforeEach
+    void clearSharedCaches() {
+        // Rendered and scaled texts are shared, hence they would be taken from previous tests
+        TextCache.getShared().clear();
+        ScaledImageCache.getShared().clear();
+    }
+
+    @Test
+    void testLayerStagesAreRecorded() throws IOException {
+        HistogramRecorder recorder = new HistogramRecorder();
+        ImageGenerator generator = createGenerator().setInstrumentation(recorder);
+
+        generator.build();
+        generator.build();
+
+        JsonNode json = new ObjectMapper().readTree(recorder.toJson());
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, findLayerStage(json, 0, Instrumentation.Stage.LAYER).get("count").asLong()),
+                () -> Assertions.assertEquals(2, findLayerStage(json, 1, Instrumentation.Stage.LAYER).get("count").asLong()),
+                () -> Assertions.assertEquals(1, findLayerStage(json, 1, Instrumentation.Stage.SCALE).get("count").asLong()),
+                () -> Assertions.assertEquals(2, findLayerStage(json, 1, Instrumentation.Stage.BLEND).get("count").asLong()),
+                () -> Assertions.assertEquals(
+                        2L * 320 * 200,
+                        findLayerStage(json, 0, Instrumentation.Stage.LAYER).get("pixels").asLong()
+                ),
+                () -> Assertions.assertEquals(1, findLayerStage(json, 1, Instrumentation.Stage.RASTERIZE).get("count").asLong()),
+                () -> Assertions.assertEquals("TextLayer", findLayerStage(json, 1, Instrumentation.Stage.BLEND).get("layer").asText())
+        );
+    }
+
+    @Test
+    void testTiledLayerStagesAreRecorded() throws IOException {
+        HistogramRecorder recorder = new HistogramRecorder();
+        ImageGenerator generator = createGenerator().setTileRenderer(new TileRenderer(100)).setInstrumentation(recorder);
+
+        generator.build();
+
+        JsonNode json = new ObjectMapper().readTree(recorder.toJson());
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(1, findLayerStage(json, 1, Instrumentation.Stage.SCALE).get("count").asLong()),
+                () -> Assertions.assertTrue(findLayerStage(json, 1, Instrumentation.Stage.LAYER).get("count").asLong() > 1)
+        );
+    }
+
+    @Test
+    void testEncodingIsRecorded() throws IOException {
+        HistogramRecorder recorder = new HistogramRecorder();
+        ImageGenerator generator = createGenerator().setInstrumentation(recorder).build();
+
+        byte[] imageBytes = generator.toByteArray(ImageFormat.PNG);
+
+        JsonNode encodingNode = new ObjectMapper().readTree(recorder.toJson()).get("encodings").get(0);
+        Assertions.assertAll(
+                () -> Assertions.assertEquals("PNG", encodingNode.get("format").asText()),
+                () -> Assertions.assertEquals(1, encodingNode.get("count").asLong()),
+                () -> Assertions.assertEquals(imageBytes.length, encodingNode.get("outputBytes").asLong())
+        );
+    }
+
+    @Test
+    void testClear() throws IOException {
+        HistogramRecorder recorder = new HistogramRecorder();
+        createGenerator().setInstrumentation(recorder).build();
+
+        recorder.clear();
+
+        JsonNode json = new ObjectMapper().readTree(recorder.toJson());
+        Assertions.assertEquals(0, json.get("layers").size());
+    }
+
+    @Test
+    void testNoInstrumentationByDefault() {
+        ImageGenerator generator = createGenerator().setInstrumentation(null);
+        Assertions.assertSame(Instrumentation.NONE, generator.getInstrumentation());
+    }
+
+    private static ImageGenerator createGenerator() {
+        SingleColorLayer backgroundLayer = new SingleColorLayer();
+        backgroundLayer.setColor(Color.BLUE);
+
+        TextLayer textLayer = new TextLayer()
+                .setText("Instrumented")
+                .setFontSize(24)
+                .setScalingOptions(new ScalingOptions().setScale(2.0))
+                .setBlendingOptions(new BlendingOptions().setAlpha(0.5f));
+
+        return new ImageGenerator(320, 200).addLayer(backgroundLayer).addLayer(textLayer);
+    }
+
+    private static JsonNode findLayerStage(JsonNode json, int layerIndex, Instrumentation.Stage stage) {
+        for (JsonNode layerNode : json.get("layers")) {
+            if (layerNode.get("layerIndex").asInt() == layerIndex && stage.name().equals(layerNode.get("stage").asText())) {
+                return layerNode;
+            }
+        }
+        return Assertions.fail("No " + stage + " entry for layer " + layerIndex);
+    }
+}
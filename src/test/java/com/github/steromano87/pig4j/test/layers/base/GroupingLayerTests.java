@@ -0,0 +1,142 @@
+package com.github.steromano87.pig4j.test.layers.base;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.cache.CacheStatistics;
+import com.github.steromano87.pig4j.cache.GroupCache;
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.layers.base.GroupingLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+class GroupingLayerTests {
+    @BeforeEach
+    void clearCache() {
+        GroupCache.getShared().clear();
+    }
+
+    @Test
+    void testCopyCompositingDrawsChildren() {
+        BufferedImage copiedImage = render(buildBadge(), ImageGenerator.CompositingMode.COPY, false);
+        BufferedImage inPlaceImage = render(buildBadge(), ImageGenerator.CompositingMode.IN_PLACE, false);
+
+        Assertions.assertArrayEquals(
+                inPlaceImage.getRGB(0, 0, 320, 200, null, 0, 320),
+                copiedImage.getRGB(0, 0, 320, 200, null, 0, 320)
+        );
+    }
+
+    @Test
+    void testGroupDrawsOnlyChildrenOnRgbCanvas() {
+        assertGroupDrawsOnlyChildren(false);
+    }
+
+    @Test
+    void testGroupDrawsOnlyChildrenOnArgbCanvas() {
+        assertGroupDrawsOnlyChildren(true);
+    }
+
+    @Test
+    void testGroupRasterCoversOnlyChildren() {
+        GroupingLayer groupingLayer = buildBadge();
+        Rectangle childBounds = groupingLayer.getBounds(4000, 3000);
+
+        Layer preparedLayer = groupingLayer.prepare(4000, 3000, false);
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(childBounds.width < 200 && childBounds.height < 100, "Group bounds are too large"),
+                () -> Assertions.assertEquals(childBounds, preparedLayer.getBounds(4000, 3000))
+        );
+    }
+
+    @Test
+    void testScaledGroupKeepsChildrenInBounds() {
+        GroupingLayer groupingLayer = buildBadge().setScalingOptions(new ScalingOptions().setScale(0.5));
+
+        Rectangle groupBounds = groupingLayer.getBounds(320, 200);
+        Rectangle preparedBounds = groupingLayer.prepare(320, 200, false).getBounds(320, 200);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(groupBounds, preparedBounds),
+                () -> Assertions.assertTrue(groupBounds.x >= 10 && groupBounds.x < 25, "Scaled group position mismatch")
+        );
+    }
+
+    @Test
+    void testUnchangedGroupIsRenderedOnce() {
+        // Statistics are not reset by clearing the cache
+        CacheStatistics initialStatistics = GroupCache.getShared().getStatistics();
+        render(buildBadge(), ImageGenerator.CompositingMode.IN_PLACE, false);
+        render(
+                buildBadge().setBlendingOptions(new BlendingOptions().setAlpha(0.5f)),
+                ImageGenerator.CompositingMode.IN_PLACE,
+                false
+        );
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(
+                        1,
+                        GroupCache.getShared().getStatistics().getMissCount() - initialStatistics.getMissCount()
+                ),
+                () -> Assertions.assertEquals(
+                        1,
+                        GroupCache.getShared().getStatistics().getHitCount() - initialStatistics.getHitCount()
+                )
+        );
+    }
+
+    private static void assertGroupDrawsOnlyChildren(boolean hasAlphaChannel) {
+        GroupingLayer groupingLayer = buildBadge();
+        Rectangle groupBounds = groupingLayer.getBounds(320, 200);
+        BufferedImage childImage = render(buildText(), ImageGenerator.CompositingMode.IN_PLACE, hasAlphaChannel);
+        BufferedImage groupImage = render(groupingLayer, ImageGenerator.CompositingMode.IN_PLACE, hasAlphaChannel);
+
+        Point textPixel = null;
+        for (int y = groupBounds.y; y < groupBounds.y + groupBounds.height && Objects.isNull(textPixel); y++) {
+            for (int x = groupBounds.x; x < groupBounds.x + groupBounds.width; x++) {
+                if (childImage.getRGB(x, y) == Color.RED.getRGB()) {
+                    textPixel = new Point(x, y);
+                    break;
+                }
+            }
+        }
+        Point childPixel = textPixel;
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotNull(childPixel, "Text is not drawn"),
+                () -> Assertions.assertEquals(Color.WHITE.getRGB(), groupImage.getRGB(groupBounds.x, groupBounds.y)),
+                () -> Assertions.assertEquals(Color.RED.getRGB(), groupImage.getRGB(childPixel.x, childPixel.y)),
+                () -> Assertions.assertArrayEquals(
+                        childImage.getRGB(0, 0, 320, 200, null, 0, 320),
+                        groupImage.getRGB(0, 0, 320, 200, null, 0, 320)
+                )
+        );
+    }
+
+    private static GroupingLayer buildBadge() {
+        GroupingLayer groupingLayer = new GroupingLayer();
+        groupingLayer.addLayer(buildText());
+        return groupingLayer;
+    }
+
+    private static TextLayer buildText() {
+        return new TextLayer().setText("Badge").setFontSize(30).setColor(Color.RED)
+                .setPositionOptions(new PositionOptions().setX(40).setY(30));
+    }
+
+    private static BufferedImage render(Layer layer, ImageGenerator.CompositingMode compositingMode, boolean hasAlphaChannel) {
+        return new ImageGenerator(320, 200, Color.WHITE, hasAlphaChannel)
+                .setCompositingMode(compositingMode)
+                .addLayer(layer)
+                .build()
+                .toImage();
+    }
+}
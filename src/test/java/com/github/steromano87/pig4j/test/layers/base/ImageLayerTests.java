@@ -1,6 +1,7 @@
 package com.github.steromano87.pig4j.test.layers.base;
 
 import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.exceptions.ImageReadingException;
 import com.github.steromano87.pig4j.layers.base.ImageLayer;
 import com.github.steromano87.pig4j.options.PositionOptions;
 import com.github.steromano87.pig4j.options.ScalingOptions;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -196,4 +198,83 @@ class ImageLayerTests {
                 () -> Assertions.assertFalse(generatedImage.getColorModel().hasAlpha(), "Final image should have alpha channel")
         );
     }
+
+    @Test
+    void testImageLayerBounds() throws IOException {
+        ImageLayer imageLayer = new ImageLayer();
+        Path imagePath = Paths.get("src/test/resources/common", "trollface.png");
+        imageLayer.setImageFile(imagePath.toFile());
+
+        PositionOptions positionOptions = new PositionOptions();
+        positionOptions.setImageHook(PositionOptions.Hook.MID_CENTER);
+        positionOptions.setX(320);
+        positionOptions.setY(200);
+        imageLayer.setPositionOptions(positionOptions);
+
+        ScalingOptions scalingOptions = new ScalingOptions();
+        scalingOptions.setScale(0.5);
+        imageLayer.setScalingOptions(scalingOptions);
+
+        BufferedImage originalImage = ImageIO.read(imagePath.toFile());
+        int scaledWidth = (int) Math.round(originalImage.getWidth() * 0.5);
+        int scaledHeight = (int) Math.round(originalImage.getHeight() * 0.5);
+        Rectangle bounds = imageLayer.getBounds(640, 400);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(scaledWidth, bounds.width, "Bounds width mismatch"),
+                () -> Assertions.assertEquals(scaledHeight, bounds.height, "Bounds height mismatch"),
+                () -> Assertions.assertEquals(320, bounds.getCenterX(), 1.0, "Bounds horizontal center mismatch"),
+                () -> Assertions.assertEquals(200, bounds.getCenterY(), 1.0, "Bounds vertical center mismatch")
+        );
+    }
+
+    @Test
+    void testDecodingIsDeferred() {
+        ImageLayer imageLayer = new ImageLayer();
+        Assertions.assertDoesNotThrow(() -> imageLayer.setImageFile(Paths.get("src/test/resources/common", "missing.png").toFile()));
+
+        ImageGenerator generator = new ImageGenerator(640, 400).addLayer(imageLayer);
+        Assertions.assertThrows(ImageReadingException.class, generator::build);
+    }
+
+    @Test
+    void testReducedImageMatchesSourceImage() throws IOException {
+        Path imagePath = Paths.get("src/test/resources/common", "landscape_640_400.jpg");
+        ImageLayer lazyLayer = new ImageLayer()
+                .setImageFile(imagePath.toFile())
+                .setScalingOptions(new ScalingOptions().setWidth(100));
+        ImageLayer eagerLayer = new ImageLayer()
+                .setSourceImage(ImageIO.read(imagePath.toFile()))
+                .setScalingOptions(new ScalingOptions().setWidth(100));
+
+        BufferedImage lazyImage = new ImageGenerator(100, 63).addLayer(lazyLayer).build().toImage();
+        BufferedImage eagerImage = new ImageGenerator(100, 63).addLayer(eagerLayer).build().toImage();
+
+        // Subsampling changes the resampling input, so pixels are only similar on average
+        long totalDifference = 0;
+        for (int y = 0; y < 63; y++) {
+            for (int x = 0; x < 100; x++) {
+                for (int shift = 0; shift < 24; shift += 8) {
+                    totalDifference += Math.abs(((lazyImage.getRGB(x, y) >> shift) & 0xFF) - ((eagerImage.getRGB(x, y) >> shift) & 0xFF));
+                }
+            }
+        }
+        Assertions.assertTrue(totalDifference / (100.0 * 63 * 3) < 8, "Reduced images mismatch");
+    }
+
+    @Test
+    void testPartiallyVisibleImageMatchesSourceImage() throws IOException {
+        Path imagePath = Paths.get("src/test/resources/common", "trollface.png");
+        PositionOptions positionOptions = new PositionOptions().setX(-40).setY(-30);
+        ImageLayer lazyLayer = new ImageLayer().setImageFile(imagePath.toFile()).setPositionOptions(positionOptions);
+        ImageLayer eagerLayer = new ImageLayer().setSourceImage(ImageIO.read(imagePath.toFile())).setPositionOptions(positionOptions);
+
+        BufferedImage lazyImage = new ImageGenerator(120, 90).addLayer(lazyLayer).build().toImage();
+        BufferedImage eagerImage = new ImageGenerator(120, 90).addLayer(eagerLayer).build().toImage();
+
+        Assertions.assertArrayEquals(
+                eagerImage.getRGB(0, 0, 120, 90, null, 0, 120),
+                lazyImage.getRGB(0, 0, 120, 90, null, 0, 120)
+        );
+    }
 }
@@ -0,0 +1,27 @@
+package com.github.steromano87.pig4j.test.layers.base;
+
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+class SingleColorLayerTests {
+    @Test
+    void testApplyLeavesInputImageUntouched() {
+        BufferedImage inputImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        SingleColorLayer colorLayer = new SingleColorLayer()
+                .setColor(Color.RED)
+                .setFusionOptions(new BlendingOptions().setAlpha(0.5f));
+
+        BufferedImage outputImage = colorLayer.apply(inputImage);
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotSame(inputImage, outputImage),
+                () -> Assertions.assertEquals(Color.BLACK.getRGB(), inputImage.getRGB(5, 5)),
+                () -> Assertions.assertEquals(new Color(128, 0, 0).getRGB(), outputImage.getRGB(5, 5))
+        );
+    }
+}
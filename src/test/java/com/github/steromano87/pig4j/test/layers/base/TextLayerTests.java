@@ -0,0 +1,127 @@
+package com.github.steromano87.pig4j.test.layers.base;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+class TextLayerTests {
+    private static final String PARAGRAPH = "The quick brown fox jumps over the lazy dog and keeps running across the field";
+
+    @Test
+    void testTextIsDrawnBelowTheTopEdge() {
+        TextLayer textLayer = new TextLayer().setText("Hello").setFontSize(40);
+
+        BufferedImage image = render(textLayer, 200, 100);
+        Rectangle textBounds = textLayer.getBounds(200, 100);
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(countTextPixels(image) > 0, "Text is not drawn"),
+                () -> Assertions.assertTrue(textBounds.height >= 40, "Text box is too short")
+        );
+    }
+
+    @Test
+    void testTextIsWrapped() {
+        TextLayer singleLineLayer = new TextLayer().setText(PARAGRAPH).setFontSize(20);
+        TextLayer wrappedLayer = new TextLayer().setText(PARAGRAPH).setFontSize(20).setMaxWidth(150);
+
+        Rectangle singleLineBounds = singleLineLayer.getBounds(640, 400);
+        Rectangle wrappedBounds = wrappedLayer.getBounds(640, 400);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(150, wrappedBounds.width, "Wrapped box width mismatch"),
+                () -> Assertions.assertTrue(wrappedBounds.height > 3 * singleLineBounds.height, "Text is not wrapped")
+        );
+    }
+
+    @Test
+    void testLineFeedsStartNewLines() {
+        Rectangle singleLineBounds = new TextLayer().setText("First").getBounds(640, 400);
+        Rectangle twoLinesBounds = new TextLayer().setText("First\nSecond").getBounds(640, 400);
+
+        Assertions.assertEquals(2 * singleLineBounds.height, twoLinesBounds.height, 1);
+    }
+
+    @Test
+    void testMaxHeightDropsLines() {
+        TextLayer textLayer = new TextLayer().setText(PARAGRAPH).setFontSize(20).setMaxWidth(150).setMaxHeight(60);
+
+        Assertions.assertTrue(textLayer.getBounds(640, 400).height <= 60);
+    }
+
+    @Test
+    void testAutoFitShrinksText() {
+        TextLayer fixedLayer = new TextLayer().setText(PARAGRAPH).setFontSize(60).setMaxWidth(200).setMaxHeight(80);
+        TextLayer fittedLayer = new TextLayer().setText(PARAGRAPH).setFontSize(60).setMaxWidth(200).setMaxHeight(80)
+                .setAutoFit(true);
+
+        BufferedImage fixedImage = render(fixedLayer, 200, 80);
+        BufferedImage fittedImage = render(fittedLayer, 200, 80);
+
+        // The fitted text keeps all the words, the fixed one only the first line
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(fittedLayer.getBounds(640, 400).height <= 80, "Fitted text is too tall"),
+                () -> Assertions.assertTrue(countTextRows(fittedImage) > 0, "Fitted text is not drawn"),
+                () -> Assertions.assertNotEquals(countTextPixels(fixedImage), countTextPixels(fittedImage))
+        );
+    }
+
+    @Test
+    void testAlignment() {
+        TextLayer leftLayer = new TextLayer().setText("Short").setFontSize(20).setMaxWidth(300);
+        TextLayer rightLayer = new TextLayer().setText("Short").setFontSize(20).setMaxWidth(300)
+                .setAlignment(TextLayer.Alignment.RIGHT);
+
+        BufferedImage leftImage = render(leftLayer, 300, 50);
+        BufferedImage rightImage = render(rightLayer, 300, 50);
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(findFirstTextColumn(leftImage) < 10, "Left aligned text mismatch"),
+                () -> Assertions.assertTrue(findFirstTextColumn(rightImage) > 200, "Right aligned text mismatch")
+        );
+    }
+
+    private static BufferedImage render(TextLayer textLayer, int width, int height) {
+        return new ImageGenerator(width, height).addLayer(textLayer).build().toImage();
+    }
+
+    private static int countTextPixels(BufferedImage image) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countTextRows(BufferedImage image) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int findFirstTextColumn(BufferedImage image) {
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+                    return x;
+                }
+            }
+        }
+        return -1;
+    }
+}
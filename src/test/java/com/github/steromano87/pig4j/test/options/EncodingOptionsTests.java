@@ -0,0 +1,96 @@
+package com.github.steromano87.pig4j.test.options;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.encoding.ImageEncoder;
+import com.github.steromano87.pig4j.options.EncodingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+class EncodingOptionsTests {
+    @Test
+    void testJpegQuality() throws IOException {
+        BufferedImage image = createSampleImage();
+
+        byte[] lowQualityImage = encode(image, ImageFormat.JPEG, new EncodingOptions().setCompressionQuality(0.1f));
+        byte[] highQualityImage = encode(image, ImageFormat.JPEG, new EncodingOptions().setCompressionQuality(0.95f));
+
+        Assertions.assertTrue(
+                lowQualityImage.length < highQualityImage.length,
+                "Low quality JPEG should be smaller than high quality JPEG"
+        );
+    }
+
+    @Test
+    void testPngDeflateLevel() throws IOException {
+        BufferedImage image = createSampleImage();
+
+        byte[] storedImage = encode(image, ImageFormat.PNG, new EncodingOptions().setDeflateLevel(0));
+        byte[] compressedImage = encode(image, ImageFormat.PNG, new EncodingOptions().setDeflateLevel(9));
+        BufferedImage decodedImage = ImageIO.read(new ByteArrayInputStream(storedImage));
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(
+                        compressedImage.length < storedImage.length,
+                        "Deflate level 9 should be smaller than deflate level 0"
+                ),
+                () -> Assertions.assertEquals(image.getRGB(17, 23), decodedImage.getRGB(17, 23), "Pixel mismatch")
+        );
+    }
+
+    @Test
+    void testTiffCompressionType() throws IOException {
+        BufferedImage image = createSampleImage();
+
+        byte[] uncompressedImage = encode(image, ImageFormat.TIFF, new EncodingOptions());
+        byte[] compressedImage = encode(image, ImageFormat.TIFF, new EncodingOptions().setCompressionType("Deflate"));
+
+        Assertions.assertTrue(
+                compressedImage.length < uncompressedImage.length,
+                "Deflate TIFF should be smaller than uncompressed TIFF"
+        );
+    }
+
+    @Test
+    void testMissingCompressionType() {
+        BufferedImage image = createSampleImage();
+
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> encode(image, ImageFormat.TIFF, new EncodingOptions().setCompressionQuality(0.5f))
+        );
+    }
+
+    @Test
+    void testInvalidCompressionQuality() {
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new EncodingOptions().setCompressionQuality(1.5f)
+        );
+    }
+
+    private static byte[] encode(BufferedImage image, ImageFormat format, EncodingOptions encodingOptions)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Assertions.assertTrue(ImageEncoder.write(image, format, encodingOptions, outputStream), "Missing encoder");
+        return outputStream.toByteArray();
+    }
+
+    private static BufferedImage createSampleImage() {
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int noise = random.nextInt(32);
+                image.setRGB(x, y, ((x + noise) << 16) | ((y + noise) << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.steromano87.pig4j.test.options;
+
+import com.github.steromano87.pig4j.options.ScalingOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ScalingOptionsTests {
+    @Test
+    void testRepeatedScaleApplication() {
+        ScalingOptions scalingOptions = new ScalingOptions().setScale(0.5);
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+
+        scalingOptions.apply(image);
+        BufferedImage scaledImage = scalingOptions.apply(image);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(100, scaledImage.getWidth(), "Scaled width mismatch"),
+                () -> Assertions.assertEquals(50, scaledImage.getHeight(), "Scaled height mismatch"),
+                () -> Assertions.assertEquals(0.5, scalingOptions.getScale(), "Scale should not be modified"),
+                () -> Assertions.assertNull(scalingOptions.getWidth(), "Width should not be stored")
+        );
+    }
+
+    @Test
+    void testSharedOptionsResolveSizePerCall() {
+        ScalingOptions scalingOptions = new ScalingOptions().setWidth(100);
+
+        List<Dimension> scaledSizes = IntStream.rangeClosed(1, 64)
+                .parallel()
+                .mapToObj(index -> scalingOptions.getScaledSize(index * 10, index * 20))
+                .collect(Collectors.toList());
+
+        Assertions.assertTrue(
+                scaledSizes.stream().allMatch(size -> size.equals(new Dimension(100, 200))),
+                "Scaled sizes depend on previous calls"
+        );
+    }
+}
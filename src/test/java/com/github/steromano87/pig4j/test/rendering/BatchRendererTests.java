@@ -0,0 +1,89 @@
+package com.github.steromano87.pig4j.test.rendering;
+
+import com.github.steromano87.pig4j.ImageFormat;
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.exceptions.ImageGenerationException;
+import com.github.steromano87.pig4j.exceptions.ImageWritingException;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import com.github.steromano87.pig4j.rendering.BatchRenderer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+class BatchRendererTests {
+    @Test
+    void testBatchRendering() {
+        Map<Integer, byte[]> renderedVariants = new ConcurrentHashMap<>();
+
+        this.buildBatchRenderer().render(
+                IntStream.range(0, 40).boxed(),
+                ImageFormat.PNG,
+                renderedVariants::put
+        );
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(40, renderedVariants.size(), "Rendered variants count mismatch"),
+                () -> {
+                    BufferedImage variantImage = ImageIO.read(new ByteArrayInputStream(renderedVariants.get(7)));
+                    Assertions.assertEquals(320, variantImage.getWidth(), "Variant width mismatch");
+                    Assertions.assertEquals(Color.BLUE.getRGB(), variantImage.getRGB(319, 199), "Template color mismatch");
+                }
+        );
+    }
+
+    @Test
+    void testBatchRenderingSinkFailure() {
+        Assertions.assertThrows(
+                ImageWritingException.class,
+                () -> this.buildBatchRenderer().render(
+                        IntStream.range(0, 40).boxed(),
+                        ImageFormat.PNG,
+                        (variant, encodedImage) -> {
+                            throw new IOException("Sink is closed");
+                        }
+                )
+        );
+    }
+
+    @Test
+    void testBatchRenderingWorkerError() {
+        ImageGenerationException exception = Assertions.assertThrows(
+                ImageGenerationException.class,
+                () -> this.buildBatchRenderer().render(
+                        IntStream.range(0, 40).boxed(),
+                        ImageFormat.PNG,
+                        (variant, encodedImage) -> {
+                            throw new OutOfMemoryError("Sink is full");
+                        }
+                )
+        );
+
+        Assertions.assertInstanceOf(OutOfMemoryError.class, exception.getCause(), "Worker error is not surfaced");
+    }
+
+    private BatchRenderer<Integer> buildBatchRenderer() {
+        ImageGenerator template = new ImageGenerator(320, 200);
+        template.addLayer(new SingleColorLayer().setColor(Color.BLUE));
+
+        return new BatchRenderer<Integer>(
+                template,
+                variant -> Collections.singletonList(
+                        new TextLayer()
+                                .setText("Variant #" + variant)
+                                .setColor(Color.WHITE)
+                                .setPositionOptions(new PositionOptions().setX(10).setY(10))
+                )
+        ).setParallelism(4).setMaxPendingVariants(8);
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.steromano87.pig4j.test.rendering;
+
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.rendering.CompositingKernels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+class CompositingKernelsTests {
+    @Test
+    void testBlendingMatchesJava2D() {
+        BufferedImage foreground = createRandomImage(BufferedImage.TYPE_INT_ARGB, 64, 48);
+        BufferedImage kernelBackground = createRandomImage(BufferedImage.TYPE_INT_RGB, 96, 64);
+        BufferedImage java2DBackground = copy(kernelBackground);
+
+        CompositingKernels.blendSourceAtop(
+                foreground, 0, 0, kernelBackground, new Rectangle(10, 5, 64, 48), BlendingOptions.Method.NORMAL, 0.7f
+        );
+        Graphics2D graphics2D = java2DBackground.createGraphics();
+        graphics2D.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, 0.7f));
+        graphics2D.drawImage(foreground, 10, 5, null);
+        graphics2D.dispose();
+
+        assertSimilarPixels(java2DBackground, kernelBackground);
+    }
+
+    @Test
+    void testBlendingOnSubimage() {
+        BufferedImage foreground = createRandomImage(BufferedImage.TYPE_INT_ARGB, 16, 16);
+        BufferedImage background = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage subimage = background.getSubimage(20, 30, 16, 16);
+
+        CompositingKernels.fillSourceAtop(subimage, new Rectangle(0, 0, 16, 16), 0xFF000000, BlendingOptions.Method.NORMAL, 1.0f);
+        CompositingKernels.copy(foreground, 0, 0, subimage, new Rectangle(0, 0, 16, 16));
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(CompositingKernels.supports(subimage), "Subimage should be supported"),
+                () -> Assertions.assertEquals(foreground.getRGB(3, 4), background.getRGB(23, 34), "Pixel mismatch"),
+                () -> Assertions.assertEquals(0, background.getRGB(19, 29), "Pixel outside subimage modified")
+        );
+    }
+
+    @Test
+    void testFillKeepsBackgroundAlpha() {
+        BufferedImage background = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        background.setRGB(2, 2, 0x80102030);
+
+        CompositingKernels.fillSourceAtop(background, new Rectangle(0, 0, 8, 8), 0xFFFF0000, BlendingOptions.Method.NORMAL, 1.0f);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(0x80FF0000, background.getRGB(2, 2), "Blended pixel mismatch"),
+                () -> Assertions.assertEquals(0, background.getRGB(0, 0) >>> 24, "Transparent pixel alpha mismatch")
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0xFF3080C0, 0x803080C0})
+    void testFillMatchesBlendingSolidImage(int argb) {
+        BufferedImage solidImage = createSolidImage(argb);
+        for (int imageType : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB}) {
+            BufferedImage filledImage = createRandomImage(imageType, 40, 30);
+            BufferedImage blendedImage = copy(filledImage);
+
+            CompositingKernels.fillSourceAtop(filledImage, new Rectangle(0, 0, 40, 30), argb, BlendingOptions.Method.NORMAL, 1.0f);
+            CompositingKernels.blendSourceAtop(
+                    solidImage, 0, 0, blendedImage, new Rectangle(0, 0, 40, 30), BlendingOptions.Method.NORMAL, 1.0f
+            );
+
+            Assertions.assertArrayEquals(
+                    blendedImage.getRGB(0, 0, 40, 30, null, 0, 40),
+                    filledImage.getRGB(0, 0, 40, 30, null, 0, 40)
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlendingOptions.Method.class)
+    void testBlendingMethodsMatchReference(BlendingOptions.Method method) {
+        BufferedImage foreground = createRandomImage(BufferedImage.TYPE_INT_ARGB, 32, 32);
+        BufferedImage background = createRandomImage(BufferedImage.TYPE_INT_ARGB, 32, 32);
+        BufferedImage blendedImage = copy(background);
+
+        CompositingKernels.blendSourceAtop(foreground, 0, 0, blendedImage, new Rectangle(0, 0, 32, 32), method, 0.8f);
+
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 32; x++) {
+                int expected = blendReference(method, foreground.getRGB(x, y), background.getRGB(x, y), 0.8);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = Math.abs(((expected >> shift) & 0xFF) - ((blendedImage.getRGB(x, y) >> shift) & 0xFF));
+                    if (difference > 1) {
+                        Assertions.fail(method + " mismatch at " + x + ", " + y);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int blendReference(BlendingOptions.Method method, int foreground, int background, double alpha) {
+        double foregroundAlpha = (foreground >>> 24) / 255.0 * alpha;
+        double backgroundAlpha = (background >>> 24) / 255.0;
+        int result = background & 0xFF000000;
+        for (int shift = 0; shift < 24; shift += 8) {
+            double source = ((foreground >> shift) & 0xFF) / 255.0;
+            double backdrop = ((background >> shift) & 0xFF) / 255.0;
+            double blended;
+            switch (method) {
+                case MULTIPLY:
+                    blended = source * backdrop;
+                    break;
+                case SCREEN:
+                    blended = source + backdrop - source * backdrop;
+                    break;
+                case OVERLAY:
+                    blended = backdrop <= 0.5
+                            ? source * 2 * backdrop
+                            : source + (2 * backdrop - 1) - source * (2 * backdrop - 1);
+                    break;
+                case DARKEN:
+                    blended = Math.min(source, backdrop);
+                    break;
+                case LIGHTEN:
+                    blended = Math.max(source, backdrop);
+                    break;
+                case ADD:
+                    blended = Math.min(1, source + backdrop);
+                    break;
+                case SUBTRACT:
+                    blended = Math.max(0, backdrop - source);
+                    break;
+                case DIFFERENCE:
+                    blended = Math.abs(backdrop - source);
+                    break;
+                default:
+                    blended = source;
+            }
+
+            double mixed = (1 - backgroundAlpha) * source + backgroundAlpha * blended;
+            double composed = mixed * foregroundAlpha + backdrop * (1 - foregroundAlpha);
+            result |= (int) Math.round(composed * 255) << shift;
+        }
+        return result;
+    }
+
+    private static void assertSimilarPixels(BufferedImage expectedImage, BufferedImage actualImage) {
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                int expected = expectedImage.getRGB(x, y);
+                int actual = actualImage.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF));
+                    if (difference > 2) {
+                        Assertions.fail("Pixel mismatch at " + x + ", " + y);
+                    }
+                }
+            }
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copiedImage = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        copiedImage.setData(image.getRaster());
+        return copiedImage;
+    }
+
+    private static BufferedImage createSolidImage(int argb) {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage createRandomImage(int imageType, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.steromano87.pig4j.test.rendering;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.layers.Layer;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.BlendingOptions;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import com.github.steromano87.pig4j.rendering.RenderPlan;
+import com.github.steromano87.pig4j.rendering.RenderTarget;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+class RenderPlanTests {
+    @Test
+    void testNoOpAndOffCanvasLayersAreDropped() {
+        List<Layer> layers = Arrays.asList(
+                new SingleColorLayer().setColor(Color.RED).setFusionOptions(new BlendingOptions().setAlpha(0.0f)),
+                new SingleColorLayer().setColor(new Color(0, 0, 255, 0)),
+                new TextLayer().setText("Hidden").setPositionOptions(new PositionOptions().setX(500).setY(10)),
+                new SingleColorLayer().setColor(new Color(0, 255, 0, 128))
+        );
+
+        RenderPlan renderPlan = RenderPlan.create(layers, 100, 100, false);
+
+        Assertions.assertEquals(Arrays.asList(3), renderPlan.getIndexes());
+    }
+
+    @Test
+    void testLayersBelowOpaqueCoverAreDropped() {
+        List<Layer> layers = Arrays.asList(
+                new TextLayer().setText("Covered"),
+                new SingleColorLayer().setColor(Color.BLUE),
+                new TextLayer().setText("Visible")
+        );
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(Arrays.asList(1, 2), RenderPlan.create(layers, 100, 100, false).getIndexes()),
+                // Covers keep the canvas alpha, that may have been changed by the layers below
+                () -> Assertions.assertEquals(Arrays.asList(0, 1, 2), RenderPlan.create(layers, 100, 100, true).getIndexes())
+        );
+    }
+
+    @Test
+    void testAdjacentCoversAreMerged() {
+        List<Layer> layers = Arrays.asList(
+                new SingleColorLayer().setColor(Color.RED),
+                new SingleColorLayer().setColor(Color.GREEN),
+                new SingleColorLayer().setColor(Color.BLUE)
+                        .setFusionOptions(new BlendingOptions().setMethod(BlendingOptions.Method.MULTIPLY))
+        );
+
+        Assertions.assertEquals(Arrays.asList(1, 2), RenderPlan.create(layers, 100, 100, true).getIndexes());
+    }
+
+    @Test
+    void testPlannedRenderingMatchesFullRendering() {
+        List<Layer> layers = Arrays.asList(
+                new SingleColorLayer().setColor(Color.RED),
+                new SingleColorLayer().setColor(Color.YELLOW),
+                new TextLayer().setText("Plan").setFontSize(30).setColor(Color.BLUE)
+        );
+        ImageGenerator generator = new ImageGenerator(120, 80, new Color(0, 0, 0, 96), true)
+                .setCompositingMode(ImageGenerator.CompositingMode.IN_PLACE);
+        layers.forEach(generator::addLayer);
+        BufferedImage plannedImage = generator.build().toImage();
+
+        BufferedImage fullImage = new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = fullImage.createGraphics();
+        graphics2D.setBackground(new Color(0, 0, 0, 96));
+        graphics2D.clearRect(0, 0, 120, 80);
+        graphics2D.dispose();
+        RenderTarget target = new RenderTarget(fullImage);
+        layers.forEach(layer -> layer.applyInPlace(target));
+
+        Assertions.assertArrayEquals(
+                fullImage.getRGB(0, 0, 120, 80, null, 0, 120),
+                plannedImage.getRGB(0, 0, 120, 80, null, 0, 120)
+        );
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.steromano87.pig4j.test.templates;
+
+import com.github.steromano87.pig4j.ImageGenerator;
+import com.github.steromano87.pig4j.cache.TemplateCache;
+import com.github.steromano87.pig4j.exceptions.TemplateException;
+import com.github.steromano87.pig4j.layers.base.SingleColorLayer;
+import com.github.steromano87.pig4j.layers.base.TextLayer;
+import com.github.steromano87.pig4j.options.PositionOptions;
+import com.github.steromano87.pig4j.templates.Template;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+class TemplateTests {
+    private static final String JSON_TEMPLATE = "{" +
+            "\"width\": 320, \"height\": 200, \"compositingMode\": \"IN_PLACE\"," +
+            "\"layers\": [" +
+            "{\"type\": \"color\", \"color\": \"#2040A0\"}," +
+            "{\"type\": \"text\", \"text\": \"Hello ${name}\", \"fontSize\": \"${size}\", \"color\": \"${color}\"," +
+            "\"positionOptions\": {\"x\": 20, \"y\": 40}}" +
+            "]}";
+
+    private static final String YAML_TEMPLATE = "" +
+            "width: 320\n" +
+            "height: 200\n" +
+            "compositingMode: IN_PLACE\n" +
+            "layers:\n" +
+            "  - type: color\n" +
+            "    color: '#2040A0'\n" +
+            "  - type: text\n" +
+            "    text: Hello ${name}\n" +
+            "    fontSize: ${size}\n" +
+            "    color: ${color}\n" +
+            "    positionOptions:\n" +
+            "      x: 20\n" +
+            "      y: 40\n";
+
+    private static final String XML_TEMPLATE = "" +
+            "<template>" +
+            "<width>320</width><height>200</height><compositingMode>IN_PLACE</compositingMode>" +
+            "<layers>" +
+            "<layer type=\"color\"><color>#2040A0</color></layer>" +
+            "<layer type=\"text\"><text>Hello ${name}</text><fontSize>${size}</fontSize><color>${color}</color>" +
+            "<positionOptions x=\"20\" y=\"40\"/></layer>" +
+            "</layers>" +
+            "</template>";
+
+    @Test
+    void testAllFormatsMatchCodeDefinedGenerator() {
+        BufferedImage expectedImage = new ImageGenerator(320, 200)
+                .setCompositingMode(ImageGenerator.CompositingMode.IN_PLACE)
+                .addLayer(new SingleColorLayer().setColor(new Color(0x20, 0x40, 0xA0)))
+                .addLayer(new TextLayer().setText("Hello pig4j").setFontSize(30).setColor(Color.YELLOW)
+                        .setPositionOptions(new PositionOptions().setX(20).setY(40)))
+                .build()
+                .toImage();
+
+        for (Template template : Arrays.asList(
+                Template.parse(JSON_TEMPLATE, Template.Format.JSON),
+                Template.parse(YAML_TEMPLATE, Template.Format.YAML),
+                Template.parse(XML_TEMPLATE, Template.Format.XML)
+        )) {
+            BufferedImage templateImage = template.createGenerator(this.createBindings()).build().toImage();
+            Assertions.assertArrayEquals(
+                    expectedImage.getRGB(0, 0, 320, 200, null, 0, 320),
+                    templateImage.getRGB(0, 0, 320, 200, null, 0, 320)
+            );
+        }
+    }
+
+    @Test
+    void testPlaceholdersAreCollected() {
+        Template template = Template.parse(JSON_TEMPLATE, Template.Format.JSON);
+
+        Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("name", "size", "color")), template.getPlaceholders());
+    }
+
+    @Test
+    void testMissingBindingIsReported() {
+        Template template = Template.parse(JSON_TEMPLATE, Template.Format.JSON);
+
+        Assertions.assertThrows(TemplateException.class, () -> template.createGenerator(Collections.singletonMap("name", "x")));
+    }
+
+    @Test
+    void testInvalidTemplatesAreReported() {
+        Assertions.assertAll(
+                () -> Assertions.assertThrows(TemplateException.class, () -> Template.parse("{\"width\": 10}", Template.Format.JSON)),
+                () -> Assertions.assertThrows(TemplateException.class, () -> Template.parse(
+                        "{\"width\": 10, \"height\": 10, \"layers\": [{\"type\": \"shape\"}]}",
+                        Template.Format.JSON
+                )),
+                () -> Assertions.assertThrows(TemplateException.class, () -> Template.parse(
+                        "{\"width\": 10, \"height\": 10, \"layers\": [{\"type\": \"color\", \"color\": \"red\"}]}",
+                        Template.Format.JSON
+                ))
+        );
+    }
+
+    @Test
+    void testTemplateFilesAreCompiledOnce(@TempDir Path temporaryDirectory) throws Exception {
+        File templateFile = temporaryDirectory.resolve("badge.yaml").toFile();
+        Files.write(templateFile.toPath(), YAML_TEMPLATE.getBytes(StandardCharsets.UTF_8));
+        TemplateCache templateCache = new TemplateCache(16);
+
+        Template firstTemplate = templateCache.get(templateFile);
+        Template secondTemplate = templateCache.get(templateFile);
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(firstTemplate, secondTemplate),
+                () -> Assertions.assertEquals(1, templateCache.getStatistics().getMissCount())
+        );
+    }
+
+    private Map<String, Object> createBindings() {
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put("name", "pig4j");
+        bindings.put("size", 30);
+        bindings.put("color", Color.YELLOW);
+        return bindings;
+    }
+}